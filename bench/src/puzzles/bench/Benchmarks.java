@@ -0,0 +1,51 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the benchmarks with the GC profiler, for the allocation rate of every benchmark, and
+ * saves the results as JSON under bench/results, named by the time of the run, so that runs
+ * can be compared to find regressions. Every JMH command line option can be given as well,
+ * for example {@code SolveBenchmark -p puzzle=hoppers-4,chess-9}, and a {@code -rff} file
+ * replaces the default one.
+ * @author cmp2318
+ */
+public class Benchmarks {
+    /**
+     * Runs the benchmarks.
+     * @param args JMH command line options
+     * @throws RunnerException if a benchmark fails
+     * @throws CommandLineOptionException if an option is not understood
+     * @throws IOException if the results directory cannot be created
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions command = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(command).addProfiler(GCProfiler.class);
+        if (command.getIncludes().isEmpty()) {
+            options.include(Benchmarks.class.getPackageName() + ".*");
+        }
+        if (!command.getResult().hasValue()) {
+            Path results = Path.of("bench", "results");
+            Files.createDirectories(results);
+            String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(results.resolve("jmh-" + time + ".json").toString());
+        } else if (!command.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the operations the solver calls on every configuration it meets, one at a time,
+ * on the starting configuration of one puzzle of each size and of every type.
+ * @author cmp2318
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBenchmark {
+    /**
+     * The puzzle whose starting configuration is used.
+     */
+    @Param({"chess-0", "chess-1", "chess-2", "chess-3", "chess-4", "chess-5", "chess-6", "chess-7", "chess-8",
+            "chess-9", "hoppers-0", "hoppers-1", "hoppers-2", "hoppers-3", "hoppers-4", "hoppers-5", "hoppers-6",
+            "hoppers-7", "hoppers-8", "hoppers-9", "clock 1000 42 722", "strings MARCH APRIL"})
+    public String puzzle;
+
+    /**
+     * The starting configuration.
+     */
+    private Configuration start;
+    /**
+     * A configuration equal to the start, but a different object.
+     */
+    private Configuration copy;
+    /**
+     * A configuration one move away from the start, or the start itself if there is no move.
+     */
+    private Configuration neighbor;
+
+    /**
+     * Builds the configurations once per run.
+     * @throws IOException if the data file cannot be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        start = Puzzles.start(puzzle);
+        copy = Puzzles.start(puzzle);
+        neighbor = start.getNeighbors().stream().findFirst().orElse(start);
+    }
+
+    /**
+     * Generates every move.
+     * @return the neighbors
+     */
+    @Benchmark
+    public Collection<Configuration> getNeighbors() {
+        return start.getNeighbors();
+    }
+
+    /**
+     * Hashes the configuration, as every lookup in the visited map does. The configuration is a new
+     * one every time, since a HoppersConfig keeps its hash once it has computed it.
+     * @param fresh a configuration equal to the start that has not been hashed yet
+     * @return the hash
+     */
+    @Benchmark
+    public int hashCodeStart(Fresh fresh) {
+        return fresh.config.hashCode();
+    }
+
+    /**
+     * Compares two equal configurations, the slowest case of a lookup that finds its key.
+     * @return true
+     */
+    @Benchmark
+    public boolean equalsEqual() {
+        return start.equals(copy);
+    }
+
+    /**
+     * Compares configurations one move apart, as a lookup with a colliding hash does.
+     * @return false, unless the start has no move
+     */
+    @Benchmark
+    public boolean equalsNeighbor() {
+        return start.equals(neighbor);
+    }
+
+    /**
+     * Checks for a solution, as the solver does for every configuration it takes off the queue.
+     * @return whether the start is solved
+     */
+    @Benchmark
+    public boolean isSolution() {
+        return start.isSolution();
+    }
+
+    /**
+     * A new configuration equal to the start for every call of a benchmark, for the ones that
+     * would otherwise time what an earlier call left cached.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        /**
+         * The configuration, built before every call.
+         */
+        private Configuration config;
+
+        /**
+         * Builds the configuration.
+         * @param benchmark the benchmark, for the puzzle it runs on
+         * @throws IOException if the data file cannot be read
+         */
+        @Setup(Level.Invocation)
+        public void setUp(ConfigurationBenchmark benchmark) throws IOException {
+            config = Puzzles.start(benchmark.puzzle);
+        }
+    }
+}
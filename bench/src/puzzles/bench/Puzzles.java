@@ -0,0 +1,64 @@
+package puzzles.bench;
+
+import puzzles.chess.model.ChessBoard;
+import puzzles.chess.model.ChessConfig;
+import puzzles.chess.solver.ChessAnalyzer;
+import puzzles.clock.ClockConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersBoard;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.solver.HoppersAnalyzer;
+import puzzles.strings.StringsConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The puzzles the benchmarks run on, named the way the run configurations name them:
+ * {@code chess-4} and {@code hoppers-7} for the files in data/, {@code clock 12 2 11}
+ * and {@code strings CAT DOG} for the arguments of Clock and Strings.
+ * The data directory is the one under the working directory unless the system
+ * property {@code puzzles.data} names another.
+ * @author cmp2318
+ */
+public final class Puzzles {
+    private Puzzles() {
+    }
+
+    /**
+     * Registers the analyzers and the search boards, as the puzzle mains do.
+     */
+    public static void register() {
+        Solver.addAnalyzer(HoppersConfig.class, new HoppersAnalyzer());
+        Solver.addAnalyzer(ChessConfig.class, new ChessAnalyzer());
+        Solver.addBoard(HoppersConfig.class, c -> new HoppersBoard((HoppersConfig) c));
+        Solver.addBoard(ChessConfig.class, c -> new ChessBoard((ChessConfig) c));
+    }
+
+    /**
+     * Builds the starting configuration of a puzzle. Every call builds a new one,
+     * so two calls give configurations that are equal but not the same object.
+     * @param name the name of the puzzle
+     * @return its starting configuration
+     * @throws IOException if its data file cannot be read
+     */
+    public static Configuration start(String name) throws IOException {
+        String[] words = name.split(" ");
+        switch (words[0]) {
+            case "clock":
+                return new ClockConfig(Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+                        Integer.parseInt(words[3]));
+            case "strings":
+                return new StringsConfig(words[1], words[2]);
+            default:
+                String type = name.substring(0, name.indexOf('-'));
+                Path file = Path.of(System.getProperty("puzzles.data", "data"), type, name + ".txt");
+                try (BufferedReader reader = Files.newBufferedReader(file)) {
+                    return type.equals("chess") ? ChessConfig.read(reader) : HoppersConfig.read(reader);
+                }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves every puzzle end to end with {@link Solver#solve(Configuration)}, the way the puzzle
+ * mains do, including turning the path into strings. The large boards take seconds per solve,
+ * so select puzzles with {@code -p puzzle=...} when only some of them matter.
+ * @author cmp2318
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+    /**
+     * The puzzle to solve.
+     */
+    @Param({"chess-0", "chess-1", "chess-2", "chess-3", "chess-4", "chess-5", "chess-6", "chess-7", "chess-8",
+            "chess-9", "hoppers-0", "hoppers-1", "hoppers-2", "hoppers-3", "hoppers-4", "hoppers-5", "hoppers-6",
+            "hoppers-7", "hoppers-8", "hoppers-9", "clock 12 2 11", "clock 12 2 15", "clock 12 5 5", "clock 24 22 9",
+            "clock 100 90 30", "clock 1000 42 722", "strings AB CDE", "strings ABC ABC", "strings ABC BZD",
+            "strings AB XD", "strings B Y", "strings B !", "strings CAT DOG", "strings MARCH APRIL", "strings P U"})
+    public String puzzle;
+
+    /**
+     * The starting configuration of the puzzle.
+     */
+    private Configuration start;
+
+    /**
+     * Reads the puzzle once per run.
+     * @throws IOException if its data file cannot be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Puzzles.register();
+        start = Puzzles.start(puzzle);
+    }
+
+    /**
+     * Solves the puzzle.
+     * @return the path, so that the solve is not optimized away
+     */
+    @Benchmark
+    public List<String> solve() {
+        return Solver.solve(start);
+    }
+}
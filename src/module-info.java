@@ -1,5 +1,8 @@
 module BFSPuzzleSolver {
     requires transitive javafx.controls;
+    requires java.management;
+    requires jdk.httpserver;
+    requires transitive jdk.jfr;
     exports puzzles.common;
     exports puzzles.common.solver;
     exports puzzles.hoppers.gui;
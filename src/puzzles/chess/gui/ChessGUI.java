@@ -1,18 +1,39 @@
 package puzzles.chess.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.Background;
-import javafx.scene.layout.BackgroundFill;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import puzzles.common.Coordinates;
+import puzzles.common.ModelEvent;
 import puzzles.common.Observer;
 import puzzles.chess.model.ChessModel;
-import puzzles.hoppers.model.HoppersModel;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A view of a Solitaire Chess board that draws every square on one Canvas.
+ * The piece images are copied once into a single sprite atlas. The model's typed events
+ * arrive in one coalesced batch per frame, and only the squares in the batch's board delta
+ * and the old and new selection are drawn again, so large boards cost no more per move than small ones.
+ * @author Jose Thomas Diaz jtd4400
+ */
 public class ChessGUI extends Application implements Observer<ChessModel, String> {
     private ChessModel model;
 
@@ -20,44 +41,252 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
     private final static int ICON_SIZE = 75;
     /** the font size for labels and buttons */
     private final static int FONT_SIZE = 12;
+    /** the largest width or height of the board in pixels, before squares are shrunk */
+    private final static int MAX_BOARD = 800;
+    /** the smallest size of a square in pixels */
+    private final static int MIN_SQUARE = 16;
 
     private Stage stage;
 
     /** The resources directory is located directly underneath the gui package */
     private final static String RESOURCES_DIR = "resources/";
 
-    // for demonstration purposes
-    private Image bishop = new Image(getClass().getResourceAsStream(RESOURCES_DIR+"bishop.png"));
+    /** the piece letters, in the order of their images in the atlas */
+    private final static String PIECES = "KQRBNP";
+    /** the image file of each piece letter */
+    private final static String[] SPRITES = {"king", "queen", "rook", "bishop", "knight", "pawn"};
+
+    /** a definition of light and dark and for the square backgrounds */
+    private static final Color LIGHT = Color.WHITE;
+    private static final Color DARK = Color.MIDNIGHTBLUE;
+    /** the outline of the selected piece's square */
+    private static final Color SELECTED = Color.GOLD;
+
+    /** every piece image side by side, shared by all squares */
+    private final Image atlas = buildAtlas();
 
-    /** a definition of light and dark and for the button backgrounds */
-    private static final Background LIGHT =
-            new Background( new BackgroundFill(Color.WHITE, null, null));
-    private static final Background DARK =
-            new Background( new BackgroundFill(Color.MIDNIGHTBLUE, null, null));
+    private Canvas canvas;
+    private Label status;
+    /** the size of one square on the canvas, in pixels */
+    private int square;
+    /** the number of rows and columns drawn */
+    private int[] shown;
+    /** the selected square drawn, or null */
+    private Coordinates shownSelected;
+    /** the latest message from the model, which a hint sends from its own thread */
+    private volatile String message = "";
 
     @Override
-    public void init() {
+    public void init() throws IOException {
         // get the file name from the command line
         String filename = getParameters().getRaw().get(0);
+        this.model = new ChessModel(filename);
+        this.model.addObserver(this);
+        this.model.addEventObserver((chessModel, events) -> apply(events));
+        this.model.setNotifier(Platform::runLater);
     }
 
     @Override
     public void start(Stage stage) throws Exception {
         this.stage = stage;
-        Button button = new Button();
-        button.setGraphic(new ImageView(bishop));
-        button.setBackground(LIGHT);
-        button.setMinSize(ICON_SIZE, ICON_SIZE);
-        button.setMaxSize(ICON_SIZE, ICON_SIZE);
-        Scene scene = new Scene(button);
-        stage.setScene(scene);
+        Font font = new Font(FONT_SIZE);
+
+        status = new Label(message);
+        status.setFont(font);
+        canvas = new Canvas();
+        canvas.setOnMouseClicked(event -> {
+            int row = (int) (event.getY() / square);
+            int col = (int) (event.getX() / square);
+            int[] dims = model.getDimensions();
+            if (row < dims[0] && col < dims[1]) {
+                model.select(row, col);
+            }
+        });
+
+        Button load = new Button("Load");
+        load.setOnAction(event -> load());
+        Button reset = new Button("Reset");
+        reset.setOnAction(event -> {
+            try {
+                model.reset();
+            } catch (IOException e) {
+                model.fail(e.getMessage());
+            }
+        });
+        Button hint = new Button("Hint");
+        hint.setOnAction(event -> hint(hint));
+        Button undo = new Button("Undo");
+        undo.setOnAction(event -> model.undo());
+        Button redo = new Button("Redo");
+        redo.setOnAction(event -> model.redo());
+        load.setFont(font);
+        reset.setFont(font);
+        hint.setFont(font);
+        undo.setFont(font);
+        redo.setFont(font);
+        HBox buttons = new HBox(load, reset, hint, undo, redo);
+        buttons.setAlignment(Pos.CENTER);
+
+        BorderPane pane = new BorderPane(canvas, status, null, buttons, null);
+        BorderPane.setAlignment(status, Pos.CENTER);
+        resize();
+
+        stage.setTitle("ChessGUI");
+        stage.setScene(new Scene(pane));
         stage.show();
     }
 
+    /**
+     * Stops the model's speculative solver when the window is closed
+     */
+    @Override
+    public void stop() {
+        model.shutdown();
+    }
+
+    /**
+     * Keeps the latest message; the board is drawn from the model's events
+     * @param chessModel ChessModel, the model that changed
+     * @param msg String, the message to show
+     */
     @Override
     public void update(ChessModel chessModel, String msg) {
+        this.message = msg;
+    }
+
+    /**
+     * Solves a hint on a thread of its own, so that the window keeps drawing while the solver works and
+     * shows the message of a solve that gives up. The button is disabled until the hint is done
+     * @param button Button, the hint button
+     */
+    private void hint(Button button) {
+        button.setDisable(true);
+        status.setText("Solving...");
+        Thread solving = new Thread(() -> {
+            try {
+                model.hint();
+            } finally {
+                Platform.runLater(() -> button.setDisable(false));
+            }
+        }, "chess-hint");
+        solving.setDaemon(true);
+        solving.start();
+    }
+
+    /**
+     * Lets the user pick a puzzle file and loads it into the model
+     */
+    private void load() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Open Resource File");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        File file = chooser.showOpenDialog(stage);
+        if (file != null) {
+            try {
+                model.load(file);
+            } catch (IOException e) {
+                model.fail(file.getName());
+            }
+        }
+    }
+
+    /**
+     * Draws the squares one batch of events changed, or the whole board
+     * if a board of a different size was loaded
+     * @param events List<ModelEvent>, the coalesced events since the last frame
+     */
+    private void apply(List<ModelEvent> events) {
+        if (canvas == null) {
+            return;
+        }
+        int[] dims = model.getDimensions();
+        if (!Arrays.equals(dims, shown)) {
+            status.setText(message);
+            resize();
+            return;
+        }
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        Coordinates selected = shownSelected;
+        boolean solved = false;
+        for (ModelEvent event : events) {
+            if (event instanceof ModelEvent.BoardDelta delta) {
+                for (Coordinates cell : delta.cells()) {
+                    drawSquare(g, cell.row(), cell.col(), cell.equals(selected));
+                }
+            } else if (event instanceof ModelEvent.Selection selection) {
+                selected = selection.cell();
+            } else if (event instanceof ModelEvent.Solved) {
+                solved = true;
+            }
+        }
+        if (!Objects.equals(selected, shownSelected)) {
+            if (shownSelected != null) {
+                drawSquare(g, shownSelected.row(), shownSelected.col(), false);
+            }
+            if (selected != null) {
+                drawSquare(g, selected.row(), selected.col(), true);
+            }
+            shownSelected = selected;
+        }
+        status.setText(solved ? message + " Solved!" : message);
+    }
+
+    /**
+     * Sizes the canvas for the model's board and draws every square
+     */
+    private void resize() {
+        int[] dims = model.getDimensions();
+        square = Math.max(MIN_SQUARE, Math.min(ICON_SIZE, MAX_BOARD / Math.max(dims[0], dims[1])));
+        canvas.setWidth(dims[1] * square);
+        canvas.setHeight(dims[0] * square);
+        shown = dims;
+        int[] selected = model.getSelected();
+        shownSelected = selected == null ? null : new Coordinates(selected[0], selected[1]);
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        for (int i = 0; i < dims[0]; i++) {
+            for (int j = 0; j < dims[1]; j++) {
+                drawSquare(g, i, j, new Coordinates(i, j).equals(shownSelected));
+            }
+        }
+        stage.sizeToScene();  // when a different sized puzzle is loaded
+    }
+
+    /**
+     * Draws one square with its background, its piece from the atlas, and an outline if it is selected
+     * @param g GraphicsContext, the canvas to draw on
+     * @param row int, the row of the square
+     * @param col int, the column of the square
+     * @param selected boolean, whether the piece on the square is selected
+     */
+    private void drawSquare(GraphicsContext g, int row, int col, boolean selected) {
+        double x = col * square;
+        double y = row * square;
+        g.setFill((row + col) % 2 == 0 ? LIGHT : DARK);
+        g.fillRect(x, y, square, square);
+        int sprite = PIECES.indexOf(model.pieceAt(row, col));
+        if (sprite != -1) {
+            g.drawImage(atlas, sprite * ICON_SIZE, 0, ICON_SIZE, ICON_SIZE, x, y, square, square);
+        }
+        if (selected) {
+            g.setStroke(SELECTED);
+            g.setLineWidth(3);
+            g.strokeRect(x + 1.5, y + 1.5, square - 3, square - 3);
+        }
+    }
 
-        this.stage.sizeToScene();  // when a different sized puzzle is loaded
+    /**
+     * Copies the image of every piece into one row of a single image
+     * @return Image, the atlas with the pieces in the order of PIECES
+     */
+    private Image buildAtlas() {
+        WritableImage image = new WritableImage(ICON_SIZE * SPRITES.length, ICON_SIZE);
+        for (int i = 0; i < SPRITES.length; i++) {
+            Image sprite = new Image(Objects.requireNonNull(
+                    getClass().getResourceAsStream(RESOURCES_DIR + SPRITES[i] + ".png")), ICON_SIZE, ICON_SIZE, false, true);
+            image.getPixelWriter().setPixels(i * ICON_SIZE, 0, ICON_SIZE, ICON_SIZE,
+                    sprite.getPixelReader(), 0, 0);
+        }
+        return image;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,46 @@
+package puzzles.chess.model;
+
+import puzzles.common.Coordinates;
+
+/**
+ * A single Solitaire Chess move: the piece at from captures the piece at to
+ * @param piece String, the piece that captures
+ * @param from Coordinates, the square the capturing piece starts on
+ * @param to Coordinates, the square of the captured piece
+ * @author Jose Thomas Diaz jtd4400
+ */
+public record Capture(String piece, Coordinates from, Coordinates to) {
+
+    /**
+     * Checks if this capture reads or changes a square: its two ends and every square it slides across
+     * @param square Coordinates, the square to check
+     * @return boolean, true if the capture depends on the square
+     */
+    public boolean reads(Coordinates square) {
+        if (writes(square)) {
+            return true;
+        }
+        int dr = to.row() - from.row();
+        int dc = to.col() - from.col();
+        if (dr != 0 && dc != 0 && Math.abs(dr) != Math.abs(dc)) {
+            return false;
+        }
+        int steps = Math.max(Math.abs(dr), Math.abs(dc));
+        for (int i = 1; i < steps; i++) {
+            if (from.row() + i * Integer.signum(dr) == square.row() &&
+                    from.col() + i * Integer.signum(dc) == square.col()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if this capture changes a square
+     * @param square Coordinates, the square to check
+     * @return boolean, true if the square is one of the two ends of the capture
+     */
+    public boolean writes(Coordinates square) {
+        return from.equals(square) || to.equals(square);
+    }
+}
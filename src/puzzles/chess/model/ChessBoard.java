@@ -0,0 +1,266 @@
+package puzzles.chess.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SearchBoard;
+
+import java.util.SplittableRandom;
+
+/**
+ * A mutable Solitaire Chess board for searches that make and take back captures in place.
+ * The squares are kept in one row-major char array and every capture is packed into an int
+ * as the square of the capturing piece times the number of squares plus the captured square.
+ * The captured pieces are kept on a stack so that a capture can be taken back, and a Zobrist
+ * hash of the pieces is updated with three exclusive-ors per capture.
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class ChessBoard implements SearchBoard {
+    /**
+     * placeholder for PIECES of type String, the piece letters in the order of their Zobrist keys
+     */
+    private static final String PIECES = "KQRBNP";
+    /**
+     * placeholder for rows of type int
+     */
+    private final int rows;
+    /**
+     * placeholder for cols of type int
+     */
+    private final int cols;
+    /**
+     * placeholder for squares of type char[], the squares of the board in row-major order
+     */
+    private final char[] squares;
+    /**
+     * placeholder for keys of type long[], the random key of each piece on each square
+     */
+    private final long[] keys;
+    /**
+     * placeholder for moves of type int[], the captures made so far
+     */
+    private final int[] moves;
+    /**
+     * placeholder for captured of type char[], the piece taken by each capture made so far
+     */
+    private final char[] captured;
+    /**
+     * placeholder for depth of type int, the number of captures made so far
+     */
+    private int depth;
+    /**
+     * placeholder for numPieces of type int, the number of pieces left
+     */
+    private int numPieces;
+    /**
+     * placeholder for startPieces of type int, the number of pieces on the starting board
+     */
+    private final int startPieces;
+    /**
+     * placeholder for hash of type long, the Zobrist hash of the pieces on the board
+     */
+    private long hash;
+
+    /**
+     * Creates a mutable board holding the same pieces as a configuration
+     * @param config ChessConfig, the configuration to copy
+     */
+    public ChessBoard(ChessConfig config) {
+        int[] dims = config.getDimensions();
+        this.rows = dims[0];
+        this.cols = dims[1];
+        this.squares = new char[rows * cols];
+        this.keys = new long[rows * cols * PIECES.length()];
+        SplittableRandom random = new SplittableRandom(squares.length);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                char piece = config.pieceAt(new int[]{i, j}).charAt(0);
+                squares[i * cols + j] = piece;
+                if (piece != '.') {
+                    numPieces++;
+                    hash ^= key(piece, i * cols + j);
+                }
+            }
+        }
+        this.startPieces = numPieces;
+        this.moves = new int[Math.max(numPieces, 1)];
+        this.captured = new char[Math.max(numPieces, 1)];
+    }
+
+    /**
+     * Writes every capture that can be made into a buffer, in the same order as ChessConfig.getMoves
+     * @param buffer int[], a buffer of at least maxMoves ints
+     * @return int, the number of captures written
+     */
+    @Override
+    public int generateMoves(int[] buffer) {
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                switch (squares[i * cols + j]) {
+                    case 'K' -> count = step(buffer, count, i, j, ChessConfig.KING);
+                    case 'N' -> count = step(buffer, count, i, j, ChessConfig.KNIGHT);
+                    case 'P' -> count = step(buffer, count, i, j, ChessConfig.PAWN);
+                    case 'B' -> count = slide(buffer, count, i, j, ChessConfig.DIAGONALS);
+                    case 'R' -> count = slide(buffer, count, i, j, ChessConfig.LINES);
+                    case 'Q' -> {
+                        count = slide(buffer, count, i, j, ChessConfig.DIAGONALS);
+                        count = slide(buffer, count, i, j, ChessConfig.LINES);
+                    }
+                    default -> { }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Makes a capture and pushes it on the stack
+     * @param move int, a capture written by generateMoves
+     */
+    @Override
+    public void makeMove(int move) {
+        int from = move / squares.length;
+        int to = move % squares.length;
+        char piece = squares[from];
+        char taken = squares[to];
+        squares[from] = '.';
+        squares[to] = piece;
+        hash ^= key(piece, from) ^ key(taken, to) ^ key(piece, to);
+        numPieces--;
+        moves[depth] = move;
+        captured[depth++] = taken;
+    }
+
+    /**
+     * Takes back the last capture made
+     */
+    @Override
+    public void unmakeMove() {
+        int move = moves[--depth];
+        int from = move / squares.length;
+        int to = move % squares.length;
+        char piece = squares[to];
+        char taken = captured[depth];
+        squares[from] = piece;
+        squares[to] = taken;
+        hash ^= key(piece, from) ^ key(taken, to) ^ key(piece, to);
+        numPieces++;
+    }
+
+    /**
+     * Get the number of captures made so far
+     * @return int
+     */
+    @Override
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Get the Zobrist hash of the pieces on the board
+     * @return long
+     */
+    @Override
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Checks if a single piece is left
+     * @return boolean, true if it is, false otherwise
+     */
+    @Override
+    public boolean isSolution() {
+        return numPieces == 1;
+    }
+
+    /**
+     * Every piece has at most eight captures, and no capture adds a piece
+     * @return int, eight times the number of pieces on the starting board
+     */
+    @Override
+    public int maxMoves() {
+        return startPieces * 8;
+    }
+
+    /**
+     * Every capture removes a piece
+     * @return int, the number of pieces on the starting board
+     */
+    @Override
+    public int maxDepth() {
+        return moves.length;
+    }
+
+    /**
+     * Copies the board into a ChessConfig
+     * @return Configuration, the configuration the board currently represents
+     */
+    @Override
+    public Configuration freeze() {
+        String[][] board = new String[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                board[i][j] = String.valueOf(squares[i * cols + j]);
+            }
+        }
+        return new ChessConfig(board, numPieces);
+    }
+
+    /**
+     * Adds the captures of a piece that moves a single step in each of the given directions
+     * @param buffer int[], the captures found so far
+     * @param count int, the number of captures found so far
+     * @param row int, the row of the piece
+     * @param col int, the column of the piece
+     * @param steps int[][], the row and column offsets the piece can move by
+     * @return int, the new number of captures
+     */
+    private int step(int[] buffer, int count, int row, int col, int[][] steps) {
+        for (int[] d : steps) {
+            int r = row + d[0];
+            int c = col + d[1];
+            if (r >= 0 && r < rows && c >= 0 && c < cols && squares[r * cols + c] != '.') {
+                buffer[count++] = (row * cols + col) * squares.length + r * cols + c;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the captures of a piece that slides any distance in each of the given directions
+     * @param buffer int[], the captures found so far
+     * @param count int, the number of captures found so far
+     * @param row int, the row of the piece
+     * @param col int, the column of the piece
+     * @param directions int[][], the row and column offsets of one step in each direction
+     * @return int, the new number of captures
+     */
+    private int slide(int[] buffer, int count, int row, int col, int[][] directions) {
+        for (int[] d : directions) {
+            int r = row + d[0];
+            int c = col + d[1];
+            while (r >= 0 && r < rows && c >= 0 && c < cols && squares[r * cols + c] == '.') {
+                r += d[0];
+                c += d[1];
+            }
+            if (r >= 0 && r < rows && c >= 0 && c < cols) {
+                buffer[count++] = (row * cols + col) * squares.length + r * cols + c;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the random key of a piece on a square
+     * @param piece char, the piece
+     * @param square int, the index of the square
+     * @return long, the key, or 0 for an empty square
+     */
+    private long key(char piece, int square) {
+        int index = PIECES.indexOf(piece);
+        return index == -1 ? 0 : keys[square * PIECES.length() + index];
+    }
+}
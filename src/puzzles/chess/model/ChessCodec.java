@@ -0,0 +1,109 @@
+package puzzles.chess.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ConfigurationCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the Chess boards reachable from a starting board into checkpoint records.
+ * A capture lands on a square that holds a piece, so a square that is empty at the start stays empty,
+ * and a record only holds the squares that start with a piece, three bits each in row-major order
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class ChessCodec implements ConfigurationCodec {
+    /**
+     * placeholder for PIECES of type List, the contents of a square, indexed by its three bits
+     */
+    private static final List<String> PIECES = List.of(".", "K", "Q", "R", "B", "N", "P");
+    /**
+     * placeholder for rows of type int, the number of rows of the boards
+     */
+    private final int rows;
+    /**
+     * placeholder for cols of type int, the number of columns of the boards
+     */
+    private final int cols;
+    /**
+     * placeholder for squares of type int[][], the row and column of every square that starts with a piece
+     */
+    private final int[][] squares;
+
+    /**
+     * Creates the codec of the boards reachable from a starting board
+     * @param start ChessConfig, the starting board
+     */
+    public ChessCodec(ChessConfig start) {
+        int[] dims = start.getDimensions();
+        this.rows = dims[0];
+        this.cols = dims[1];
+        List<int[]> occupied = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (!start.pieceAt(new int[]{r, c}).equals(".")) {
+                    occupied.add(new int[]{r, c});
+                }
+            }
+        }
+        this.squares = occupied.toArray(new int[0][]);
+    }
+
+    /**
+     * Get the number of bytes of a record, three bits per square that starts with a piece
+     * @return int
+     */
+    @Override
+    public int size() {
+        return (squares.length * 3 + 7) / 8;
+    }
+
+    /**
+     * Writes the squares of a board that started with a piece into a record
+     * @param config Configuration, a board reachable from the starting one
+     * @param record byte[], the record, overwritten
+     */
+    @Override
+    public void encode(Configuration config, byte[] record) {
+        ChessConfig board = (ChessConfig) config;
+        Arrays.fill(record, (byte) 0);
+        for (int i = 0; i < squares.length; i++) {
+            int bits = PIECES.indexOf(board.pieceAt(squares[i]));
+            if (bits < 0) {
+                throw new IllegalArgumentException("Unknown piece " + board.pieceAt(squares[i]));
+            }
+            for (int b = 0; b < 3; b++) {
+                int bit = i * 3 + b;
+                record[bit / 8] |= (byte) (((bits >> b) & 1) << (bit % 8));
+            }
+        }
+    }
+
+    /**
+     * Reads a board back from a record
+     * @param record byte[], a record written by encode
+     * @return Configuration, the board
+     */
+    @Override
+    public Configuration decode(byte[] record) {
+        String[][] board = new String[rows][cols];
+        for (String[] row : board) {
+            Arrays.fill(row, ".");
+        }
+        int numPieces = 0;
+        for (int i = 0; i < squares.length; i++) {
+            int bits = 0;
+            for (int b = 0; b < 3; b++) {
+                int bit = i * 3 + b;
+                bits |= ((record[bit / 8] >> (bit % 8)) & 1) << b;
+            }
+            board[squares[i][0]][squares[i][1]] = PIECES.get(bits);
+            if (bits != 0) {
+                numPieces++;
+            }
+        }
+        return new ChessConfig(board, numPieces);
+    }
+}
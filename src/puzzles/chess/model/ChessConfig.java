@@ -1,7 +1,10 @@
 package puzzles.chess.model;
 
+import puzzles.common.Coordinates;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.MoveConfiguration;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -10,15 +13,15 @@ import java.util.*;
 /**
  * @author Jose Thomas Diaz jtd4400
  */
-public class ChessConfig implements Configuration {
+public class ChessConfig implements MoveConfiguration<Capture> {
     /**
-     * placeholder for the static variable numRoms of type int
+     * placeholder for numRows of type int
      */
-    private static int numRows;
+    private final int numRows;
     /**
-     * placeholder for the static variable numCols of type int
+     * placeholder for numCols of type int
      */
-    private static int numCols;
+    private final int numCols;
     /**
      * placeholder for board, which represents the current config's board, of type String[][]
      */
@@ -28,18 +31,33 @@ public class ChessConfig implements Configuration {
      */
     private int numPieces;
     /**
-     * placeholder for locations of type HashMap, holds Strings as keys and Integer arrays as values
+     * the row and column offsets of a king's moves
      */
-    private static HashMap<String, int[]> locations;
+    static final int[][] KING = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    /**
+     * the row and column offsets of a knight's moves
+     */
+    static final int[][] KNIGHT = {{2, -1}, {2, 1}, {1, -2}, {-1, -2}, {1, 2}, {-1, 2}, {-2, -1}, {-2, 1}};
+    /**
+     * the row and column offsets of a pawn's captures, which always go up the board
+     */
+    static final int[][] PAWN = {{-1, -1}, {-1, 1}};
+    /**
+     * one step along each diagonal, for bishops and queens
+     */
+    static final int[][] DIAGONALS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    /**
+     * one step along each row and column, for rooks and queens
+     */
+    static final int[][] LINES = {{-1, 0}, {0, -1}, {0, 1}, {1, 0}};
 
     /**
      * Constructor for ChessConfig when it is run the first time
-     * Sets: locations, numRows, numCols, board, and numPieces
+     * Sets: numRows, numCols, board, and numPieces
      * @param filename String, the file to open
      * @throws IOException if the file is not found
      */
     public ChessConfig(String filename) throws IOException {
-        locations = new LinkedHashMap<>();
         File fn = new File(filename);
         try (Scanner read = new Scanner(fn)) {
             String[] rowCols = read.nextLine().split(" ");
@@ -48,24 +66,76 @@ public class ChessConfig implements Configuration {
             board = new String[numRows][numCols];
             for (int i = 0; i < numRows; i++) {
                 String[] row = read.nextLine().split(" ");
-                int d = 0;
                 for (String s: row) {
                     if (!s.equals(".")) {
                         numPieces++;
                     }
-                    locations.put(s, new int[]{i, d});
-                    d++;
                 }
                 board[i] = row;
             }
         }
     }
     public ChessConfig(ChessConfig other) {
+        this.numRows = other.numRows;
+        this.numCols = other.numCols;
         String [][] b = new String[numRows][numCols];
         for (int i = 0; i < numRows; i++) {
             System.arraycopy(other.board[i], 0, b[i], 0, numCols);
         }
         this.board = b;
+        this.numPieces = other.numPieces;
+    }
+    /**
+     * Reads a board in the format of the puzzle files from any source, such as the body of a request
+     * to the solve service. Each row is only allocated once its line has been read
+     * @param reader BufferedReader, the source of the board, positioned at the line with the dimensions
+     * @return ChessConfig, the configuration read
+     * @throws IOException if the source cannot be read or is not a board
+     */
+    public static ChessConfig read(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("No board dimensions");
+        }
+        String[] rowCols = header.trim().split("\\s+");
+        int rows;
+        int cols;
+        try {
+            rows = Integer.parseInt(rowCols[0]);
+            cols = Integer.parseInt(rowCols[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Bad board dimensions: " + header);
+        }
+        if (rows <= 0 || cols <= 0) {
+            throw new IOException("Bad board dimensions: " + header);
+        }
+        String[][] board = new String[rows][];
+        int numPieces = 0;
+        for (int i = 0; i < rows; i++) {
+            String line = reader.readLine();
+            String[] row = line == null ? new String[0] : line.trim().split("\\s+");
+            if (row.length != cols) {
+                throw new IOException("Row " + i + " does not have " + cols + " squares");
+            }
+            for (String s: row) {
+                if (!s.equals(".")) {
+                    numPieces++;
+                }
+            }
+            board[i] = row;
+        }
+        return new ChessConfig(board, numPieces);
+    }
+    /**
+     * Constructor for a ChessConfig frozen from a mutable ChessBoard
+     * @param board String[][], the board, which is not copied
+     * @param numPieces int, the number of pieces on the board
+     */
+    ChessConfig(String[][] board, int numPieces) {
+        this.numRows = board.length;
+        this.numCols = board[0].length;
+        this.board = board;
+        this.numPieces = numPieces;
     }
     /**
      * Copy constructor for ChessConfig
@@ -76,6 +146,8 @@ public class ChessConfig implements Configuration {
      * @param capture the location of where the taker is going to move to
      */
     public ChessConfig(ChessConfig other, String taker, int[] capturer, int[] capture) {
+        this.numRows = other.numRows;
+        this.numCols = other.numCols;
         String [][] b = new String[numRows][numCols];
         for (int i = 0; i < numRows; i++) {
             System.arraycopy(other.board[i], 0, b[i], 0, numCols);
@@ -95,370 +167,133 @@ public class ChessConfig implements Configuration {
         return numPieces == 1;
     }
 
-    /**
-     * Performs a deep copy on the board that can change values on the board
-     * @param board String[][], the board that is being copied
-     * @param capturer int[], the location of the taker
-     * @param capture int[], the location that the taker is going to move to
-     * @param taker String, the chess piece that is going to take another piece
-     * @return String[][], the new board
-     */
-    public String[][] copyBoard(String[][] board, int[] capturer, int[] capture, String taker) {
-        String[][] b = board.clone();
-        b[capturer[0]][capturer[1]] = ".";
-        b[capture[0]][capture[1]] = taker;
-        return b;
-    }
     public int[] getDimensions() {
         return new int[]{numRows, numCols};
     }
     public String pieceAt(int[] loc) {
         return board[loc[0]][loc[1]];
     }
-    /**
-     * Gives all possible moves for the king piece based on the current location
-     * @param board String[][], the chess board
-     * @param position int[], the location of the king piece
-     * @return ArrayList<Configuration>, every possible move that the king can make to capture another piece
-     */
-    public Collection<Configuration> kingMoves(String[][] board, int[] position) {
-        HashSet<Configuration> kingCaps = new HashSet<>();
-        ArrayList<int[]> possibleMoves = new ArrayList<>();
-        int defRow = position[0];
-        int defCol = position[1];
-        possibleMoves.add(new int[]{defRow-1, defCol-1});
-        possibleMoves.add(new int[]{defRow-1, defCol});
-        possibleMoves.add(new int[]{defRow-1, defCol+1});
-        possibleMoves.add(new int[]{defRow, defCol-1});
-        possibleMoves.add(new int[]{defRow, defCol+1});
-        possibleMoves.add(new int[]{defRow+1, defCol-1});
-        possibleMoves.add(new int[]{defRow+1, defCol});
-        possibleMoves.add(new int[]{defRow+1, defCol+1});
-        for (int i = 0; i < 8; i++) {
-            try {
-                if (!board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]].equals(".")) {
-                    kingCaps.add(new ChessConfig(this, "K", position, possibleMoves.get(i)));
-                }
-            } catch (IndexOutOfBoundsException e) {}
-        }
-        return kingCaps;
-    }
     public void capture(int[] p1, int[] p2, String pc) {
         this.board[p1[0]][p1[1]] = ".";
         this.board[p2[0]][p2[1]] = pc;
     }
+    /**
+     * Checks if a piece can capture from one square to another, by the same rules as getMoves
+     * @param p1 int[], the location of the piece
+     * @param p2 int[], the location of the piece it would capture
+     * @param pc String, the piece
+     * @return boolean, true if the capture is one of getMoves
+     */
     public boolean validMove(int[] p1, int[] p2, String pc) {
-        Configuration potCap = new ChessConfig(this, pc, p1, p2);
-        if (pc.equals("B")) {
-            return bishopMoves(copyBoard(board, p1, p2, pc), p1).contains(potCap);
-        } if (pc.equals("K")) {
-            return kingMoves(copyBoard(board, p1, p2, pc), p1).contains(potCap);
-        } if (pc.equals("N")) {
-            return knightMoves(copyBoard(board, p1, p2, pc), p1).contains(potCap);
-        } if (pc.equals("P")) {
-            return pawnMoves(copyBoard(board, p1, p2, pc), p1).contains(potCap);
-        } if (pc.equals("Q")) {
-            return queenMoves(copyBoard(board, p1, p2, pc), p1).contains(potCap);
-        } if (pc.equals("R")) {
-            return rookMoves(copyBoard(board, p1, p2, pc), p1).contains(potCap);
-        }
-        return false;
+        return getMoves().contains(new Capture(pc, new Coordinates(p1[0], p1[1]), new Coordinates(p2[0], p2[1])));
     }
 
+    public void updateBoard(String[][] board) {
+        this.board = board;
+        this.numPieces -= 1;
+    }
 
     /**
-     * Gives all possible moves for the bishop piece based on the current location
-     * @param board String[][], the chess board
-     * @param position int[], the location of the bishop piece
-     * @return ArrayList<Configuration>, every possible move that the bishop can make to capture another piece
+     * Gets all of the possible moves that can be made in the current configuration
+     * @return Collection<Configuration>, the configuration after each capture of getMoves, in the same order
      */
-    public Collection<Configuration> bishopMoves(String[][] board, int[] position) {
-        HashSet<Configuration> bishopCaps = new HashSet<>();
-        ArrayList<int[]> possibleMoves = new ArrayList<>();
-        int defRow = position[0];
-        int defCol = position[1];
-        possibleMoves.add(new int[]{defRow-1, defCol-1});
-        possibleMoves.add(new int[]{defRow-1, defCol+1});
-        possibleMoves.add(new int[]{defRow+1, defCol-1});
-        possibleMoves.add(new int[]{defRow+1, defCol+1});
-        for (int i = 0; i < 4; i++) {
-            try {
-                int r = 0;
-                int c = 0;
-                String diagMove = board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]];
-                int[] futMoves = new int[]{possibleMoves.get(i)[0], possibleMoves.get(i)[1]};
-                while (diagMove.equals(".")) {
-                    if (i == 0) {
-                        r--;
-                        c--;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        futMoves[0] -= 1;
-                        futMoves[1] -= 1;
-                    }
-                    if (i == 1) {
-                        r--;
-                        c++;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        futMoves[0] -= 1;
-                        futMoves[1] += 1;
-                    }
-                    if (i == 2) {
-                        r++;
-                        c--;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        futMoves[0] += 1;
-                        futMoves[1] -= 1;
-                    }
-                    if (i == 3) {
-                        r++;
-                        c++;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        futMoves[0] += 1;
-                        futMoves[1] += 1;
-                    }
-                }
-                bishopCaps.add(new ChessConfig(this, "B", position, futMoves));
-            } catch (IndexOutOfBoundsException e) {}
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        List<Configuration> neighbors = new ArrayList<>();
+        for (Capture move : getMoves()) {
+            neighbors.add(applyMove(move));
         }
-        return bishopCaps;
+        return neighbors;
     }
 
     /**
-     * Gives all possible moves for the rook based on the current location
-     * @param board String[][], the chess board
-     * @param position int[], the location of the rook piece
-     * @return ArrayList<Configuration>, every possible move that the rook can make in order to capture a piece
+     * Gets every capture that can be made in the current configuration, piece by piece in row-major order
+     * @return List<Capture>, every capture of every piece on the board
      */
-    public Collection<Configuration> rookMoves(String[][] board, int[] position) {
-        HashSet<Configuration> rookCaps = new HashSet<>();
-        ArrayList<int[]> possibleMoves = new ArrayList<>();
-        int defRow = position[0];
-        int defCol = position[1];
-        possibleMoves.add(new int[]{defRow-1, defCol});
-        possibleMoves.add(new int[]{defRow, defCol-1});
-        possibleMoves.add(new int[]{defRow, defCol+1});
-        possibleMoves.add(new int[]{defRow+1, defCol});
-        for (int i = 0; i < 4; i++) {
-            try {
-                int r = 0;
-                int c = 0;
-                String diagMove = board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]];
-                int[] futMove = new int[]{possibleMoves.get(i)[0], possibleMoves.get(i)[1]};
-                while (diagMove.equals(".")) {
-                    if (i == 0) {
-                        r--;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]];
-                        futMove[0] -= 1;
-                    }
-                    if (i == 1) {
-                        c--;
-                        diagMove = board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]+c];
-                        futMove[1] -= 1;
-                    }
-                    if (i == 2) {
-                        c++;
-                        diagMove = board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]+c];
-                        futMove[1] += 1;
-                    }
-                    if (i == 3) {
-                        r++;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]];
-                        futMove[0] += 1;
-
+    @Override
+    public List<Capture> getMoves() {
+        List<Capture> moves = new ArrayList<>();
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                String s = board[i][j];
+                switch (s) {
+                    case "K" -> step(moves, s, i, j, KING);
+                    case "N" -> step(moves, s, i, j, KNIGHT);
+                    case "P" -> step(moves, s, i, j, PAWN);
+                    case "B" -> slide(moves, s, i, j, DIAGONALS);
+                    case "R" -> slide(moves, s, i, j, LINES);
+                    case "Q" -> {
+                        slide(moves, s, i, j, DIAGONALS);
+                        slide(moves, s, i, j, LINES);
                     }
+                    default -> { }
                 }
-                rookCaps.add(new ChessConfig(this, "R", position, futMove));
-
-
-            } catch (IndexOutOfBoundsException e) {}
+            }
         }
-        return rookCaps;
+        return moves;
     }
 
     /**
-     * Gives all possible moves that the queen can make based on the current position
-     * @param board String[][], the chess board
-     * @param position int[], the position of the queen piece
-     * @return ArrayList<Configuration>, every possible move that the queen can make in order to capture a piece
+     * Makes a capture on a copy of this configuration
+     * @param move Capture, one of the captures returned by getMoves
+     * @return ChessConfig, the configuration after the capture
      */
-    public Collection<Configuration> queenMoves(String[][] board, int[] position) {
-        HashSet<Configuration> queenCaps = new HashSet();
-        HashSet<Configuration> bishopCaps = new HashSet<>();
-        ArrayList<int[]> possibleMoves = new ArrayList<>();
-        int defRow = position[0];
-        int defCol = position[1];
-        possibleMoves.add(new int[]{defRow-1, defCol-1});
-        possibleMoves.add(new int[]{defRow-1, defCol+1});
-        possibleMoves.add(new int[]{defRow+1, defCol-1});
-        possibleMoves.add(new int[]{defRow+1, defCol+1});
-        for (int i = 0; i < 4; i++) {
-            try {
-                int r = 0;
-                int c = 0;
-                String diagMove = board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]];
-                int[] bishopFutMoves = new int[]{possibleMoves.get(i)[0], possibleMoves.get(i)[1]};
-                while (diagMove.equals(".")) {
-                    if (i == 0) {
-                        r--;
-                        c--;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        bishopFutMoves[0] -= 1;
-                        bishopFutMoves[1] -= 1;
-                    }
-                    if (i == 1) {
-                        r--;
-                        c++;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        bishopFutMoves[0] -= 1;
-                        bishopFutMoves[1] += 1;
-                    }
-                    if (i == 2) {
-                        r++;
-                        c--;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        bishopFutMoves[0] += 1;
-                        bishopFutMoves[1] -= 1;
-                    }
-                    if (i == 3) {
-                        r++;
-                        c++;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        bishopFutMoves[0] += 1;
-                        bishopFutMoves[1] += 1;
-                    }
-                }
-                bishopCaps.add(new ChessConfig(this, "Q", position, bishopFutMoves));
-            } catch (IndexOutOfBoundsException e) {}
-        }
-        ArrayList<Configuration> rookCaps = new ArrayList<>();
-        possibleMoves.add(new int[]{defRow-1, defCol});
-        possibleMoves.add(new int[]{defRow, defCol-1});
-        possibleMoves.add(new int[]{defRow, defCol+1});
-        possibleMoves.add(new int[]{defRow+1, defCol});
-        for (int i = 4; i < 8; i++) {
-            try {
-                int r = 0;
-                int c = 0;
-                String diagMove = board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]];
-                int[] rookFutMoves = new int[]{possibleMoves.get(i)[0], possibleMoves.get(i)[1]};
-                while (diagMove.equals(".")) {
-                    if (i == 4) {
-                        r--;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        rookFutMoves[0] -= 1;
-                    }
-                    if (i == 5) {
-                        c--;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        rookFutMoves[1] -= 1;
-                    }
-                    if (i == 6) {
-                        c++;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        rookFutMoves[1] += 1;
-                    }
-                    if (i == 7) {
-                        r++;
-                        diagMove = board[possibleMoves.get(i)[0]+r][possibleMoves.get(i)[1]+c];
-                        rookFutMoves[0] += 1;
-                    }
-                }
-                rookCaps.add(new ChessConfig(this, "Q", position, rookFutMoves));
-            } catch (IndexOutOfBoundsException e) {}
-        }
-        queenCaps.addAll(rookCaps);
-        queenCaps.addAll(bishopCaps);
-        return queenCaps;
-    }
-    public void updateBoard(String[][] board) {
-        this.board = board;
-        this.numPieces -= 1;
+    @Override
+    public ChessConfig applyMove(Capture move) {
+        return new ChessConfig(this, move.piece(),
+                new int[]{move.from().row(), move.from().col()},
+                new int[]{move.to().row(), move.to().col()});
     }
 
     /**
-     * Gives all possible moves that the pawn can make based on the current position
-     * @param board String[][], the chess board
-     * @param position int[], the current position of the pawn piece
-     * @return ArrayList<Configuration>, every possible move that the pawn can make in order to capture another piece
+     * Checks if two captures are independent: neither one changes a square the other one reads
+     * @param a Capture, the first capture
+     * @param b Capture, the second capture
+     * @return boolean, true if the captures can be made in either order
      */
-    public Collection<Configuration> pawnMoves(String[][] board, int[] position) {
-        HashSet<Configuration> pawnCaps = new HashSet<>();
-        ArrayList<int[]> possibleMoves = new ArrayList<>();
-        int defRow = position[0];
-        int defCol = position[1];
-        possibleMoves.add(new int[]{defRow-1, defCol-1});
-        possibleMoves.add(new int[]{defRow-1, defCol+1});
-        for (int i = 0; i < 2; i++) {
-            try {
-                String diagMove = board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]];
-                if (!diagMove.equals(".")) {
-                    pawnCaps.add(new ChessConfig(this, "P", position, possibleMoves.get(i)));
-                }
-            } catch (IndexOutOfBoundsException e) {}
-        }
-        return pawnCaps;
+    @Override
+    public boolean independent(Capture a, Capture b) {
+        return !b.reads(a.from()) && !b.reads(a.to()) && !a.reads(b.from()) && !a.reads(b.to());
     }
 
     /**
-     * Gives all possible moves the knight can make based on the current position
-     * @param board String[][], the chess board
-     * @param position int[], the current position of the knight piece
-     * @return ArrayList<Configuration>, every possible move that the knight piece can make in order to capture another piece
+     * Adds the captures of a piece that moves a single step in each of the given directions
+     * @param moves List<Capture>, the captures found so far
+     * @param piece String, the piece that captures
+     * @param row int, the row of the piece
+     * @param col int, the column of the piece
+     * @param steps int[][], the row and column offsets the piece can move by
      */
-    public Collection<Configuration> knightMoves(String[][] board, int[] position) {
-        HashSet<Configuration> knightCaps = new HashSet();
-        ArrayList<int[]> possibleMoves = new ArrayList<>();
-        int defRow = position[0];
-        int defCol = position[1];
-        possibleMoves.add(new int[]{defRow+2, defCol-1});
-        possibleMoves.add(new int[]{defRow+2, defCol+1});
-        possibleMoves.add(new int[]{defRow+1, defCol-2});
-        possibleMoves.add(new int[]{defRow-1, defCol-2});
-        possibleMoves.add(new int[]{defRow+1, defCol+2});
-        possibleMoves.add(new int[]{defRow-1, defCol+2});
-        possibleMoves.add(new int[]{defRow-2, defCol-1});
-        possibleMoves.add(new int[]{defRow-2, defCol+1});
-        for (int i = 0; i < 8; i++) {
-            try {
-                if (!board[possibleMoves.get(i)[0]][possibleMoves.get(i)[1]].equals(".")) {
-                    knightCaps.add(new ChessConfig(this, "N", position, possibleMoves.get(i)));
-                }
-            } catch (IndexOutOfBoundsException e) {}
+    private void step(List<Capture> moves, String piece, int row, int col, int[][] steps) {
+        for (int[] d : steps) {
+            int r = row + d[0];
+            int c = col + d[1];
+            if (r >= 0 && r < numRows && c >= 0 && c < numCols && !board[r][c].equals(".")) {
+                moves.add(new Capture(piece, new Coordinates(row, col), new Coordinates(r, c)));
+            }
         }
-        return knightCaps;
     }
 
     /**
-     * Gets all of the possible moves that can be made in the current configuration
-     * @return Collection<Configuration>, all of the moves that can be made by all of the pieces on the board in order to capture another piece
+     * Adds the captures of a piece that slides any distance in each of the given directions
+     * @param moves List<Capture>, the captures found so far
+     * @param piece String, the piece that captures
+     * @param row int, the row of the piece
+     * @param col int, the column of the piece
+     * @param directions int[][], the row and column offsets of one step in each direction
      */
-    @Override
-    public Collection<Configuration> getNeighbors() {
-        Set<Configuration> neighbors = new HashSet<>();
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numCols; j++) {
-                String s = board[i][j];
-                if (s.equals("K")) {
-                    neighbors.addAll(kingMoves(board, new int[]{i,j}));
-                }
-                if (s.equals("B")) {
-                    neighbors.addAll(bishopMoves(board, new int[]{i,j}));
-                }
-                if (s.equals("R")) {
-                    neighbors.addAll(rookMoves(board, new int[]{i,j}));
-                }
-                if (s.equals("Q")) {
-                    neighbors.addAll(queenMoves(board, new int[]{i,j}));
-                }
-                if (s.equals("P")) {
-                    neighbors.addAll(pawnMoves(board, new int[]{i,j}));
-                }
-                if (s.equals("N")) {
-                    neighbors.addAll(knightMoves(board, new int[]{i,j,}));
-                }
+    private void slide(List<Capture> moves, String piece, int row, int col, int[][] directions) {
+        for (int[] d : directions) {
+            int r = row + d[0];
+            int c = col + d[1];
+            while (r >= 0 && r < numRows && c >= 0 && c < numCols && board[r][c].equals(".")) {
+                r += d[0];
+                c += d[1];
+            }
+            if (r >= 0 && r < numRows && c >= 0 && c < numCols) {
+                moves.add(new Capture(piece, new Coordinates(row, col), new Coordinates(r, c)));
             }
         }
-        return neighbors;
     }
 
     /**
@@ -481,6 +316,26 @@ public class ChessConfig implements Configuration {
         return Arrays.deepHashCode(board);
     }
 
+    /**
+     * Get the heap this configuration takes on a 64-bit JVM with compressed references: the object, the array
+     * of rows and one array of piece references per row, each rounded up to 8 bytes. The piece names are shared
+     * by every configuration, so they are not counted
+     * @return long, the size in bytes
+     */
+    @Override
+    public long estimateBytes() {
+        return 32 + align(16 + 4L * numRows) + numRows * align(16 + 4L * numCols);
+    }
+
+    /**
+     * Rounds a size up to the 8 bytes every object on the heap is aligned to
+     * @param bytes long, the size
+     * @return long, the aligned size
+     */
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
     /**
      * Turns the information of the ChessConfig into a more readable format, shows the board
      * @return String, the board
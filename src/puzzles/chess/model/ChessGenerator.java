@@ -0,0 +1,163 @@
+package puzzles.chess.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Makes random Solitaire Chess puzzles that are known to be solvable, by playing the game backwards.
+ * The generator starts from a solved board with one piece on it and takes back captures until
+ * the board has the wanted number of pieces: a piece moves back to a square it could have captured
+ * from, and the piece it captured appears on the square it left. Every capture taken back can then
+ * be made forwards, so the puzzle can be solved by making them again in the opposite order.
+ * The same seed always makes the same puzzle.
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class ChessGenerator {
+    /**
+     * placeholder for ATTEMPTS of type int, the number of times generation starts over when
+     * the pieces are boxed in before there are enough of them
+     */
+    private static final int ATTEMPTS = 1000;
+    /**
+     * placeholder for random of type SplittableRandom, the source of the puzzles
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Creates a generator
+     * @param seed long, the seed of the puzzles it makes
+     */
+    public ChessGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Makes a solvable puzzle
+     * @param rows int, the number of rows
+     * @param cols int, the number of columns
+     * @param pieces int, the number of pieces
+     * @param mix String, the piece letters to choose from; a letter given twice is chosen twice as often
+     * @return String[][], the board
+     * @throws IllegalArgumentException if the mix is not made of pieces, or that many pieces cannot be placed
+     */
+    public String[][] generate(int rows, int cols, int pieces, String mix) {
+        if (mix.isEmpty() || !mix.chars().allMatch(p -> "KQRBNP".indexOf(p) != -1)) {
+            throw new IllegalArgumentException("The piece mix must be made of the letters KQRBNP: " + mix);
+        }
+        if (rows <= 0 || cols <= 0 || pieces <= 0 || pieces > rows * cols) {
+            throw new IllegalArgumentException(pieces + " pieces do not fit on a " + rows + "x" + cols + " board");
+        }
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            String[][] board = new String[rows][cols];
+            for (String[] row : board) {
+                Arrays.fill(row, ".");
+            }
+            board[random.nextInt(rows)][random.nextInt(cols)] = piece(mix);
+            int placed = 1;
+            while (placed < pieces && uncapture(board, mix)) {
+                placed++;
+            }
+            if (placed == pieces) {
+                return board;
+            }
+        }
+        throw new IllegalArgumentException("Could not place " + pieces + " pieces on a " + rows + "x" + cols + " board");
+    }
+
+    /**
+     * Takes back one capture chosen at random from every capture that could have led to the board
+     * @param board String[][], the board, changed in place
+     * @param mix String, the piece letters the captured piece is chosen from
+     * @return boolean, true if a capture was taken back, false if no capture could have led to the board
+     */
+    private boolean uncapture(String[][] board, String mix) {
+        List<int[]> captures = new ArrayList<>();
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board[i].length; j++) {
+                switch (board[i][j]) {
+                    case "K" -> unstep(captures, board, i, j, ChessConfig.KING);
+                    case "N" -> unstep(captures, board, i, j, ChessConfig.KNIGHT);
+                    case "P" -> unstep(captures, board, i, j, ChessConfig.PAWN);
+                    case "B" -> unslide(captures, board, i, j, ChessConfig.DIAGONALS);
+                    case "R" -> unslide(captures, board, i, j, ChessConfig.LINES);
+                    case "Q" -> {
+                        unslide(captures, board, i, j, ChessConfig.DIAGONALS);
+                        unslide(captures, board, i, j, ChessConfig.LINES);
+                    }
+                    default -> { }
+                }
+            }
+        }
+        if (captures.isEmpty()) {
+            return false;
+        }
+        int[] capture = captures.get(random.nextInt(captures.size()));
+        board[capture[2]][capture[3]] = board[capture[0]][capture[1]];
+        board[capture[0]][capture[1]] = piece(mix);
+        return true;
+    }
+
+    /**
+     * Adds the empty squares a piece that moves a single step could have captured from
+     * @param captures List<int[]>, the square of the piece and the square it came from, of every capture found so far
+     * @param board String[][], the board
+     * @param row int, the row of the piece
+     * @param col int, the column of the piece
+     * @param steps int[][], the row and column offsets the piece captures by
+     */
+    private static void unstep(List<int[]> captures, String[][] board, int row, int col, int[][] steps) {
+        for (int[] d : steps) {
+            int r = row - d[0];
+            int c = col - d[1];
+            if (r >= 0 && r < board.length && c >= 0 && c < board[r].length && board[r][c].equals(".")) {
+                captures.add(new int[]{row, col, r, c});
+            }
+        }
+    }
+
+    /**
+     * Adds the empty squares a piece that slides could have captured from, which are all the squares
+     * before the first piece behind it in each direction
+     * @param captures List<int[]>, the square of the piece and the square it came from, of every capture found so far
+     * @param board String[][], the board
+     * @param row int, the row of the piece
+     * @param col int, the column of the piece
+     * @param directions int[][], the row and column offsets of one step in each direction
+     */
+    private static void unslide(List<int[]> captures, String[][] board, int row, int col, int[][] directions) {
+        for (int[] d : directions) {
+            int r = row - d[0];
+            int c = col - d[1];
+            while (r >= 0 && r < board.length && c >= 0 && c < board[r].length && board[r][c].equals(".")) {
+                captures.add(new int[]{row, col, r, c});
+                r -= d[0];
+                c -= d[1];
+            }
+        }
+    }
+
+    /**
+     * Chooses a piece from the mix
+     * @param mix String, the piece letters
+     * @return String, the piece
+     */
+    private String piece(String mix) {
+        return String.valueOf(mix.charAt(random.nextInt(mix.length())));
+    }
+
+    /**
+     * Turns a board into the format of the puzzle files, the dimensions on the first line and then one line per row
+     * @param board String[][], the board
+     * @return String, the contents of a puzzle file
+     */
+    public static String format(String[][] board) {
+        StringBuilder text = new StringBuilder();
+        text.append(board.length).append(' ').append(board[0].length).append('\n');
+        for (String[] row : board) {
+            text.append(String.join(" ", row)).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -1,24 +1,74 @@
 package puzzles.chess.model;
 
 import puzzles.chess.solver.Chess;
+import puzzles.chess.solver.ChessAnalyzer;
+import puzzles.common.Coordinates;
+import puzzles.common.EventQueue;
+import puzzles.common.History;
+import puzzles.common.ModelEvent;
+import puzzles.common.OperationEvent;
 import puzzles.common.Observer;
+import puzzles.common.PersistentBoard;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SolutionCache;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
-import static puzzles.common.solver.Solver.solve;
+import puzzles.common.solver.SearchBudget;
+import puzzles.common.solver.SearchMetrics;
+import puzzles.common.solver.Solver;
 
 public class ChessModel {
     /** the collection of observers of this model */
     private final List<Observer<ChessModel, String>> observers = new LinkedList<>();
 
+    /** the typed events of this model, delivered in coalesced batches */
+    private final EventQueue<ChessModel> events = new EventQueue<>(this);
+
+    /** the number of configurations kept in the hint cache */
+    private static final int HINT_CACHE_SIZE = 4096;
+    /** the next steps found by every solve, shared by all models */
+    private static final SolutionCache hints = new SolutionCache(HINT_CACHE_SIZE);
+    /** runs the speculative solves started after every capture, on a daemon thread of the lowest priority of this model's own, so that
+     *  the prefetch of one game never waits behind those of the other games of a host */
+    private final ExecutorService prefetching = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "chess-prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    /** the solver of the speculative solve in the background, or null if there is none */
+    private volatile Solver prefetch;
+    /** the configuration the speculative solve started from */
+    private volatile ChessConfig prefetchStart;
+    /** the task of the speculative solve, done once its result is cached */
+    private volatile Future<?> prefetchTask;
+    /** the solver of the most recent hint or speculative solve, or null if there has been none */
+    private volatile Solver lastSolve;
+    /** the longest a hint or speculative solve may run, in milliseconds */
+    private static final long HINT_MILLIS = 60_000;
+    /** the limits of every solve this model starts, a quarter of the heap as a hint and a speculative solve can run at once */
+    private volatile SearchBudget budget = new SearchBudget(0, Runtime.getRuntime().maxMemory() / 4, HINT_MILLIS);
+    /** the solver of the hint being solved, or null if there is none */
+    private volatile Solver hinting;
+
+    /** the captures and hints made since the board was loaded, for undo and redo */
+    private History<String> history;
+
     /** the current configuration */
     private ChessConfig currentConfig;
     private File currentFile;
-    private static int amtSelect;
+    private int amtSelect;
     private String selected;
-    private static ArrayList<int[]> loc = new ArrayList<>();
+    private final ArrayList<int[]> loc = new ArrayList<>();
     public enum ChessState {
         SOLVEABLE,
         NO_SOLUTION,
@@ -44,7 +94,7 @@ public class ChessModel {
                     ChessState.CAPTURED, "Captured",
                     ChessState.RELOAD, "Puzzle Reset!"
             ));
-    private static ChessState state;
+    private ChessState state;
 
     /**
      * The view calls this to add itself as an observer.
@@ -55,104 +105,544 @@ public class ChessModel {
         this.observers.add(observer);
     }
 
+    /**
+     * A view calls this to receive typed events instead of messages
+     * @param observer Observer, the view, given every event since the last batch in one list
+     */
+    public void addEventObserver(Observer<ChessModel, List<ModelEvent>> observer) {
+        events.addObserver(observer);
+    }
+
+    /**
+     * Sets where the batches of typed events are delivered. A GUI passes Platform::runLater so that
+     * everything that happens before the next frame is drawn once; by default every event is delivered at once
+     * @param frame Executor, runs each delivery
+     */
+    public void setNotifier(Executor frame) {
+        events.setFrame(frame);
+    }
+
+    /**
+     * Runs a series of changes, such as several hints in a row, and delivers their events as one batch
+     * @param changes Runnable, the changes to make
+     */
+    public void batch(Runnable changes) {
+        events.batch(changes);
+    }
+
     /**
      * The model's state has changed (the counter), so inform the view via
      * the update method
      */
     private void alertObservers(String data) {
+        events.publish(new ModelEvent.Message(data));
+        for (var observer : observers) {
+            observer.update(this, data);
+        }
+    }
+
+    /**
+     * Something could not be done, so inform the view via the update method and an Error event
+     * @param data String, the message
+     */
+    private void alertError(String data) {
+        events.publish(new ModelEvent.Error(data));
         for (var observer : observers) {
             observer.update(this, data);
         }
     }
 
+    /**
+     * Copies the pieces of the current board
+     * @return String[][], the piece on every square
+     */
+    private String[][] snapshot() {
+        int[] dims = currentConfig.getDimensions();
+        String[][] board = new String[dims[0]][dims[1]];
+        for (int i = 0; i < dims[0]; i++) {
+            for (int j = 0; j < dims[1]; j++) {
+                board[i][j] = currentConfig.pieceAt(new int[]{i, j});
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Starts an empty history from the current board
+     */
+    private void startHistory() {
+        int[] dims = currentConfig.getDimensions();
+        List<String> squares = new ArrayList<>();
+        for (int i = 0; i < dims[0]; i++) {
+            for (int j = 0; j < dims[1]; j++) {
+                squares.add(currentConfig.pieceAt(new int[]{i, j}));
+            }
+        }
+        history = new History<>(PersistentBoard.of(squares));
+    }
+
+    /**
+     * Records the squares a move changed in the history, publishes them, and publishes that the puzzle is solved if it now is
+     * @param changed Set<Coordinates>, the squares the move changed, already changed on the board
+     */
+    private void publishMove(Set<Coordinates> changed) {
+        int cols = currentConfig.getDimensions()[1];
+        List<History.Change<String>> changes = new ArrayList<>();
+        for (Coordinates square : changed) {
+            int index = square.row() * cols + square.col();
+            changes.add(new History.Change<>(index, history.current().get(index),
+                    currentConfig.pieceAt(new int[]{square.row(), square.col()})));
+        }
+        history.record(changes);
+        events.publish(new ModelEvent.BoardDelta(changed));
+        if (currentConfig.isSolution()) {
+            events.publish(new ModelEvent.Solved());
+        }
+    }
+
+    /**
+     * Publishes the squares that differ from an earlier copy of the board, every square if its size changed,
+     * and that the puzzle is solved if it now is
+     * @param before String[][], the board before the change
+     */
+    private void publishBoard(String[][] before) {
+        int[] dims = currentConfig.getDimensions();
+        boolean resized = before.length != dims[0] || before.length > 0 && before[0].length != dims[1];
+        Set<Coordinates> changed = new LinkedHashSet<>();
+        for (int i = 0; i < dims[0]; i++) {
+            for (int j = 0; j < dims[1]; j++) {
+                if (resized || !before[i][j].equals(currentConfig.pieceAt(new int[]{i, j}))) {
+                    changed.add(new Coordinates(i, j));
+                }
+            }
+        }
+        events.publish(new ModelEvent.BoardDelta(changed));
+        if (currentConfig.isSolution()) {
+            events.publish(new ModelEvent.Solved());
+        }
+    }
+
     public ChessModel(String filename) throws IOException {
+        Solver.addAnalyzer(ChessConfig.class, new ChessAnalyzer());
         this.currentConfig = new ChessConfig(filename);
+        startHistory();
         this.currentFile = new File(filename);
         this.state = ChessState.SOLVEABLE;
     }
+    /**
+     * Get the number of rows and columns of the current board
+     * @return int[], the rows then the columns
+     */
+    public int[] getDimensions() {
+        return currentConfig.getDimensions();
+    }
+
+    /**
+     * Get the piece on a square of the current board
+     * @param row int, the row of the square
+     * @param col int, the column of the square
+     * @return String, the piece letter, or "." for an empty square
+     */
+    public String pieceAt(int row, int col) {
+        return currentConfig.pieceAt(new int[]{row, col});
+    }
+
+    /**
+     * Get the square of the piece selected to make a capture
+     * @return int[], the row and column of the selected piece, or null if none is selected
+     */
+    public int[] getSelected() {
+        return amtSelect == 1 ? loc.get(0) : null;
+    }
+
+    /**
+     * Moves the current board one step along a shortest solution.
+     * The solve runs without holding the model, so a console job can solve a hint while
+     * selects and other commands go on; the step is only made if the board is still
+     * the one that was solved, and not at all if the hint was cancelled.
+     * If the speculative solve is already working on this board, its answer is waited for instead of solving it again
+     */
     public void hint() {
+        OperationEvent event = OperationEvent.begin("chess", "hint");
+        try {
+            ChessConfig start;
+            synchronized (this) {
+                start = copyOf(currentConfig);
+            }
+            if (!hints.contains(start)) {
+                Solver solver = joinPrefetch(start);
+                if (solver == null) {
+                    solver = new Solver();
+                    solver.setBudget(budget);
+                    hinting = solver;
+                    lastSolve = solver;
+                    cache(solver, start, solver.search(start));
+                    hinting = null;
+                }
+                if (solver.isCancelled()) {
+                    this.alertError("Hint cancelled");
+                    return;
+                }
+                if (solver.getExceeded() != null) {
+                    this.alertError("No hint, the solver gave up: " + solver.getExceeded());
+                    return;
+                }
+            }
+            synchronized (this) {
+                if (!currentConfig.equals(start)) {
+                    this.alertError("The board changed, hint discarded");
+                    return;
+                }
+                applyHint();
+            }
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Sets the limits of the hints and speculative solves started afterwards
+     * @param budget SearchBudget, the limits, SearchBudget.UNLIMITED to let them run until they end
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the counts and timings of the most recent hint or speculative solve, which may still be running
+     * @return SearchMetrics, or null if the model has not solved anything
+     */
+    public SearchMetrics getMetrics() {
+        Solver solver = lastSolve;
+        return solver == null ? null : solver.getMetrics();
+    }
+
+    /**
+     * Cancels the solve of the hint in progress, if there is one. May be called from any thread
+     */
+    public void cancelHint() {
+        Solver running = hinting;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    /**
+     * Replaces the current board with its next step in the hint cache
+     */
+    private void applyHint() {
+        String[][] before = snapshot();
         try {
             int[] dims = currentConfig.getDimensions();
-            String next = solve(this.currentConfig).get(1);
-            String[] b = next.split("\n");
+            ChessConfig next = (ChessConfig) hints.nextStep(currentConfig);
             String[][] board = new String[dims[0]][dims[1]];
-            int i = 0;
-            for (String s: b) {
-                board[i] = s.split(" ");
-                i++;
+            for (int r = 0; r < dims[0]; r++) {
+                for (int c = 0; c < dims[1]; c++) {
+                    board[r][c] = next.pieceAt(new int[]{r, c});
+                }
             }
             this.currentConfig.updateBoard(board);
-        } catch (NullPointerException n) {
+            Set<Coordinates> changed = new LinkedHashSet<>();
+            for (int r = 0; r < dims[0]; r++) {
+                for (int c = 0; c < dims[1]; c++) {
+                    if (!before[r][c].equals(board[r][c])) {
+                        changed.add(new Coordinates(r, c));
+                    }
+                }
+            }
+            publishMove(changed);
+        } catch (NullPointerException | IndexOutOfBoundsException n) {
             this.state = ChessState.NO_SOLUTION;
         } finally {
-            this.alertObservers(STATES.get(state));
+            if (state == ChessState.NO_SOLUTION) {
+                this.alertError(STATES.get(state));
+            } else {
+                this.alertObservers(STATES.get(state));
+            }
         }
+    }
 
+    /**
+     * Starts a speculative solve of the current board on the low-priority thread, replacing the one in progress,
+     * so that the next hint is usually cached before it is asked for
+     */
+    private void prefetch() {
+        cancelPrefetch();
+        if (currentConfig.isSolution() || hints.contains(currentConfig)) {
+            return;
+        }
+        Solver solver = new Solver();
+        solver.setBudget(budget);
+        ChessConfig start = copyOf(currentConfig);
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            if (!solver.isCancelled()) {
+                cache(solver, start, solver.search(start));
+            }
+        }, null);
+        prefetchStart = start;
+        prefetch = solver;
+        prefetchTask = task;
+        lastSolve = solver;
+        prefetching.execute(task);
+    }
 
+    /**
+     * Waits for the speculative solve of a board, if one is running, instead of solving it again. While it waits,
+     * {@link #cancelHint()} cancels the speculative solve
+     * @param start ChessConfig, the board a hint is wanted for
+     * @return Solver, the solver of the speculative solve once it has cached its answer or given up,
+     * or null if there is none for the board or it was cancelled
+     */
+    private Solver joinPrefetch(ChessConfig start) {
+        Solver running = prefetch;
+        Future<?> task = prefetchTask;
+        if (running == null || task == null || !start.equals(prefetchStart)) {
+            return null;
+        }
+        hinting = running;
+        try {
+            task.get();
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            hinting = null;
+        }
+        boolean answered = hints.contains(start) || running.getExceeded() != null;
+        return running.isCancelled() || answered ? running : null;
+    }
 
+    /**
+     * Cancels the speculative solve in progress, if there is one
+     */
+    private void cancelPrefetch() {
+        Solver running = prefetch;
+        if (running != null) {
+            running.cancel();
+            prefetch = null;
+        }
+    }
+
+    /**
+     * Stops any speculative solve or hint solve of this model, and its prefetch thread
+     */
+    public void shutdown() {
+        cancelPrefetch();
+        cancelHint();
+        prefetching.shutdownNow();
+    }
+
+    /**
+     * Caches the result of a solve that ran to the end. A solve that gave up is not cached, as its empty path
+     * does not mean the board has no solution
+     * @param solver Solver, the solver that ran
+     * @param start ChessConfig, the configuration it solved, which nothing changes afterwards
+     * @param path List<Configuration>, the path it found
+     */
+    private static void cache(Solver solver, ChessConfig start, List<Configuration> path) {
+        if (solver.isCancelled() || solver.getExceeded() != null) {
+            return;
+        }
+        if (path.isEmpty()) {
+            hints.putUnsolvable(start);
+        } else {
+            hints.putPath(path);
+        }
+    }
 
+    /**
+     * Copies a configuration, so that it can be cached or solved while the model keeps changing its own
+     * @param config ChessConfig, the configuration to copy
+     * @return ChessConfig, a configuration with its own board
+     */
+    private static ChessConfig copyOf(ChessConfig config) {
+        int[] dims = config.getDimensions();
+        String[][] board = new String[dims[0]][dims[1]];
+        int numPieces = 0;
+        for (int i = 0; i < dims[0]; i++) {
+            for (int j = 0; j < dims[1]; j++) {
+                board[i][j] = config.pieceAt(new int[]{i, j});
+                if (!board[i][j].equals(".")) {
+                    numPieces++;
+                }
+            }
+        }
+        return new ChessConfig(board, numPieces);
     }
-    public void load(File file) throws IOException {
-        this.state = ChessState.NEW_GAME;
+
+    public synchronized void load(File file) throws IOException {
+        OperationEvent event = OperationEvent.begin("chess", "load");
         try {
-            this.currentConfig = new ChessConfig(file.toString());
-            this.currentFile = file;
+            cancelPrefetch();
+            this.state = ChessState.NEW_GAME;
+            try {
+                String[][] before = snapshot();
+                this.currentConfig = new ChessConfig(file.toString());
+                this.currentFile = file;
+                startHistory();
+                publishBoard(before);
 
-        } catch (IOException e) {
-            this.state = ChessState.INVALID_FILE;
+            } catch (IOException e) {
+                this.state = ChessState.INVALID_FILE;
 
+            } finally {
+                if (state == ChessState.INVALID_FILE) {
+                    this.alertError(this.state.toString());
+                } else {
+                    this.alertObservers(this.state.toString());
+                }
+            }
+        } finally {
+            event.finish();
+        }
+    }
+    public synchronized void select(int p1, int p2) {
+        OperationEvent event = OperationEvent.begin("chess", "select");
+        try {
+            state = ChessState.SOLVEABLE;
+            ChessConfig c = new ChessConfig(currentConfig);
+            if (amtSelect == 1) {
+                if (c.validMove(loc.get(0), new int[]{p1,p2}, selected)) {
+                    state = ChessState.CAPTURED;
+                } else {
+                    state = ChessState.ILLEGAL_MOVE;
+                }
+                int[] from = loc.get(0);
+                loc.clear();
+                amtSelect--;
+                events.publish(new ModelEvent.Selection(null));
+                if (state == ChessState.CAPTURED) {
+                    this.currentConfig = new ChessConfig(currentConfig, selected, from, new int[]{p1,p2});
+                    publishMove(new LinkedHashSet<>(List.of(new Coordinates(from[0], from[1]), new Coordinates(p1, p2))));
+                    prefetch();
+                    this.alertObservers(state.name() + " (" + p1 + ", " + p2 + ")");
+                } if (state == ChessState.ILLEGAL_MOVE) {
+                    this.alertError(state.toString());
+                }
+                return;
+            } if (amtSelect == 0) {
+                if (!this.currentConfig.pieceAt(new int[]{p1, p2}).equals(".")) {
+                    this.selected = this.currentConfig.pieceAt(new int[]{p1, p2});
+                    loc.add(new int[]{p1,p2});
+                    state = ChessState.PC_SELECTED;
+                    this.alertObservers(ChessState.PC_SELECTED.name() + "(" + p1 + ", " + p2 + ")");
+                    amtSelect++;
+                    events.publish(new ModelEvent.Selection(new Coordinates(p1, p2)));
+                } else {
+                    this.alertError(ChessState.WRONG_PIECE.name());
+                }
+            }
         } finally {
-            this.alertObservers(this.state.toString());
+            event.finish();
         }
+    }
+    /**
+     * Takes back the last capture or hint
+     */
+    public synchronized void undo() {
+        OperationEvent event = OperationEvent.begin("chess", "undo");
+        try {
+            if (!history.canUndo()) {
+                this.alertError("Nothing to undo");
+                return;
+            }
+            travel(history.undo(), "Undo");
+        } finally {
+            event.finish();
+        }
+    }
 
+    /**
+     * Makes the last capture or hint that was taken back again
+     */
+    public synchronized void redo() {
+        OperationEvent event = OperationEvent.begin("chess", "redo");
+        try {
+            if (!history.canRedo()) {
+                this.alertError("Nothing to redo");
+                return;
+            }
+            travel(history.redo(), "Redo");
+        } finally {
+            event.finish();
+        }
     }
-    public void select(int p1, int p2) {
-        state = ChessState.SOLVEABLE;
-        ChessConfig c = new ChessConfig(currentConfig);
-        if (amtSelect == 1) {
-            if (c.validMove(loc.get(0), new int[]{p1,p2}, selected)) {
-                state = ChessState.CAPTURED;
-            } else {
-                state = ChessState.ILLEGAL_MOVE;
+
+    /**
+     * Goes to any point in the history, keeping the later moves for redo
+     * @param move int, the number of moves to have made, from 0 to the length of the history
+     */
+    public synchronized void goTo(int move) {
+        OperationEvent event = OperationEvent.begin("chess", "goTo");
+        try {
+            if (move < 0 || move > history.size()) {
+                this.alertError("There is no move " + move);
+                return;
             }
-            if (state == ChessState.CAPTURED) {
-                this.currentConfig = new ChessConfig(currentConfig, selected, loc.get(0), new int[]{p1,p2});
-                this.alertObservers(state.name() + " (" + p1 + ", " + p2 + ")");
-            } if (state == ChessState.ILLEGAL_MOVE) {
-                this.alertObservers(state.toString());
+            travel(history.seek(move), "Move " + move + " of " + history.size());
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Replaces the current configuration with the board in the history, clearing the selection
+     * @param squares List<Integer>, the indices of the squares that changed
+     * @param message String, the message for the observers
+     */
+    private void travel(List<Integer> squares, String message) {
+        cancelPrefetch();
+        int[] dims = currentConfig.getDimensions();
+        String[][] board = new String[dims[0]][dims[1]];
+        int numPieces = 0;
+        for (int i = 0; i < dims[0]; i++) {
+            for (int j = 0; j < dims[1]; j++) {
+                board[i][j] = history.current().get(i * dims[1] + j);
+                if (!board[i][j].equals(".")) {
+                    numPieces++;
+                }
             }
+        }
+        this.currentConfig = new ChessConfig(board, numPieces);
+        if (amtSelect == 1) {
             loc.clear();
             amtSelect--;
-            return;
-        } if (amtSelect == 0) {
-            if (!this.currentConfig.pieceAt(new int[]{p1, p2}).equals(".")) {
-                this.selected = this.currentConfig.pieceAt(new int[]{p1, p2});
-                loc.add(new int[]{p1,p2});
-                state = ChessState.PC_SELECTED;
-                this.alertObservers(ChessState.PC_SELECTED.name() + "(" + p1 + ", " + p2 + ")");
-                amtSelect++;
-            } else {
-                this.alertObservers(ChessState.WRONG_PIECE.name());
-            }
+            events.publish(new ModelEvent.Selection(null));
         }
-
+        Set<Coordinates> changed = new LinkedHashSet<>();
+        for (int index : squares) {
+            changed.add(new Coordinates(index / dims[1], index % dims[1]));
+        }
+        events.publish(new ModelEvent.BoardDelta(changed));
+        if (currentConfig.isSolution()) {
+            events.publish(new ModelEvent.Solved());
+        }
+        this.alertObservers(message);
     }
-    public void quit() {
+
+    public synchronized void quit() {
         this.state = ChessState.END;
         this.alertObservers(this.state.toString());
 
     }
-    public void fail(String f) {
+    public synchronized void fail(String f) {
         this.state = ChessState.INVALID_FILE;
-        this.alertObservers(this.state.name() + " " + f);
+        this.alertError(this.state.name() + " " + f);
     }
-    public void reset() throws IOException {
-        this.load(currentFile);
-        this.state = ChessState.RELOAD;
-        this.alertObservers(this.state.name());
+    public synchronized void reset() throws IOException {
+        OperationEvent event = OperationEvent.begin("chess", "reset");
+        try {
+            this.load(currentFile);
+            this.state = ChessState.RELOAD;
+            this.alertObservers(this.state.name());
+        } finally {
+            event.finish();
+        }
     }
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return this.currentConfig.toString();
     }
 }
@@ -2,27 +2,74 @@ package puzzles.chess.ptui;
 
 import puzzles.chess.solver.Chess;
 import puzzles.common.Observer;
+import puzzles.common.solver.SearchMetrics;
 import puzzles.chess.model.ChessModel;
 
 import java.io.*;
 import java.util.Scanner;
 
 public class ChessPTUI extends ConsoleApplication implements Observer<ChessModel, String> {
-    private static ChessModel model;
+    private ChessModel model;
     private PrintWriter out;
     private boolean init;
 
+    /**
+     * Creates a PTUI that prints to the console
+     */
+    public ChessPTUI() {
+        this(new PrintWriter(System.out, true));
+    }
+
+    /**
+     * Creates a PTUI that prints somewhere other than the console, such as the connection of a
+     * session of the game host
+     * @param out PrintWriter, where the board and the messages are printed
+     */
+    public ChessPTUI(PrintWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Loads the puzzle file given on the command line when the PTUI is launched
+     * @throws IOException if the file cannot be read
+     */
+    @Override
+    public void init() throws IOException {
+        init(getArguments().get(0));
+    }
+
     public void init(String filename) throws IOException {
-        model = new ChessModel(filename);
+        ChessModel loaded = new ChessModel(filename);
+        if (model != null) {
+            model.shutdown();
+        }
+        model = loaded;
         model.addObserver(this);
         displayHelp();
     }
+
+    /**
+     * Stops the model's background solves when the PTUI ends
+     */
+    @Override
+    public void stop() {
+        shutdown();
+    }
+
+    /**
+     * Stops the model's background solves, for when the game ends
+     */
+    public void shutdown() {
+        if (model != null) {
+            model.shutdown();
+        }
+    }
     @Override
     public void start(PrintWriter console) throws Exception {
         this.out = console;
         this.init = true;
-        super.setOnCommand("hint", 0, ": Get a hint",
-                args -> model.hint());
+        super.setOnBackgroundCommand("hint", 0, ": Get a hint, solved in the background",
+                args -> model.hint(), () -> model.cancelHint());
         super.setOnCommand("load", 1, ": Load a file",
                 args -> {
                     try {
@@ -43,6 +90,28 @@ public class ChessPTUI extends ConsoleApplication implements Observer<ChessModel
                         throw new RuntimeException(e);
                     }
                 });
+        super.setOnCommand("undo", 0, ": take back the last move",
+                args -> model.undo());
+        super.setOnCommand("redo", 0, ": make the last move taken back again",
+                args -> model.redo());
+        super.setOnCommand("goto", 1, ": go to a move of the history",
+                args -> {
+                    try {
+                        model.goTo(Integer.parseInt(args[0]));
+                    } catch (NumberFormatException e) {
+                        out.println("Usage: goto n");
+                    }
+                });
+        super.setOnCommand("stats", 0, ": show the counts and timings of the last solve",
+                args -> {
+                    SearchMetrics metrics = model.getMetrics();
+                    out.println(metrics == null ? "Nothing has been solved yet" : metrics.toString());
+                });
+        super.setAlias("h", "hint");
+        super.setAlias("l", "load");
+        super.setAlias("s", "select");
+        super.setAlias("q", QUIT);
+        super.setAlias("r", "reset");
         super.help(new String[]{});
 
 
@@ -50,22 +119,28 @@ public class ChessPTUI extends ConsoleApplication implements Observer<ChessModel
     @Override
     public void update(ChessModel model, String data) {
         // for demonstration purposes
-        System.out.println(data);
-        System.out.println(model);
+        out.println(data);
+        out.println(model);
     }
 
     private void displayHelp() {
-        System.out.println( "h(int)              -- hint next move" );
-        System.out.println( "l(oad) filename     -- load new puzzle file" );
-        System.out.println( "s(elect) r c        -- select cell at r, c" );
-        System.out.println( "q(uit)              -- quit the game" );
-        System.out.println( "r(eset)             -- reset the current game" );
+        out.println( "h(int)              -- hint next move" );
+        out.println( "l(oad) filename     -- load new puzzle file" );
+        out.println( "s(elect) r c        -- select cell at r, c" );
+        out.println( "q(uit)              -- quit the game" );
+        out.println( "r(eset)             -- reset the current game" );
+        out.println( "undo                -- take back the last move" );
+        out.println( "redo                -- make the last move taken back again" );
+        out.println( "goto n              -- go to move n of the history" );
+        out.println( "stats               -- show the counts and timings of the last solve" );
+        out.println( "jobs                -- list the hints being solved" );
+        out.println( "cancel n            -- cancel hint job n" );
     }
 
     public void run() {
         Scanner in = new Scanner( System.in );
         for ( ; ; ) {
-            System.out.print( "> " );
+            out.print( "> " );
             String line = in.nextLine();
             String[] words = line.split( "\\s+" );
             if (words.length > 0) {
@@ -84,8 +159,6 @@ public class ChessPTUI extends ConsoleApplication implements Observer<ChessModel
             System.out.println("Usage: java ChessPTUI filename");
         } else {
             try {
-                ChessPTUI c = new ChessPTUI();
-                c.init(args[0]);
                 ConsoleApplication.launch(ChessPTUI.class, args);
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -5,6 +5,10 @@ import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Map.Entry;
 
@@ -51,13 +55,68 @@ public abstract class ConsoleApplication {
      *     <li>the number of arguments needed for this command (fixed)</li>
      *     <li>a description of what the command does (for help)</li>
      *     <li>the code that runs when the user types this command</li>
+     *     <li>whether the command runs as a background job</li>
+     *     <li>the code that stops a running job of this command, or null</li>
      * </ol>
      */
     private static record CommandInfo(
-            int numArgs, String helpMsg, ConsoleHandler handler ) {}
+            int numArgs, String helpMsg, ConsoleHandler handler,
+            boolean background, Runnable onCancel ) {}
 
     private Map< String, CommandInfo > actions;
 
+    private final Map< String, String > aliases = new HashMap<>();
+
+    /**
+     * The states a background job goes through
+     */
+    private enum JobState { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /**
+     * A command line given to the job thread, and what became of it
+     */
+    private static final class Job {
+        private final int id;
+        private final String line;
+        private final Runnable onCancel;
+        /**
+         * Changed with compareAndSet only, so that the job thread starting
+         * the job and a cancel can never both think they won
+         */
+        private final AtomicReference< JobState > state =
+                new AtomicReference<>( JobState.QUEUED );
+        private Future< ? > future;
+
+        private Job( int id, String line, Runnable onCancel ) {
+            this.id = id;
+            this.line = line;
+            this.onCancel = onCancel;
+        }
+    }
+
+    /**
+     * The jobs that are queued or running, and those that ended since
+     * the last time the jobs command listed them, by number
+     */
+    private final Map< Integer, Job > jobs = new LinkedHashMap<>();
+
+    private int nextJob = 1;
+
+    /**
+     * Runs the background commands one at a time, in the order they were
+     * typed, on a daemon thread so that it never keeps the program alive
+     */
+    private ExecutorService jobThread;
+
+    /**
+     * Whether background commands run on the calling thread instead,
+     * as they do when a script is run by {@link #startScripted(PrintWriter)}
+     */
+    private boolean inline = false;
+
+    public static final String JOBS = "jobs";
+    public static final String CANCEL = "cancel";
+
     /**
      * The prompt seen by the user in the console before they enter a command
      */
@@ -101,10 +160,214 @@ public abstract class ConsoleApplication {
             String command, int numArgs, String helpMsg, ConsoleHandler handler
     ) {
         this.actions.put(
-                command, new CommandInfo( numArgs, helpMsg, handler )
+                command, new CommandInfo( numArgs, helpMsg, handler, false, null )
+        );
+    }
+
+    /**
+     * Add a new command that may take a long time. Each time the user types
+     * it, the command is queued as a job and the prompt comes back at once;
+     * jobs run one at a time on a separate thread, and a line is printed
+     * when each one ends. Other commands keep running on the console thread
+     * in the meantime, so the handler must be safe to run alongside them.
+     * @param command the string the user must type in after the prompt
+     * @param numArgs how many arguments this command needs (fixed)
+     * @param helpMsg a description of the command used by the help command
+     * @param handler the code that gets executed as a job
+     * @param onCancel the code that makes a running job of this command
+     *                 return early, or null if it cannot be stopped once
+     *                 it has started
+     */
+    public void setOnBackgroundCommand(
+            String command, int numArgs, String helpMsg,
+            ConsoleHandler handler, Runnable onCancel
+    ) {
+        this.actions.put(
+                command, new CommandInfo( numArgs, helpMsg, handler, true, onCancel )
         );
     }
 
+    /**
+     * Let the user type a shorter name for a command. Aliases are not listed
+     * by the help command.
+     * @param alias the other string the user may type
+     * @param command the command it stands for, which may be {@link #QUIT}
+     */
+    public void setAlias( String alias, String command ) {
+        this.aliases.put( alias, command );
+    }
+
+    /**
+     * Run one line of input as a command, exactly as the console loop does.
+     * @param nextCommand the command name followed by its arguments
+     * @return false if the command was {@link #QUIT}, true otherwise
+     */
+    public boolean execute( String nextCommand ) {
+        String[] operands = nextCommand.trim().split( "\\s+" );
+        String commandName = operands[ 0 ].toLowerCase();
+        commandName = this.aliases.getOrDefault( commandName, commandName );
+        if ( commandName.equals( QUIT ) ) {
+            return false;
+        }
+        Map< String, CommandInfo > actionMap = this.actions;
+        if ( actionMap.containsKey( commandName ) &&
+             actionMap.get( commandName ).numArgs ==
+             operands.length - 1 ) {
+            operands = Arrays.copyOfRange(
+                    operands, 1, operands.length
+            );
+            CommandInfo info = actionMap.get( commandName );
+            if ( info.background && !this.inline ) {
+                submit( nextCommand.trim(), info, operands );
+            }
+            else {
+                info.handler.handle( operands );
+            }
+        }
+        else {
+            out.println( "Illegal command" );
+            this.help( NO_ARGS );
+        }
+        return true;
+    }
+
+    /**
+     * Set up the commands of this application without a console, so that
+     * lines can be given to {@link #execute(String)} by a script instead.
+     * The application's {@link #start(PrintWriter) start} method is called
+     * with the given writer, which also receives the help and error messages.
+     * @param console where the application's output goes
+     * @throws Exception if the start method does
+     */
+    public void startScripted( PrintWriter console ) throws Exception {
+        this.actions = new HashMap<>();
+        setUpBuiltInCommands();
+        this.inline = true;
+        this.out = console;
+        start( console );
+    }
+
+    /**
+     * Add the commands every application has: help, and the commands
+     * that list and cancel background jobs
+     */
+    private void setUpBuiltInCommands() {
+        setOnCommand( HELP, 0, ": Show all commands", this::help );
+        setOnCommand( JOBS, 0, ": List the background jobs", this::listJobs );
+        setOnCommand( CANCEL, 1, ": Cancel a background job by number",
+                      this::cancelJob );
+    }
+
+    /**
+     * Queue a background command on the job thread
+     * @param line the command line, as it is shown by the jobs command
+     * @param info the command
+     * @param operands the arguments of the command
+     */
+    private void submit( String line, CommandInfo info, String[] operands ) {
+        if ( this.jobThread == null ) {
+            this.jobThread = Executors.newSingleThreadExecutor( task -> {
+                Thread thread = new Thread( task, "console-jobs" );
+                thread.setDaemon( true );
+                return thread;
+            } );
+        }
+        Job job;
+        synchronized ( this.jobs ) {
+            job = new Job( this.nextJob++, line, info.onCancel );
+            this.jobs.put( job.id, job );
+            job.future = this.jobThread.submit( () -> {
+                if ( !job.state.compareAndSet( JobState.QUEUED, JobState.RUNNING ) ) {
+                    return;
+                }
+                try {
+                    info.handler.handle( operands );
+                    job.state.compareAndSet( JobState.RUNNING, JobState.DONE );
+                }
+                catch( RuntimeException e ) {
+                    job.state.set( JobState.FAILED );
+                    this.out.println( "[" + job.id + "] " + e );
+                }
+                this.out.println(
+                        "[" + job.id + "] " + job.state.get() + ": " + job.line );
+                this.out.print( PROMPT ); this.out.flush();
+            } );
+        }
+        this.out.println( "[" + job.id + "] " + line );
+    }
+
+    /**
+     * The jobs command: print every job that is queued or running, and
+     * every job that ended since the last listing, which is then forgotten
+     * @param args not used
+     */
+    private void listJobs( String[] args ) {
+        synchronized ( this.jobs ) {
+            if ( this.jobs.isEmpty() ) {
+                this.out.println( "No jobs" );
+            }
+            Iterator< Job > it = this.jobs.values().iterator();
+            while ( it.hasNext() ) {
+                Job job = it.next();
+                JobState state = job.state.get();
+                this.out.println(
+                        "[" + job.id + "] " + state + ": " + job.line );
+                if ( state != JobState.QUEUED && state != JobState.RUNNING ) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * The cancel command: take a queued job off the queue, or ask a running
+     * one to stop early
+     * @param args the number of the job
+     */
+    private void cancelJob( String[] args ) {
+        Job job;
+        synchronized ( this.jobs ) {
+            try {
+                job = this.jobs.get( Integer.parseInt( args[ 0 ] ) );
+            }
+            catch( NumberFormatException e ) {
+                job = null;
+            }
+        }
+        if ( job == null ) {
+            this.out.println( "No job " + args[ 0 ] );
+        }
+        else if ( job.state.compareAndSet( JobState.QUEUED, JobState.CANCELLED ) ) {
+            job.future.cancel( false );
+            this.out.println( "[" + job.id + "] CANCELLED: " + job.line );
+        }
+        else if ( job.onCancel != null &&
+                  job.state.compareAndSet( JobState.RUNNING, JobState.CANCELLED ) ) {
+            job.onCancel.run();
+        }
+        else {
+            this.out.println( "[" + job.id + "] cannot be cancelled" );
+        }
+    }
+
+    /**
+     * Cancel every job, for when the application ends
+     */
+    private void cancelAllJobs() {
+        synchronized ( this.jobs ) {
+            for ( Job job : this.jobs.values() ) {
+                if ( !job.state.compareAndSet( JobState.QUEUED, JobState.CANCELLED ) &&
+                     job.state.compareAndSet( JobState.RUNNING, JobState.CANCELLED ) &&
+                     job.onCancel != null ) {
+                    job.onCancel.run();
+                }
+            }
+        }
+        if ( this.jobThread != null ) {
+            this.jobThread.shutdownNow();
+        }
+    }
+
     /* *** Launch methods ***************************************************/
 
     /**
@@ -236,10 +499,7 @@ public abstract class ConsoleApplication {
 
         public void run() {
 
-            setOnCommand( HELP,
-                          0, ": Show all commands",
-                          ConsoleApplication.this::help
-            );
+            setUpBuiltInCommands();
 
 
             // We don't put the PrintWriter in try-with-resources because
@@ -253,34 +513,18 @@ public abstract class ConsoleApplication {
                     boolean quit = false;
                     out.print( PROMPT ); out.flush();
                     while ( consoleIn.hasNextLine() ) {
-                        String nextCommand = consoleIn.nextLine();
-                        String[] operands = nextCommand.split( "\\s+" );
-                        String commandName = operands[ 0 ].toLowerCase();
-                        if ( commandName.equals( QUIT ) ) {
+                        if ( !ConsoleApplication.this.execute(
+                                consoleIn.nextLine() ) ) {
                             out.println( "Closing application." );
                             quit = true;
                             break;
                         }
-                        Map< String, CommandInfo > actionMap =
-                                ConsoleApplication.this.actions;
-                        if ( actionMap.containsKey( commandName ) &&
-                             actionMap.get( commandName ).numArgs ==
-                             operands.length - 1 ) {
-                            operands = Arrays.copyOfRange(
-                                    operands, 1, operands.length
-                            );
-                            actionMap.get( commandName )
-                                    .handler.handle( operands );
-                        }
-                        else {
-                            out.println( "Illegal command" );
-                            ConsoleApplication.this.help( NO_ARGS );
-                        }
                         out.print( PROMPT ); out.flush();
                     }
                     if ( !quit ) {
                         out.println( "End of console input reached." );
                     }
+                    cancelAllJobs();
                 }
                 catch( Exception e ) {
                     System.err.println( "ConsoleApplication event thread" );
@@ -1,11 +1,17 @@
 package puzzles.chess.solver;
 
+import puzzles.chess.model.ChessBoard;
+import puzzles.chess.model.ChessCodec;
 import puzzles.chess.model.ChessConfig;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ExternalSolver;
+import puzzles.common.solver.SearchBudget;
 import puzzles.common.solver.Solver;
 import puzzles.strings.StringsConfig;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
 
@@ -25,26 +31,90 @@ public class Chess {
      * Displays the total amount of unique configurations generated before the best solution was found,
      * If no solution was found, displays "No solution",
      * Else, displays all the steps associated with the shortest path between the beginning and solution configurations
+     * The options --por and --macro after the file name turn on partial-order reduction and macro moves,
+     * and --dfs solves by making and taking back captures on a single ChessBoard.
+     * With --json, the result and the metrics of the search are printed as one JSON object instead of the steps.
+     * --max-states n, --max-mb n and --max-seconds n limit the configurations expanded, the megabytes of the
+     * visited set and the time of the search, which gives up with "Gave up" and the counts so far when one is reached
+     * --checkpoint file writes the state of the search to the file every minute, or every --checkpoint-seconds n,
+     * and a later run with the same file goes on from it.
+     * --external dir keeps the layers of the search in sorted files in the directory instead of the visited set in the heap,
+     * sorting --sort-records n configurations in memory at once
      * @param args String[], the provided command line arguments
      * @throws IOException if the file cannot be found
      */
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Chess filename");
+        List<String> options = args.length < 1 ? List.of() : SearchBudget.strip(List.of(args).subList(1, args.length));
+        SearchBudget budget;
+        String checkpoint;
+        long checkpointMillis;
+        String external;
+        int sortRecords;
+        try {
+            budget = args.length < 1 ? SearchBudget.UNLIMITED : SearchBudget.parse(List.of(args).subList(1, args.length));
+            checkpoint = SearchBudget.takeOption(options, "--checkpoint");
+            String seconds = SearchBudget.takeOption(options, "--checkpoint-seconds");
+            checkpointMillis = seconds == null ? Solver.CHECKPOINT_MILLIS : Long.parseLong(seconds) * 1000;
+            external = SearchBudget.takeOption(options, "--external");
+            String records = SearchBudget.takeOption(options, "--sort-records");
+            sortRecords = records == null ? ExternalSolver.DEFAULT_BUFFER_RECORDS : Integer.parseInt(records);
+            if (sortRecords < 1) {
+                throw new IllegalArgumentException("--sort-records must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (args.length < 1 || !List.of("--por", "--macro", "--dfs", "--json").containsAll(options)) {
+            System.out.println("Usage: java Chess filename [--por] [--macro] [--dfs] [--json] " +
+                    "[--max-states n] [--max-mb n] [--max-seconds n] [--checkpoint file [--checkpoint-seconds n]] " +
+                    "[--external dir [--sort-records n]]");
         } else {
             try (Scanner reader = new Scanner(args[0])) {
                 Configuration starter = new ChessConfig(args[0]);
-                System.out.println("File " + args[0]);
-                System.out.println(starter);
-                List<String> solve;
-                solve = Solver.solve(starter);
+                boolean json = options.contains("--json");
+                if (!json) {
+                    System.out.println("File " + args[0]);
+                    System.out.println(starter);
+                }
+                List<Configuration> solve;
+                Solver.addAnalyzer(ChessConfig.class, new ChessAnalyzer());
+                Solver.addBoard(ChessConfig.class, c -> new ChessBoard((ChessConfig) c));
+                Solver.addCodec(ChessConfig.class, c -> new ChessCodec((ChessConfig) c));
+                Solver solver = new Solver();
+                solver.setPartialOrder(options.contains("--por"));
+                solver.setMacroMoves(options.contains("--macro"));
+                solver.setDepthFirst(options.contains("--dfs"));
+                solver.setBudget(budget);
+                if (checkpoint != null) {
+                    solver.setCheckpoint(Path.of(checkpoint), checkpointMillis);
+                }
+                if (external != null) {
+                    solver.setExternalMemory(Path.of(external), sortRecords);
+                }
+                try {
+                    solve = solver.search(starter);
+                } catch (UncheckedIOException e) {
+                    System.err.println("Error with the search files: " + e.getCause().getMessage());
+                    return;
+                }
+                if (json) {
+                    System.out.println(solver.getMetrics().toJson(args[0], solve.size(), solver.getRejected(),
+                            solver.getExceeded()));
+                    return;
+                }
                 int stepNum = 0;
-                System.out.println("Total configs: " + Solver.getTotalConfigs());
-                System.out.println("Unique configs: " + Solver.getUniqueConfigs());
-                if (solve.size() == 0) {
+                System.out.println("Total configs: " + solver.getTotal());
+                System.out.println("Unique configs: " + solver.getUnique());
+                if (solver.getRejected() != null) {
+                    System.out.println("Unsolvable: " + solver.getRejected());
+                }
+                if (solver.getExceeded() != null) {
+                    System.out.println("Gave up: " + solver.getExceeded());
+                } else if (solve.size() == 0) {
                     System.out.println("No solution");
                 }
-                for (String step: solve) {
+                for (Configuration step: solve) {
                     System.out.println("Step " + stepNum + ": \n" + step);
                     stepNum++;
                 }
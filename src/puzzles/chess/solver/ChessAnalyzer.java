@@ -0,0 +1,113 @@
+package puzzles.chess.solver;
+
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.solver.Analyzer;
+import puzzles.common.solver.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rejects Solitaire Chess boards that can be proven unsolvable before searching.
+ * A piece only ever moves by capturing, so every move goes from an occupied square
+ * to another occupied square and no empty square is ever filled again. Two squares
+ * can therefore only interact if some piece type on the board could move between
+ * them, ignoring whatever stands in the way. If those moves split the occupied
+ * squares into more than one group, at least one piece per group is left at the end.
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class ChessAnalyzer implements Analyzer {
+
+    /**
+     * Checks if the configuration can be proven unsolvable
+     * @param config Configuration, the ChessConfig that is about to be solved
+     * @return String, the rule that fired, or null if the board might be solvable
+     */
+    @Override
+    public String analyze(Configuration config) {
+        ChessConfig chess = (ChessConfig) config;
+        int[] dims = chess.getDimensions();
+        List<int[]> squares = new ArrayList<>();
+        Set<String> pieces = new HashSet<>();
+        for (int i = 0; i < dims[0]; i++) {
+            for (int j = 0; j < dims[1]; j++) {
+                String s = chess.pieceAt(new int[]{i, j});
+                if (!s.equals(".")) {
+                    squares.add(new int[]{i, j});
+                    pieces.add(s);
+                }
+            }
+        }
+        if (squares.isEmpty()) {
+            return "There are no pieces on the board";
+        }
+
+        // union-find over the occupied squares
+        int[] group = new int[squares.size()];
+        for (int i = 0; i < group.length; i++) {
+            group[i] = i;
+        }
+        int groups = group.length;
+        for (int a = 0; a < squares.size(); a++) {
+            boolean linked = false;
+            for (int b = 0; b < squares.size(); b++) {
+                if (a != b && (reaches(pieces, squares.get(a), squares.get(b)) ||
+                        reaches(pieces, squares.get(b), squares.get(a)))) {
+                    linked = true;
+                    int ra = find(group, a);
+                    int rb = find(group, b);
+                    if (ra != rb) {
+                        group[ra] = rb;
+                        groups--;
+                    }
+                }
+            }
+            if (!linked) {
+                return "The piece at (" + squares.get(a)[0] + ", " + squares.get(a)[1] +
+                        ") can never capture or be captured";
+            }
+        }
+        if (groups > 1) {
+            return "The pieces split into " + groups + " groups that can never reach each other";
+        }
+        return null;
+    }
+
+    /**
+     * Checks if any of the given piece types could move from one square to another on an empty board
+     * @param pieces Set<String>, the piece types on the board
+     * @param from int[], the square moved from
+     * @param to int[], the square moved to
+     * @return boolean, true if one of the pieces could make that move
+     */
+    private static boolean reaches(Set<String> pieces, int[] from, int[] to) {
+        int dr = to[0] - from[0];
+        int dc = to[1] - from[1];
+        int ar = Math.abs(dr);
+        int ac = Math.abs(dc);
+        boolean straight = dr == 0 || dc == 0;
+        boolean diagonal = ar == ac;
+        return (pieces.contains("K") && Math.max(ar, ac) == 1) ||
+                (pieces.contains("N") && ar * ac == 2) ||
+                (pieces.contains("P") && dr == -1 && ac == 1) ||
+                (pieces.contains("R") && straight) ||
+                (pieces.contains("B") && diagonal) ||
+                (pieces.contains("Q") && (straight || diagonal));
+    }
+
+    /**
+     * Finds the representative of a square's group
+     * @param group int[], the parent of every square
+     * @param i int, the square
+     * @return int, the representative square
+     */
+    private static int find(int[] group, int i) {
+        while (group[i] != i) {
+            group[i] = group[group[i]];
+            i = group[i];
+        }
+        return i;
+    }
+}
@@ -15,6 +15,7 @@ public class Clock {
      * From the arguments, prints out the hours, starting hour, ending hour
      * Prints the total amount of configurations it took to find a solution, as well as the amount of unique configurations
      * Prints each step for the shortest path to the desired hour
+     * With --json after the arguments, prints the result and the metrics of the search as one JSON object instead
      * @param args the arguments of the program of type String[]
      */
     public static void main(String[] args) {
@@ -24,6 +25,11 @@ public class Clock {
             Configuration starter = new ClockConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
             List<String> solve;
             solve = Solver.solve(starter);
+            if (args.length > 3 && args[3].equals("--json")) {
+                System.out.println(Solver.getLastMetrics().toJson(
+                        "clock " + args[0] + " " + args[1] + " " + args[2], solve.size(), null));
+                return;
+            }
             int stepNum = 0;
             System.out.println("Hours: " + args[0] + ", Start: " + args[1] + ", End: " + args[2]);
             System.out.println("Total configs: " + Solver.getTotalConfigs());
@@ -0,0 +1,154 @@
+package puzzles.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Collects the {@link ModelEvent}s a model publishes and delivers them to its observers
+ * as one batch per frame. The first event after a delivery schedules the next delivery on
+ * the frame executor; a GUI sets that to Platform::runLater, so everything the model
+ * publishes before the next pulse arrives as one list. Events of the same kind are
+ * coalesced while they wait: board deltas are merged and only the latest selection,
+ * progress and message are kept, so a burst of thirty moves causes one redraw.
+ * Events may be published from any thread.
+ *
+ * @param <Subject> the type of model publishing the events
+ *
+ * @author cmp2318
+ */
+public class EventQueue<Subject> {
+    /** the model passed to the observers */
+    private final Subject subject;
+    /** the observers of the batches */
+    private final List<Observer<Subject, List<ModelEvent>>> observers = new LinkedList<>();
+    /** the events waiting to be delivered, already coalesced */
+    private final List<ModelEvent> pending = new ArrayList<>();
+    /** runs each delivery; by default on the publishing thread right away */
+    private Executor frame = Runnable::run;
+    /** whether a delivery has been handed to the frame executor and has not run yet */
+    private boolean scheduled;
+    /** the number of {@link #batch(Runnable)} calls currently running */
+    private int holds;
+
+    /**
+     * Creates an empty queue for a model.
+     *
+     * @param subject the model that publishes the events
+     */
+    public EventQueue(Subject subject) {
+        this.subject = subject;
+    }
+
+    /**
+     * Sets the executor deliveries run on.
+     *
+     * @param frame runs each delivery, for example Platform::runLater
+     */
+    public synchronized void setFrame(Executor frame) {
+        this.frame = frame;
+    }
+
+    /**
+     * Adds an observer of the batches.
+     *
+     * @param observer the view
+     */
+    public synchronized void addObserver(Observer<Subject, List<ModelEvent>> observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Queues an event, merging it with a waiting event of the same kind.
+     *
+     * @param event the event
+     */
+    public void publish(ModelEvent event) {
+        Executor executor;
+        synchronized (this) {
+            coalesce(event);
+            if (scheduled || holds > 0) {
+                return;
+            }
+            scheduled = true;
+            executor = frame;
+        }
+        executor.execute(this::flush);
+    }
+
+    /**
+     * Runs a series of changes and delivers everything they publish as one batch afterwards,
+     * even when the frame executor would otherwise deliver each event on its own.
+     *
+     * @param changes the changes to the model
+     */
+    public void batch(Runnable changes) {
+        synchronized (this) {
+            holds++;
+        }
+        Executor executor = null;
+        try {
+            changes.run();
+        } finally {
+            synchronized (this) {
+                holds--;
+                if (holds == 0 && !scheduled && !pending.isEmpty()) {
+                    scheduled = true;
+                    executor = frame;
+                }
+            }
+        }
+        if (executor != null) {
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Delivers the waiting events to every observer.
+     */
+    private void flush() {
+        List<ModelEvent> events;
+        List<Observer<Subject, List<ModelEvent>>> targets;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            events = List.copyOf(pending);
+            pending.clear();
+            targets = List.copyOf(observers);
+        }
+        for (Observer<Subject, List<ModelEvent>> observer : targets) {
+            observer.update(subject, events);
+        }
+    }
+
+    /**
+     * Adds an event to the waiting ones, replacing or merging with one of the same kind.
+     *
+     * @param event the event
+     */
+    private void coalesce(ModelEvent event) {
+        for (int i = 0; i < pending.size(); i++) {
+            ModelEvent waiting = pending.get(i);
+            if (waiting.getClass() != event.getClass()) {
+                continue;
+            }
+            if (event instanceof ModelEvent.BoardDelta delta) {
+                Set<Coordinates> cells = new LinkedHashSet<>(((ModelEvent.BoardDelta) waiting).cells());
+                cells.addAll(delta.cells());
+                pending.set(i, new ModelEvent.BoardDelta(cells));
+                return;
+            }
+            if (event instanceof ModelEvent.Selection || event instanceof ModelEvent.SolveProgress ||
+                    event instanceof ModelEvent.Message || event instanceof ModelEvent.Solved) {
+                pending.set(i, event);
+                return;
+            }
+        }
+        pending.add(event);
+    }
+}
@@ -0,0 +1,186 @@
+package puzzles.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The undo and redo history of a game, as the cells each move changed.
+ * Only the changes of a move are stored, against a {@link PersistentBoard} that
+ * every version shares structure with, and a version of the board is kept every
+ * {@link #SNAPSHOT_INTERVAL} moves. Undo and redo apply one move's changes; going
+ * to a point further away starts from the snapshot at or before it, found by index,
+ * and replays fewer than SNAPSHOT_INTERVAL moves, so any point in the history is
+ * reached with a bounded number of path copies however long the game has been.
+ *
+ * @param <V> the type of the contents of a cell
+ *
+ * @author cmp2318
+ */
+public class History<V> {
+    /** the number of moves between two snapshots */
+    public static final int SNAPSHOT_INTERVAL = 32;
+
+    /**
+     * One cell changed by a move.
+     *
+     * @param cell the index of the cell
+     * @param before the contents before the move
+     * @param after the contents after the move
+     */
+    public record Change<V>(int cell, V before, V after) { }
+
+    /** the changes of every move recorded, including the ones that were undone */
+    private final List<List<Change<V>>> moves = new ArrayList<>();
+    /** snapshots.get(i) is the board after i * SNAPSHOT_INTERVAL moves */
+    private final List<PersistentBoard<V>> snapshots = new ArrayList<>();
+    /** the board after the moves up to the position */
+    private PersistentBoard<V> current;
+    /** the number of moves currently applied */
+    private int position;
+
+    /**
+     * Starts an empty history.
+     *
+     * @param start the board before any move
+     */
+    public History(PersistentBoard<V> start) {
+        this.current = start;
+        this.snapshots.add(start);
+    }
+
+    /**
+     * Returns the board after the moves up to the current position.
+     *
+     * @return the current board
+     */
+    public PersistentBoard<V> current() {
+        return current;
+    }
+
+    /**
+     * Returns the number of moves currently applied.
+     *
+     * @return the position in the history
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of moves that can be redone or undone in total.
+     *
+     * @return the length of the history
+     */
+    public int size() {
+        return moves.size();
+    }
+
+    /**
+     * Checks if there is a move to undo.
+     *
+     * @return true if the position is after the start
+     */
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    /**
+     * Checks if there is an undone move to redo.
+     *
+     * @return true if the position is before the end
+     */
+    public boolean canRedo() {
+        return position < moves.size();
+    }
+
+    /**
+     * Records a move after the current position. Undone moves after it are forgotten.
+     *
+     * @param changes the cells the move changed
+     */
+    public void record(List<Change<V>> changes) {
+        while (moves.size() > position) {
+            moves.remove(moves.size() - 1);
+        }
+        while (snapshots.size() > position / SNAPSHOT_INTERVAL + 1) {
+            snapshots.remove(snapshots.size() - 1);
+        }
+        moves.add(List.copyOf(changes));
+        for (Change<V> change : changes) {
+            current = current.set(change.cell(), change.after());
+        }
+        position++;
+        if (position % SNAPSHOT_INTERVAL == 0) {
+            snapshots.add(current);
+        }
+    }
+
+    /**
+     * Takes back the last move applied.
+     *
+     * @return the indices of the cells that changed
+     */
+    public List<Integer> undo() {
+        return seek(position - 1);
+    }
+
+    /**
+     * Applies the next undone move again.
+     *
+     * @return the indices of the cells that changed
+     */
+    public List<Integer> redo() {
+        return seek(position + 1);
+    }
+
+    /**
+     * Goes to any point in the history, keeping the moves after it for redo.
+     *
+     * @param target the number of moves to have applied, from 0 to {@link #size()}
+     * @return the indices of the cells that changed
+     */
+    public List<Integer> seek(int target) {
+        if (target < 0 || target > moves.size()) {
+            throw new IndexOutOfBoundsException(target);
+        }
+        PersistentBoard<V> board;
+        if (target >= position && target - position < SNAPSHOT_INTERVAL) {
+            board = current;
+            for (int i = position; i < target; i++) {
+                board = apply(board, i);
+            }
+        } else if (target < position && position - target < SNAPSHOT_INTERVAL) {
+            board = current;
+            for (int i = position - 1; i >= target; i--) {
+                for (Change<V> change : moves.get(i)) {
+                    board = board.set(change.cell(), change.before());
+                }
+            }
+        } else {
+            int snapshot = target / SNAPSHOT_INTERVAL;
+            board = snapshots.get(snapshot);
+            for (int i = snapshot * SNAPSHOT_INTERVAL; i < target; i++) {
+                board = apply(board, i);
+            }
+        }
+        List<Integer> changed = new ArrayList<>();
+        current.diff(board, changed);
+        current = board;
+        position = target;
+        return changed;
+    }
+
+    /**
+     * Applies the changes of one recorded move.
+     *
+     * @param board the board before the move
+     * @param move the index of the move
+     * @return the board after it
+     */
+    private PersistentBoard<V> apply(PersistentBoard<V> board, int move) {
+        for (Change<V> change : moves.get(move)) {
+            board = board.set(change.cell(), change.after());
+        }
+        return board;
+    }
+}
@@ -0,0 +1,53 @@
+package puzzles.common;
+
+import java.util.Set;
+
+/**
+ * A typed change to a puzzle model, delivered in batches by an {@link EventQueue}.
+ * Views that observe these events instead of the models' String messages can update
+ * only what an event says changed, and never need to parse a message.
+ *
+ * @author cmp2318
+ */
+public sealed interface ModelEvent {
+    /**
+     * Some cells of the board changed. Deltas in the same batch are merged into one.
+     *
+     * @param cells the cells whose contents changed
+     */
+    record BoardDelta(Set<Coordinates> cells) implements ModelEvent { }
+
+    /**
+     * The selected cell changed. Only the last selection in a batch is kept.
+     *
+     * @param cell the selected cell, or null if nothing is selected
+     */
+    record Selection(Coordinates cell) implements ModelEvent { }
+
+    /**
+     * A solver has seen more configurations. Only the last progress in a batch is kept.
+     *
+     * @param configurations the unique configurations seen so far
+     * @param done true if the solve has finished
+     */
+    record SolveProgress(long configurations, boolean done) implements ModelEvent { }
+
+    /**
+     * The board is now a solution to the puzzle.
+     */
+    record Solved() implements ModelEvent { }
+
+    /**
+     * Something the user asked for could not be done.
+     *
+     * @param message what went wrong
+     */
+    record Error(String message) implements ModelEvent { }
+
+    /**
+     * A status message for the user. Only the last message in a batch is kept.
+     *
+     * @param text the message
+     */
+    record Message(String text) implements ModelEvent { }
+}
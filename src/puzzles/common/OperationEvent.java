@@ -0,0 +1,61 @@
+package puzzles.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one operation of a puzzle model, such as a jump, an undo or a hint,
+ * so that the garbage collections and allocations of a recording can be matched to what the player did.
+ * The event is timed from begin to finish and only committed when a recording has it enabled, so
+ * the models create it on every operation.
+ *
+ * @author cmp2318
+ */
+@Name("puzzles.ModelOperation")
+@Label("Model Operation")
+@Description("An operation of a puzzle model, from when it was called to when it returned")
+@Category({"Puzzles", "Model"})
+@StackTrace(false)
+public class OperationEvent extends Event {
+    /** the puzzle of the model, hoppers or chess */
+    @Label("Model")
+    String model;
+    /** the name of the operation */
+    @Label("Operation")
+    String operation;
+
+    /**
+     * Creates an event that is not timed yet. The models use begin, which also starts it.
+     */
+    private OperationEvent() {
+    }
+
+    /**
+     * Creates an event and starts its timing.
+     *
+     * @param model the puzzle of the model, hoppers or chess
+     * @param operation the name of the operation
+     * @return the started event
+     */
+    public static OperationEvent begin(String model, String operation) {
+        OperationEvent event = new OperationEvent();
+        event.model = model;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops the timing of the event and commits it if a recording has it enabled and it lasted long enough.
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
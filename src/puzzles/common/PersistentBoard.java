@@ -0,0 +1,180 @@
+package puzzles.common;
+
+import java.util.List;
+
+/**
+ * An immutable board of cells that shares structure between versions.
+ * The cells are kept in the leaves of a tree with sixteen children per node;
+ * {@link #set(int, Object)} copies only the nodes on the path to the changed cell
+ * and shares every other node with the old version. A move that changes three cells
+ * of a board therefore costs three short paths instead of a copy of the board, and
+ * {@link #diff(PersistentBoard)} skips every subtree two versions still share.
+ *
+ * @param <V> the type of the contents of a cell
+ *
+ * @author cmp2318
+ */
+public final class PersistentBoard<V> {
+    /** the number of index bits used at each level of the tree */
+    private static final int BITS = 4;
+    /** the number of children of a node */
+    private static final int WIDTH = 1 << BITS;
+    /** the mask for one level of an index */
+    private static final int MASK = WIDTH - 1;
+
+    /** the number of cells */
+    private final int size;
+    /** the number of index bits above the leaves */
+    private final int shift;
+    /** the root node, whose leaves hold the cells */
+    private final Object[] root;
+
+    /**
+     * Creates a version of a board.
+     *
+     * @param size the number of cells
+     * @param shift the number of index bits above the leaves
+     * @param root the root node
+     */
+    private PersistentBoard(int size, int shift, Object[] root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    /**
+     * Creates a board holding the given cells.
+     *
+     * @param cells the contents of every cell, in index order
+     * @param <V> the type of the contents of a cell
+     * @return the board
+     */
+    public static <V> PersistentBoard<V> of(List<V> cells) {
+        int shift = 0;
+        while ((long) WIDTH << shift < cells.size()) {
+            shift += BITS;
+        }
+        return new PersistentBoard<>(cells.size(), shift, build(cells, 0, shift));
+    }
+
+    /**
+     * Builds the node covering the cells from start on at a level of the tree.
+     *
+     * @param cells the contents of every cell
+     * @param start the index of the first cell under the node
+     * @param shift the number of index bits below the node's children
+     * @return the node
+     */
+    private static Object[] build(List<?> cells, int start, int shift) {
+        Object[] node = new Object[WIDTH];
+        for (int i = 0; i < WIDTH; i++) {
+            int first = start + (i << shift);
+            if (first >= cells.size()) {
+                break;
+            }
+            node[i] = shift == 0 ? cells.get(first) : build(cells, first, shift - BITS);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the number of cells.
+     *
+     * @return the size of the board
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the contents of a cell.
+     *
+     * @param index the index of the cell
+     * @return the contents
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int index) {
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (V) node[index & MASK];
+    }
+
+    /**
+     * Returns a version of this board with one cell changed, sharing every node
+     * that is not on the path to that cell.
+     *
+     * @param index the index of the cell
+     * @param value the new contents
+     * @return the new version, or this board if the cell already holds the value
+     */
+    public PersistentBoard<V> set(int index, V value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (value == null ? get(index) == null : value.equals(get(index))) {
+            return this;
+        }
+        return new PersistentBoard<>(size, shift, set(root, shift, index, value));
+    }
+
+    /**
+     * Copies the path from a node down to a cell and changes the cell.
+     *
+     * @param node the node on the path
+     * @param level the number of index bits below the node's children
+     * @param index the index of the cell
+     * @param value the new contents
+     * @return the copy of the node
+     */
+    private static Object[] set(Object[] node, int level, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = set((Object[]) node[child], level - BITS, index, value);
+        }
+        return copy;
+    }
+
+    /**
+     * Finds the cells whose contents differ from another version of the same board.
+     * Subtrees the two versions share are skipped without being looked at, so the
+     * work depends on how many cells changed rather than on the size of the board.
+     *
+     * @param other another version of a board of the same size
+     * @param changed where the indices of the differing cells are added, in order
+     */
+    public void diff(PersistentBoard<V> other, List<Integer> changed) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Boards of different sizes");
+        }
+        diff(root, other.root, shift, 0, changed);
+    }
+
+    /**
+     * Adds the differing cells under two nodes at the same place in the tree.
+     *
+     * @param a the node of this board
+     * @param b the node of the other board
+     * @param level the number of index bits below the nodes' children
+     * @param start the index of the first cell under the nodes
+     * @param changed where the indices of the differing cells are added
+     */
+    private static void diff(Object[] a, Object[] b, int level, int start, List<Integer> changed) {
+        if (a == b) {
+            return;
+        }
+        for (int i = 0; i < WIDTH; i++) {
+            if (level == 0) {
+                if (a[i] == null ? b[i] != null : !a[i].equals(b[i])) {
+                    changed.add(start + i);
+                }
+            } else if (a[i] != b[i]) {
+                diff((Object[]) a[i], (Object[]) b[i], level - BITS, start + (i << level), changed);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package puzzles.common.solver;
+
+/**
+ * A static check that the Solver runs on a configuration before it starts
+ * searching. An analyzer looks only at the starting configuration and tries
+ * to prove that no solution can ever be reached from it, so that provably
+ * unsolvable puzzles are rejected without exploring their whole state space.
+ * Analyzers are registered per puzzle type with
+ * {@link Solver#addAnalyzer(Class, Analyzer)}.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public interface Analyzer {
+    /**
+     * Checks whether the given configuration is provably unsolvable
+     * @param config Configuration that is about to be solved
+     * @return String describing the rule that fired, or null if nothing could be proven
+     */
+    String analyze(Configuration config);
+}
@@ -0,0 +1,75 @@
+package puzzles.common.solver;
+
+import java.util.Locale;
+
+/**
+ * The result of a search that stopped because it ran into a limit of its {@link SearchBudget},
+ * with the counts and timings it had gathered. The search returned an empty path, which in this
+ * case says nothing about whether the configuration has a solution.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class BudgetExceeded {
+    /**
+     * placeholder for limit of type Limit, the limit the search ran into
+     */
+    private final SearchBudget.Limit limit;
+    /**
+     * placeholder for budget of type long, the value of that limit, in configurations, bytes or milliseconds
+     */
+    private final long budget;
+    /**
+     * placeholder for metrics of type SearchMetrics, the counts and timings of the search when it stopped
+     */
+    private final SearchMetrics metrics;
+
+    /**
+     * Creates the result of a search that ran into a limit
+     * @param limit Limit, the limit the search ran into
+     * @param budget long, the value of that limit
+     * @param metrics SearchMetrics, the counts and timings of the search
+     */
+    BudgetExceeded(SearchBudget.Limit limit, long budget, SearchMetrics metrics) {
+        this.limit = limit;
+        this.budget = budget;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the limit the search ran into
+     * @return Limit
+     */
+    public SearchBudget.Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Get the value of the limit the search ran into
+     * @return long, in configurations expanded, bytes of visited set or milliseconds
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Get the counts and timings of the search, which are final once the search has returned
+     * @return SearchMetrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Describes the limit the search ran into and how far it got
+     * @return String, such as "budget of 1000000 expanded states exceeded after 1000000 unique states"
+     */
+    @Override
+    public String toString() {
+        String what = switch (limit) {
+            case EXPANSIONS -> budget + " expanded states";
+            case VISITED_BYTES -> String.format(Locale.ROOT, "%.1f MB of visited states", budget / (double) (1 << 20));
+            case TIME -> String.format(Locale.ROOT, "%.1f s", budget / 1000.0);
+        };
+        return "budget of " + what + " exceeded after " + metrics.unique + " unique states";
+    }
+}
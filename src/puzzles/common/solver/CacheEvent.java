@@ -0,0 +1,36 @@
+package puzzles.common.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one lookup in a SolutionCache, telling whether a hint could be
+ * answered without a search
+ * @author Jose Thomas Diaz jtd4400
+ */
+@Name("puzzles.CacheLookup")
+@Label("Cache Lookup")
+@Description("A lookup of a configuration in a hint cache")
+@Category({"Puzzles", "Solver"})
+@StackTrace(false)
+class CacheEvent extends Event {
+    /**
+     * placeholder for puzzle of type String, the type of the configuration looked up
+     */
+    @Label("Puzzle")
+    String puzzle;
+    /**
+     * placeholder for hit of type boolean, whether the configuration was cached
+     */
+    @Label("Hit")
+    boolean hit;
+    /**
+     * placeholder for size of type int, the configurations cached at the time
+     */
+    @Label("Size")
+    int size;
+}
@@ -0,0 +1,168 @@
+package puzzles.common.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The state of a breadth-first search written to disk, so that a search that is stopped or crashes can
+ * go on from where it was instead of starting over.
+ * <p>
+ * Every configuration the search has visited is one record of its {@link ConfigurationCodec}, in the
+ * order the search found them, followed by the index of the record of its predecessor, or -1 for the start,
+ * and with macro moves by its number of moves, which is not its layer when a stored edge is several moves.
+ * The search expands configurations in the order it finds them, so the frontier is the last records and
+ * only its length is stored. A header holds the layer being expanded and the counts of the search, and the
+ * file starts with a magic number and a version so that anything else is refused.
+ * A checkpoint is written to a file next to the real one and then moved over it, so a crash while
+ * writing leaves the previous checkpoint whole.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+class Checkpoint {
+    /**
+     * placeholder for MAGIC of type int, the first four bytes of a checkpoint, BFSC in ASCII
+     */
+    private static final int MAGIC = 0x42465343;
+    /**
+     * placeholder for VERSION of type int, the version of the format
+     */
+    private static final int VERSION = 2;
+    /**
+     * placeholder for BUFFER of type int, the size of the buffers of the file streams
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * placeholder for macroMoves of type boolean, whether the search collapsed chains of forced moves
+     */
+    final boolean macroMoves;
+    /**
+     * placeholder for depth of type int, the layer being expanded
+     */
+    final int depth;
+    /**
+     * placeholder for layerLeft of type long, the configurations of that layer still in the frontier
+     */
+    final long layerLeft;
+    /**
+     * placeholder for nextLayer of type long, the configurations of the next layer in the frontier
+     */
+    final long nextLayer;
+    /**
+     * placeholder for visited of type Configuration[], the visited configurations in the order they were found, set when read
+     */
+    Configuration[] visited;
+    /**
+     * placeholder for parents of type int[], the index of the predecessor of every visited configuration, -1 for the start
+     */
+    int[] parents;
+    /**
+     * placeholder for moves of type int[], the number of moves to every visited configuration, set when read with macro moves
+     */
+    int[] moves;
+    /**
+     * placeholder for frontier of type int, the number of visited configurations at the end that were not expanded yet
+     */
+    int frontier;
+
+    /**
+     * Creates the header of a checkpoint
+     * @param macroMoves boolean, whether the search collapsed chains of forced moves
+     * @param depth int, the layer being expanded
+     * @param layerLeft long, the configurations of that layer still in the frontier
+     * @param nextLayer long, the configurations of the next layer in the frontier
+     */
+    Checkpoint(boolean macroMoves, int depth, long layerLeft, long nextLayer) {
+        this.macroMoves = macroMoves;
+        this.depth = depth;
+        this.layerLeft = layerLeft;
+        this.nextLayer = nextLayer;
+    }
+
+    /**
+     * Writes a checkpoint, replacing the one in the file if there is one
+     * @param file Path, the checkpoint file
+     * @param codec ConfigurationCodec, the codec of the configurations of the search
+     * @param predecessors Map<Configuration, Configuration>, every visited configuration and its predecessor,
+     *                     iterating in the order they were found, with every predecessor a key of the map itself
+     * @param moveDepths Map<Configuration, Integer>, the number of moves to every visited configuration, used with macro moves
+     * @param frontier int, the number of visited configurations at the end that were not expanded yet
+     * @param metrics SearchMetrics, the counts and timings of the search
+     * @throws IOException if the checkpoint cannot be written
+     */
+    void write(Path file, ConfigurationCodec codec, Map<Configuration, Configuration> predecessors,
+               Map<Configuration, Integer> moveDepths, int frontier, SearchMetrics metrics) throws IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        IdentityHashMap<Configuration, Integer> indices = new IdentityHashMap<>(predecessors.size());
+        byte[] record = new byte[codec.size()];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(part), BUFFER))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(codec.size());
+            out.writeBoolean(macroMoves);
+            out.writeInt(depth);
+            out.writeLong(layerLeft);
+            out.writeLong(nextLayer);
+            metrics.write(out);
+            out.writeInt(predecessors.size());
+            out.writeInt(frontier);
+            for (Map.Entry<Configuration, Configuration> entry : predecessors.entrySet()) {
+                codec.encode(entry.getKey(), record);
+                out.write(record);
+                out.writeInt(entry.getValue() == null ? -1 : indices.get(entry.getValue()));
+                if (macroMoves) {
+                    out.writeInt(moveDepths.get(entry.getKey()));
+                }
+                indices.put(entry.getKey(), indices.size());
+            }
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint, restoring the counts and timings of the search it was written by
+     * @param file Path, the checkpoint file
+     * @param codec ConfigurationCodec, the codec of the configurations of the search
+     * @param metrics SearchMetrics, overwritten with the counts and timings of the checkpoint
+     * @return Checkpoint, with the visited configurations, their predecessors and the length of the frontier
+     * @throws IOException if the file cannot be read or is not a checkpoint written with that codec
+     */
+    static Checkpoint read(Path file, ConfigurationCodec codec, SearchMetrics metrics) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a checkpoint of this version");
+            }
+            if (in.readInt() != codec.size()) {
+                throw new IOException(file + " is a checkpoint of another puzzle");
+            }
+            Checkpoint checkpoint = new Checkpoint(in.readBoolean(), in.readInt(), in.readLong(), in.readLong());
+            metrics.read(in);
+            int count = in.readInt();
+            checkpoint.frontier = in.readInt();
+            checkpoint.visited = new Configuration[count];
+            checkpoint.parents = new int[count];
+            checkpoint.moves = checkpoint.macroMoves ? new int[count] : null;
+            byte[] record = new byte[codec.size()];
+            for (int i = 0; i < count; i++) {
+                in.readFully(record);
+                checkpoint.visited[i] = codec.decode(record);
+                checkpoint.parents[i] = in.readInt();
+                if (checkpoint.parents[i] < -1 || checkpoint.parents[i] >= i) {
+                    throw new IOException(file + " is damaged: record " + i + " has predecessor " + checkpoint.parents[i]);
+                }
+                if (checkpoint.moves != null) {
+                    checkpoint.moves[i] = in.readInt();
+                }
+            }
+            return checkpoint;
+        }
+    }
+}
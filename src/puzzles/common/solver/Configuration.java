@@ -8,4 +8,13 @@ public interface Configuration {
     boolean equals(Object other);
     int hashCode();
     String toString();
+
+    /**
+     * Get an estimate of the heap this configuration takes, which a search adds up to enforce the
+     * visited-set limit of a {@link SearchBudget}. Configurations that know their layout should override it
+     * @return long, in bytes
+     */
+    default long estimateBytes() {
+        return 64;
+    }
 }
@@ -0,0 +1,32 @@
+package puzzles.common.solver;
+
+/**
+ * Turns the configurations reachable from one starting configuration into records of a fixed number
+ * of bytes and back, so that a search can write its frontier and visited set to a checkpoint.
+ * A codec is made for each search from its starting configuration, so it only has to store what can
+ * change: the dimensions and the cells no move can reach are known from the start.
+ * Codecs are registered per puzzle type with {@link Solver#addCodec(Class, java.util.function.Function)}.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public interface ConfigurationCodec {
+    /**
+     * Get the number of bytes of every record
+     * @return int
+     */
+    int size();
+
+    /**
+     * Writes a configuration into a record
+     * @param config Configuration, a configuration reachable from the starting one
+     * @param record byte[], a buffer of {@link #size()} bytes, overwritten
+     */
+    void encode(Configuration config, byte[] record);
+
+    /**
+     * Reads a configuration back from a record
+     * @param record byte[], a record written by encode
+     * @return Configuration, a configuration equal to the one encoded
+     */
+    Configuration decode(byte[] record);
+}
@@ -0,0 +1,203 @@
+package puzzles.common.solver;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Solves a SearchBoard with an iterative depth-first search that makes and takes back moves
+ * on the one board it is given. Move lists live in one preallocated buffer per depth and the
+ * positions that were searched without finding a solution are remembered only by their 64-bit
+ * hash, so the search itself allocates nothing but the growth of that hash set. Configurations
+ * are only created, with {@link SearchBoard#freeze()}, for the path that is returned.
+ * The search needs every sequence of moves to be finite, which holds when every move removes
+ * a piece, and then also finds a shortest path when every solution has the same length.
+ * A hash collision could make it skip a position that was never searched; with 64-bit hashes
+ * that is negligible for boards of the sizes the puzzles use.
+ * The search counts into a {@link SearchMetrics}, where the frontier is the stack of positions
+ * from the start to the one being searched and the visited set is the set of dead hashes.
+ * Only the whole search and the path are timed, so that the inner loop stays free of clock reads.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class DepthFirstSolver {
+    /**
+     * placeholder for board of type SearchBoard, the one board the search changes
+     */
+    private final SearchBoard board;
+    /**
+     * placeholder for moves of type int[][], the moves found at each depth
+     */
+    private final int[][] moves;
+    /**
+     * placeholder for counts of type int[], the number of moves found at each depth
+     */
+    private final int[] counts;
+    /**
+     * placeholder for next of type int[], the index of the next move to try at each depth
+     */
+    private final int[] next;
+    /**
+     * placeholder for dead of type LongHashSet, the hashes of positions that lead to no solution
+     */
+    private final LongHashSet dead = new LongHashSet(1 << 16);
+    /**
+     * placeholder for cancelled of type boolean, set from another thread to stop the search
+     */
+    private volatile boolean cancelled;
+    /**
+     * placeholder for metrics of type SearchMetrics, the counts of the search, in which the starting position is already counted
+     */
+    private final SearchMetrics metrics;
+    /**
+     * placeholder for budget of type SearchBudget, the limits of the search
+     */
+    private SearchBudget budget = SearchBudget.UNLIMITED;
+    /**
+     * placeholder for exceeded of type BudgetExceeded, the limit the search ran into, or null
+     */
+    private BudgetExceeded exceeded;
+
+    /**
+     * Creates a solver for a board, allocating all the buffers the search will need
+     * @param board SearchBoard, the board to solve from its current position
+     */
+    public DepthFirstSolver(SearchBoard board) {
+        this(board, new SearchMetrics());
+        metrics.generated++;
+        metrics.unique++;
+        metrics.addStates(0, 1);
+    }
+
+    /**
+     * Creates a solver for a board that counts into the metrics of another search, which has already counted the starting position
+     * @param board SearchBoard, the board to solve from its current position
+     * @param metrics SearchMetrics, the metrics to count into
+     */
+    DepthFirstSolver(SearchBoard board, SearchMetrics metrics) {
+        this.board = board;
+        this.metrics = metrics;
+        int depth = board.maxDepth() + 1;
+        this.moves = new int[depth][board.maxMoves()];
+        this.counts = new int[depth];
+        this.next = new int[depth];
+    }
+
+    /**
+     * Get the total number of positions generated by the search, counting the starting position
+     * @return long
+     */
+    public long getTotal() {
+        return metrics.generated;
+    }
+
+    /**
+     * Get the number of positions the search generated moves for
+     * @return long
+     */
+    public long getUnique() {
+        return metrics.unique;
+    }
+
+    /**
+     * Get the counts and timings of the search
+     * @return SearchMetrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops the search as soon as the searching thread next checks, which it does once per move.
+     * A cancelled search returns an empty path and still leaves the board in its starting position.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Sets the limits of the search. The visited set is the table of dead hashes, and the time is read
+     * every {@link SearchBudget#CLOCK_INTERVAL} positions, so the inner loop stays free of clock reads
+     * @param budget SearchBudget, the limits, SearchBudget.UNLIMITED for none
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Get the limit of its budget the search ran into
+     * @return BudgetExceeded, with the counts gathered until the search stopped, or null if it was not stopped by its budget
+     */
+    public BudgetExceeded getExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * Searches the board for a solution. The board is back in its starting position afterwards.
+     * @return List<Configuration> that represents the path found, empty if there is no solution, it was cancelled or it ran out of budget
+     */
+    public List<Configuration> search() {
+        long start = System.nanoTime();
+        int base = board.depth();
+        int ply = 0;
+        counts[0] = board.isSolution() ? 0 : board.generateMoves(moves[0]);
+        next[0] = 0;
+        metrics.generated += counts[0];
+        metrics.expansions++;
+        metrics.peakFrontier = Math.max(metrics.peakFrontier, 1);
+        metrics.visitedBytes = dead.bytes();
+        boolean limited = budget != SearchBudget.UNLIMITED;
+        boolean solved = board.isSolution();
+        while (!solved && ply >= 0 && !cancelled && exceeded == null) {
+            if (next[ply] < counts[ply]) {
+                board.makeMove(moves[ply][next[ply]++]);
+                if (board.isSolution()) {
+                    solved = true;
+                } else if (dead.contains(board.hash())) {
+                    metrics.duplicates++;
+                    board.unmakeMove();
+                } else {
+                    ply++;
+                    metrics.unique++;
+                    metrics.expansions++;
+                    metrics.addStates(ply, 1);
+                    if (ply >= metrics.peakFrontier) {
+                        metrics.peakFrontier = ply + 1;
+                    }
+                    counts[ply] = board.generateMoves(moves[ply]);
+                    next[ply] = 0;
+                    metrics.generated += counts[ply];
+                    if (limited) {
+                        exceeded = budget.check(metrics, start);
+                    }
+                }
+            } else {
+                dead.add(board.hash());
+                metrics.peakVisited = dead.size();
+                metrics.visitedBytes = dead.bytes();
+                if (ply > 0) {
+                    board.unmakeMove();
+                }
+                ply--;
+            }
+        }
+
+        long built = System.nanoTime();
+        List<Configuration> path = new LinkedList<>();
+        if (!solved) {
+            while (board.depth() > base) {
+                board.unmakeMove();
+            }
+        } else {
+            path.add(board.freeze());
+            while (board.depth() > base) {
+                board.unmakeMove();
+                path.add(0, board.freeze());
+            }
+        }
+        long end = System.nanoTime();
+        metrics.pathNanos += end - built;
+        metrics.elapsedNanos += end - start;
+        return path;
+    }
+}
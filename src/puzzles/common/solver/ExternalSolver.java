@@ -0,0 +1,645 @@
+package puzzles.common.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Solves a configuration with a breadth-first search that keeps its layers on disk instead of in a
+ * predecessor map, for state spaces larger than the heap. Configurations are records of the
+ * {@link ConfigurationCodec} of the puzzle, and every layer is one file of sorted, distinct records.
+ * <p>
+ * A layer is read in large sequential blocks and the neighbors of its configurations are collected in a
+ * sort buffer of a fixed number of records. Whenever the buffer is full it is sorted, its duplicates are
+ * dropped and it is written out as a run file. Duplicates are only detected once the layer is done, as in
+ * delayed duplicate detection: the runs are merged into the next layer, which drops the records that are in
+ * several runs and, by merging the files of the earlier layers alongside, those that were already visited.
+ * More runs than {@link #MAX_FAN_IN} are first merged into fewer, so the number of open files stays bounded.
+ * The heap taken is the sort buffer and one block per open file, whatever the size of the layers.
+ * <p>
+ * No predecessors are stored, so the path is found once a solution is reached by reading the layers again
+ * from the last to the first and taking a configuration of each that has the next step as a neighbor.
+ * The files are made in a directory of their own under the given one, which is made first if it is missing;
+ * the directory of the search is deleted when it ends.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class ExternalSolver {
+    /**
+     * placeholder for DEFAULT_BUFFER_RECORDS of type int, the records of the sort buffer unless another number is given
+     */
+    public static final int DEFAULT_BUFFER_RECORDS = 1 << 22;
+    /**
+     * placeholder for MAX_FAN_IN of type int, the most runs merged at once
+     */
+    static final int MAX_FAN_IN = 64;
+    /**
+     * placeholder for BLOCK of type int, the bytes read or written at once from every file
+     */
+    private static final int BLOCK = 1 << 20;
+    /**
+     * placeholder for INSERTION of type int, the ranges the sort leaves to an insertion sort
+     */
+    private static final int INSERTION = 16;
+
+    /**
+     * placeholder for start of type Configuration, the configuration being solved
+     */
+    private final Configuration start;
+    /**
+     * placeholder for codec of type ConfigurationCodec, the codec of the records
+     */
+    private final ConfigurationCodec codec;
+    /**
+     * placeholder for size of type int, the bytes of a record
+     */
+    private final int size;
+    /**
+     * placeholder for directory of type Path, where the directory of the files of the search is made
+     */
+    private final Path directory;
+    /**
+     * placeholder for buffer of type byte[], the sort buffer of neighbor records
+     */
+    private final byte[] buffer;
+    /**
+     * placeholder for order of type int[], the indices of the records of the sort buffer, in sorted order once sorted
+     */
+    private final int[] order;
+    /**
+     * placeholder for buffered of type int, the records in the sort buffer
+     */
+    private int buffered;
+    /**
+     * placeholder for metrics of type SearchMetrics, the counts of the search, in which the start is already counted
+     */
+    private final SearchMetrics metrics;
+    /**
+     * placeholder for budget of type SearchBudget, the limits of the search
+     */
+    private SearchBudget budget = SearchBudget.UNLIMITED;
+    /**
+     * placeholder for exceeded of type BudgetExceeded, the limit the search ran into, or null
+     */
+    private BudgetExceeded exceeded;
+    /**
+     * placeholder for cancelled of type boolean, set from another thread to stop the search
+     */
+    private volatile boolean cancelled;
+    /**
+     * placeholder for files of type Path, the directory of the layers and runs of this search
+     */
+    private Path files;
+    /**
+     * placeholder for count of type int, the number of files made so far, used to name the next one
+     */
+    private int count;
+
+    /**
+     * Creates a solver for a configuration
+     * @param start Configuration, the configuration to solve
+     * @param codec ConfigurationCodec, the codec of the configurations reachable from it
+     * @param directory Path, where the files of the search are kept
+     * @param bufferRecords int, the records of the sort buffer
+     */
+    public ExternalSolver(Configuration start, ConfigurationCodec codec, Path directory, int bufferRecords) {
+        this(start, codec, directory, bufferRecords, new SearchMetrics());
+        metrics.generated++;
+        metrics.unique++;
+        metrics.peakVisited = 1;
+        metrics.peakFrontier = 1;
+        metrics.addStates(0, 1);
+    }
+
+    /**
+     * Creates a solver that counts into the metrics of another search, which has already counted the start
+     * @param start Configuration, the configuration to solve
+     * @param codec ConfigurationCodec, the codec of the configurations reachable from it
+     * @param directory Path, where the files of the search are kept
+     * @param bufferRecords int, the records of the sort buffer
+     * @param metrics SearchMetrics, the metrics to count into
+     */
+    ExternalSolver(Configuration start, ConfigurationCodec codec, Path directory, int bufferRecords, SearchMetrics metrics) {
+        this.start = start;
+        this.codec = codec;
+        this.size = codec.size();
+        this.directory = directory;
+        this.buffer = new byte[Math.multiplyExact(bufferRecords, size)];
+        this.order = new int[bufferRecords];
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the counts and timings of the search
+     * @return SearchMetrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops the search as soon as the searching thread next checks, which it does once per configuration expanded.
+     * May be called from any thread
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Sets the limits of the search. The visited set is on disk, so the limit on its bytes is checked against the
+     * heap of the sort buffer
+     * @param budget SearchBudget, the limits, SearchBudget.UNLIMITED for none
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Get the limit of its budget the search ran into
+     * @return BudgetExceeded, with the counts gathered until the search stopped, or null if it was not stopped by its budget
+     */
+    public BudgetExceeded getExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * Searches for a solution one layer at a time
+     * @return List<Configuration> that represents the path found, empty if there is no solution, it was cancelled or it ran out of budget
+     * @throws UncheckedIOException if the files of the search cannot be written or read
+     */
+    public List<Configuration> search() {
+        long started = System.nanoTime();
+        metrics.visitedBytes = buffer.length + 4L * order.length;
+        try {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IOException("Cannot make the directory " + directory + " for the search files", e);
+            }
+            files = Files.createTempDirectory(directory, "bfs-");
+            List<Path> layers = new ArrayList<>();
+            Path first = next("layer");
+            byte[] record = new byte[size];
+            codec.encode(start, record);
+            try (RecordWriter out = new RecordWriter(first)) {
+                out.write(record, 0);
+            }
+            layers.add(first);
+            long total = 1;
+            while (true) {
+                List<Path> runs = new ArrayList<>();
+                long generated = metrics.generated;
+                byte[] goal = expand(layers.get(layers.size() - 1), runs, started);
+                if (goal != null) {
+                    return path(layers, goal);
+                }
+                if (cancelled || exceeded != null || runs.isEmpty()) {
+                    return new LinkedList<>();
+                }
+                long begin = System.nanoTime();
+                while (runs.size() > MAX_FAN_IN) {
+                    Path merged = next("run");
+                    merge(runs.subList(0, MAX_FAN_IN), List.of(), merged);
+                    runs.subList(0, MAX_FAN_IN).clear();
+                    runs.add(merged);
+                }
+                Path layer = next("layer");
+                long found = merge(runs, layers, layer);
+                metrics.hashNanos += System.nanoTime() - begin;
+                if (found == 0) {
+                    return new LinkedList<>();
+                }
+                layers.add(layer);
+                total += found;
+                metrics.duplicates += metrics.generated - generated - found;
+                metrics.unique += found;
+                metrics.addStates(layers.size() - 1, found);
+                metrics.peakFrontier = Math.max(metrics.peakFrontier, found);
+                metrics.peakVisited = total;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            delete();
+            metrics.elapsedNanos += System.nanoTime() - started;
+        }
+    }
+
+    /**
+     * Expands every configuration of a layer into sorted runs of its neighbors
+     * @param layer Path, the file of the layer
+     * @param runs List<Path>, the run files, added to
+     * @param started long, the System.nanoTime() the search started at
+     * @return byte[], the record of a solution in the layer, or null if there is none
+     * @throws IOException if a file cannot be read or written
+     */
+    private byte[] expand(Path layer, List<Path> runs, long started) throws IOException {
+        byte[] record = new byte[size];
+        long generated = 0;
+        try (RecordReader in = new RecordReader(layer)) {
+            while (in.next()) {
+                if (cancelled) {
+                    return null;
+                }
+                if (budget != SearchBudget.UNLIMITED && (exceeded = budget.check(metrics, started)) != null) {
+                    return null;
+                }
+                Configuration config = codec.decode(in.record);
+                metrics.expansions++;
+                if (config.isSolution()) {
+                    return in.record.clone();
+                }
+                long begin = System.nanoTime();
+                for (Configuration neighbor : config.getNeighbors()) {
+                    codec.encode(neighbor, record);
+                    if (buffered == order.length) {
+                        runs.add(flush());
+                    }
+                    System.arraycopy(record, 0, buffer, buffered * size, size);
+                    order[buffered] = buffered;
+                    buffered++;
+                    generated++;
+                }
+                metrics.neighborNanos += System.nanoTime() - begin;
+            }
+        }
+        if (buffered > 0) {
+            runs.add(flush());
+        }
+        metrics.generated += generated;
+        return null;
+    }
+
+    /**
+     * Sorts the sort buffer and writes its distinct records to a new run file, emptying the buffer
+     * @return Path, the run file
+     * @throws IOException if the file cannot be written
+     */
+    private Path flush() throws IOException {
+        long begin = System.nanoTime();
+        sort(0, buffered);
+        Path run = next("run");
+        try (RecordWriter out = new RecordWriter(run)) {
+            int previous = -1;
+            for (int i = 0; i < buffered; i++) {
+                int offset = order[i] * size;
+                if (previous < 0 || compare(previous, offset) != 0) {
+                    out.write(buffer, offset);
+                    previous = offset;
+                }
+            }
+        }
+        buffered = 0;
+        metrics.hashNanos += System.nanoTime() - begin;
+        return run;
+    }
+
+    /**
+     * Merges sorted run files into one file of their distinct records, leaving out those in any of the
+     * files that were already visited, and deletes the runs
+     * @param runs List<Path>, the sorted run files
+     * @param seen List<Path>, the sorted files of records already visited
+     * @param out Path, the merged file
+     * @return long, the number of records written
+     * @throws IOException if a file cannot be read or written
+     */
+    private long merge(List<Path> runs, List<Path> seen, Path out) throws IOException {
+        Comparator<RecordReader> byRecord = (a, b) -> Arrays.compareUnsigned(a.record, b.record);
+        PriorityQueue<RecordReader> heads = new PriorityQueue<>(Math.max(runs.size(), 1), byRecord);
+        List<RecordReader> readers = new ArrayList<>();
+        long written = 0;
+        try (RecordWriter writer = new RecordWriter(out)) {
+            for (Path run : runs) {
+                RecordReader reader = new RecordReader(run);
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+            List<RecordReader> visited = new ArrayList<>();
+            for (Path file : seen) {
+                RecordReader reader = new RecordReader(file);
+                readers.add(reader);
+                if (reader.next()) {
+                    visited.add(reader);
+                }
+            }
+            byte[] last = null;
+            while (!heads.isEmpty()) {
+                RecordReader head = heads.poll();
+                byte[] record = head.record;
+                if (last == null || Arrays.compareUnsigned(last, record) != 0) {
+                    if (!contains(visited, record)) {
+                        writer.write(record, 0);
+                        written++;
+                    }
+                    last = last == null ? record.clone() : copy(record, last);
+                }
+                if (head.next()) {
+                    heads.add(head);
+                }
+            }
+        } finally {
+            for (RecordReader reader : readers) {
+                reader.close();
+            }
+        }
+        for (Path run : runs) {
+            Files.delete(run);
+        }
+        return written;
+    }
+
+    /**
+     * Checks if a record is in any of the sorted files of visited records, advancing each past the smaller records.
+     * The records asked about must come in increasing order
+     * @param visited List<RecordReader>, the files, each at its first record not smaller than the last one asked about; exhausted files are removed
+     * @param record byte[], the record
+     * @return boolean, true if one of the files has it
+     * @throws IOException if a file cannot be read
+     */
+    private static boolean contains(List<RecordReader> visited, byte[] record) throws IOException {
+        boolean found = false;
+        for (int i = visited.size() - 1; i >= 0; i--) {
+            RecordReader reader = visited.get(i);
+            int cmp;
+            while ((cmp = Arrays.compareUnsigned(reader.record, record)) < 0) {
+                if (!reader.next()) {
+                    visited.remove(i);
+                    break;
+                }
+            }
+            if (cmp == 0) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Builds the path to a solution by finding, in every layer from the last to the first, a configuration
+     * that has the next step of the path as a neighbor
+     * @param layers List<Path>, the layer files, the last one holding the solution
+     * @param goal byte[], the record of the solution
+     * @return List<Configuration>, the path from the start to the solution
+     * @throws IOException if a layer cannot be read
+     */
+    private List<Configuration> path(List<Path> layers, byte[] goal) throws IOException {
+        long begin = System.nanoTime();
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.add(codec.decode(goal));
+        byte[] target = goal;
+        byte[] record = new byte[size];
+        for (int layer = layers.size() - 2; layer >= 0; layer--) {
+            byte[] found = null;
+            try (RecordReader in = new RecordReader(layers.get(layer))) {
+                while (found == null && in.next()) {
+                    for (Configuration neighbor : codec.decode(in.record).getNeighbors()) {
+                        codec.encode(neighbor, record);
+                        if (Arrays.equals(record, target)) {
+                            found = in.record.clone();
+                            break;
+                        }
+                    }
+                }
+            }
+            if (found == null) {
+                throw new IOException("Layer " + layer + " has no predecessor of the path");
+            }
+            path.addFirst(codec.decode(found));
+            target = found;
+        }
+        path.set(0, start);
+        metrics.pathNanos += System.nanoTime() - begin;
+        return path;
+    }
+
+    /**
+     * Sorts the indices of the records of the sort buffer between two positions with a three-way quicksort,
+     * which keeps the many equal neighbors of a layer from making it quadratic
+     * @param from int, the first position
+     * @param to int, the position after the last
+     */
+    private void sort(int from, int to) {
+        while (to - from > INSERTION) {
+            int pivot = order[from + (to - from) / 2] * size;
+            int less = from;
+            int greater = to;
+            int i = from;
+            while (i < greater) {
+                int cmp = compare(order[i] * size, pivot);
+                if (cmp < 0) {
+                    swap(less++, i++);
+                } else if (cmp > 0) {
+                    swap(i, --greater);
+                } else {
+                    i++;
+                }
+            }
+            if (less - from < to - greater) {
+                sort(from, less);
+                from = greater;
+            } else {
+                sort(greater, to);
+                to = less;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            int index = order[i];
+            int j = i;
+            while (j > from && compare(order[j - 1] * size, index * size) > 0) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = index;
+        }
+    }
+
+    /**
+     * Compares two records of the sort buffer as unsigned bytes
+     * @param a int, the offset of the first record
+     * @param b int, the offset of the second record
+     * @return int, negative, zero or positive as the first is smaller than, equal to or larger than the second
+     */
+    private int compare(int a, int b) {
+        return Arrays.compareUnsigned(buffer, a, a + size, buffer, b, b + size);
+    }
+
+    /**
+     * Swaps two indices of the sort order
+     * @param i int, the first position
+     * @param j int, the second position
+     */
+    private void swap(int i, int j) {
+        int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+    }
+
+    /**
+     * Copies a record into another array of the same size
+     * @param from byte[], the record
+     * @param to byte[], the array, overwritten
+     * @return byte[], the array
+     */
+    private static byte[] copy(byte[] from, byte[] to) {
+        System.arraycopy(from, 0, to, 0, from.length);
+        return to;
+    }
+
+    /**
+     * Names the next file of the search
+     * @param kind String, what the file holds, layer or run
+     * @return Path, a file in the directory of the search that does not exist yet
+     */
+    private Path next(String kind) {
+        return files.resolve(kind + "-" + count++ + ".bin");
+    }
+
+    /**
+     * Deletes the directory of the search and every file in it
+     */
+    private void delete() {
+        if (files == null) {
+            return;
+        }
+        try (Stream<Path> list = Files.list(files)) {
+            for (Path file : (Iterable<Path>) list::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(files);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes records to a file a block at a time
+     */
+    private class RecordWriter implements Closeable {
+        /**
+         * placeholder for channel of type FileChannel, the file
+         */
+        private final FileChannel channel;
+        /**
+         * placeholder for block of type ByteBuffer, the records not written yet
+         */
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK - BLOCK % size);
+
+        /**
+         * Creates a file to write records to
+         * @param file Path, the file, which must not exist
+         * @throws IOException if it cannot be created
+         */
+        RecordWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Writes a record
+         * @param data byte[], the array holding the record
+         * @param offset int, where the record starts in it
+         * @throws IOException if the block cannot be written
+         */
+        void write(byte[] data, int offset) throws IOException {
+            if (block.remaining() < size) {
+                flush();
+            }
+            block.put(data, offset, size);
+        }
+
+        /**
+         * Writes the records of the block to the file
+         * @throws IOException if they cannot be written
+         */
+        private void flush() throws IOException {
+            block.flip();
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            block.clear();
+        }
+
+        /**
+         * Writes the last records and closes the file
+         * @throws IOException if they cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the records of a file in order, a block at a time
+     */
+    private class RecordReader implements Closeable {
+        /**
+         * placeholder for channel of type FileChannel, the file
+         */
+        private final FileChannel channel;
+        /**
+         * placeholder for block of type ByteBuffer, the records read and not taken yet
+         */
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK - BLOCK % size);
+        /**
+         * placeholder for record of type byte[], the current record
+         */
+        final byte[] record = new byte[size];
+
+        /**
+         * Opens a file of records, before its first record
+         * @param file Path, the file
+         * @throws IOException if it cannot be opened
+         */
+        RecordReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            block.flip();
+        }
+
+        /**
+         * Moves to the next record
+         * @return boolean, true if there was one, false at the end of the file
+         * @throws IOException if the file cannot be read
+         */
+        boolean next() throws IOException {
+            if (block.remaining() < size) {
+                block.compact();
+                while (block.hasRemaining() && channel.read(block) >= 0) {
+                    // keep reading until the block is full or the file ends
+                }
+                block.flip();
+                if (block.remaining() < size) {
+                    return false;
+                }
+            }
+            block.get(record);
+            return true;
+        }
+
+        /**
+         * Closes the file
+         * @throws IOException if it cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package puzzles.common.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the expansion of one BFS layer, timed from the first configuration of
+ * the layer taken off the queue to the first of the next, so that the memory a recording shows
+ * growing can be matched to the layer that grew it.
+ * @author Jose Thomas Diaz jtd4400
+ */
+@Name("puzzles.SolveLayer")
+@Label("Solve Layer")
+@Description("The expansion of one layer of a breadth-first search")
+@Category({"Puzzles", "Solver"})
+@StackTrace(false)
+class LayerEvent extends Event {
+    /**
+     * placeholder for depth of type int, the depth of the layer
+     */
+    @Label("Depth")
+    int depth;
+    /**
+     * placeholder for expanded of type long, the configurations of the layer that were expanded
+     */
+    @Label("Expanded")
+    long expanded;
+    /**
+     * placeholder for discovered of type long, the configurations queued for the next layer
+     */
+    @Label("Discovered")
+    long discovered;
+}
@@ -0,0 +1,130 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs using open addressing, so that adding a hash does not allocate
+ * an object the way a HashSet of Long does. Only growing the table allocates.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class LongHashSet {
+    /**
+     * placeholder for table of type long[], the slots of the set; 0 marks an empty slot
+     */
+    private long[] table;
+    /**
+     * placeholder for size of type int, the number of values in the table
+     */
+    private int size;
+    /**
+     * placeholder for hasZero of type boolean, whether 0 is in the set since it cannot be stored in the table
+     */
+    private boolean hasZero;
+
+    /**
+     * Creates a set with room for the given number of values before it grows
+     * @param capacity int, the expected number of values
+     */
+    public LongHashSet(int capacity) {
+        table = new long[Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) * 2];
+    }
+
+    /**
+     * Get the number of values in the set
+     * @return int
+     */
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    /**
+     * Get the heap taken by the table of the set
+     * @return long, in bytes
+     */
+    public long bytes() {
+        return 16 + 8L * table.length;
+    }
+
+    /**
+     * Checks if a value is in the set
+     * @param value long
+     * @return boolean, true if it is
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return hasZero;
+        }
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a value to the set
+     * @param value long
+     * @return boolean, true if the value was not in the set before
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        int mask = table.length - 1;
+        int i = slot(value, mask);
+        while (table[i] != 0) {
+            if (table[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        if (++size * 2 > table.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Removes every value from the set, keeping the table
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        hasZero = false;
+    }
+
+    /**
+     * Doubles the table and puts every value back
+     */
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int i = slot(value, mask);
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+
+    /**
+     * Finds the first slot to try for a value
+     * @param value long
+     * @param mask int, the table length minus one
+     * @return int
+     */
+    private static int slot(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,36 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * A Configuration whose neighbors are produced by explicit moves.
+ * Knowing the moves lets the Solver tell when two moves are independent,
+ * meaning that they can be made in either order with the same result and
+ * neither one enables or disables the other. The Solver uses that to skip
+ * equivalent orderings of independent moves, see {@link Solver#setPartialOrder(boolean)}.
+ *
+ * @param <M> the type of a move
+ * @author Jose Thomas Diaz jtd4400
+ */
+public interface MoveConfiguration<M> extends Configuration {
+    /**
+     * Gets every move that can be made from this configuration
+     * @return List<M>, one move per neighbor
+     */
+    List<M> getMoves();
+
+    /**
+     * Makes a move on a copy of this configuration
+     * @param move M, one of the moves returned by getMoves
+     * @return MoveConfiguration<M>, the neighbor that the move leads to
+     */
+    MoveConfiguration<M> applyMove(M move);
+
+    /**
+     * Checks if two moves are independent: neither one changes a square the other one reads or changes
+     * @param a M, the first move
+     * @param b M, the second move
+     * @return boolean, true if the moves commute wherever both can be made
+     */
+    boolean independent(M a, M b);
+}
@@ -0,0 +1,67 @@
+package puzzles.common.solver;
+
+/**
+ * A single mutable board that a search changes in place instead of copying a
+ * Configuration for every move. Moves are packed into ints so that a search
+ * can keep them in preallocated arrays, and the board keeps its own stack of
+ * the moves made so far so that {@link #unmakeMove()} can take them back.
+ * The board also keeps a 64-bit hash that every move updates incrementally,
+ * which is what a search stores instead of whole configurations.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public interface SearchBoard {
+    /**
+     * Writes every move that can be made on the board into a buffer
+     * @param moves int[], a buffer of at least {@link #maxMoves()} ints
+     * @return int, the number of moves written
+     */
+    int generateMoves(int[] moves);
+
+    /**
+     * Makes a move and pushes it on the move stack
+     * @param move int, one of the moves written by generateMoves
+     */
+    void makeMove(int move);
+
+    /**
+     * Takes back the last move made
+     */
+    void unmakeMove();
+
+    /**
+     * Get the number of moves on the move stack
+     * @return int
+     */
+    int depth();
+
+    /**
+     * Get the hash of the board, kept up to date by every move
+     * @return long
+     */
+    long hash();
+
+    /**
+     * Checks if the board is solved
+     * @return boolean, true if it is, false otherwise
+     */
+    boolean isSolution();
+
+    /**
+     * Get the largest number of moves that can ever be made from one position
+     * @return int
+     */
+    int maxMoves();
+
+    /**
+     * Get the largest number of moves that any sequence of moves can have
+     * @return int
+     */
+    int maxDepth();
+
+    /**
+     * Copies the board into an immutable Configuration
+     * @return Configuration, equal to the configuration the board currently represents
+     */
+    Configuration freeze();
+}
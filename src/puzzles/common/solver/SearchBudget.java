@@ -0,0 +1,177 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The limits of one search: the most configurations it may expand, the most heap its visited set may
+ * take and the longest it may run. A search that reaches one of them stops as if it had been cancelled
+ * and reports a {@link BudgetExceeded} with the counts it had gathered, instead of running until the
+ * JVM runs out of memory. A limit of 0 is no limit.
+ * <p>
+ * The heap of the visited set is the estimate of {@link SearchMetrics#getVisitedBytes()}, and the time
+ * is only read every {@link #CLOCK_INTERVAL} expansions, so both are reached a little late rather than early.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class SearchBudget {
+    /**
+     * The limit a search ran into
+     */
+    public enum Limit {
+        EXPANSIONS, VISITED_BYTES, TIME
+    }
+
+    /**
+     * placeholder for UNLIMITED of type SearchBudget, the budget of a search that may run until it ends
+     */
+    public static final SearchBudget UNLIMITED = new SearchBudget(0, 0, 0);
+    /**
+     * placeholder for CLOCK_INTERVAL of type int, the expansions between two reads of the clock, a power of two
+     */
+    static final int CLOCK_INTERVAL = 1 << 10;
+    /**
+     * placeholder for OPTIONS of type List, the command line options of a budget, each followed by its value
+     */
+    public static final List<String> OPTIONS = List.of("--max-states", "--max-mb", "--max-seconds");
+    /**
+     * placeholder for maxExpansions of type long, the most configurations expanded, or 0
+     */
+    private final long maxExpansions;
+    /**
+     * placeholder for maxVisitedBytes of type long, the most bytes of visited set, or 0
+     */
+    private final long maxVisitedBytes;
+    /**
+     * placeholder for maxNanos of type long, the longest search in nanoseconds, or 0
+     */
+    private final long maxNanos;
+
+    /**
+     * Creates a budget
+     * @param maxExpansions long, the most configurations the search may expand, or 0 for no limit
+     * @param maxVisitedBytes long, the most bytes its visited set may take, or 0 for no limit
+     * @param maxMillis long, the longest it may run in milliseconds, or 0 for no limit
+     */
+    public SearchBudget(long maxExpansions, long maxVisitedBytes, long maxMillis) {
+        if (maxExpansions < 0 || maxVisitedBytes < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("A search budget cannot be negative");
+        }
+        this.maxExpansions = maxExpansions;
+        this.maxVisitedBytes = maxVisitedBytes;
+        this.maxNanos = maxMillis * 1_000_000;
+    }
+
+    /**
+     * Reads a budget from the --max-states n, --max-mb n and --max-seconds n options of a command line
+     * @param options List<String>, the options, which may hold others as well
+     * @return SearchBudget, the budget, UNLIMITED if none of its options are given
+     * @throws IllegalArgumentException if an option has no value or a value that is not a number
+     */
+    public static SearchBudget parse(List<String> options) {
+        long states = 0;
+        long bytes = 0;
+        long millis = 0;
+        for (int i = 0; i < options.size(); i++) {
+            if (!OPTIONS.contains(options.get(i))) {
+                continue;
+            }
+            if (i + 1 == options.size()) {
+                throw new IllegalArgumentException(options.get(i) + " needs a value");
+            }
+            long value;
+            try {
+                value = Long.parseLong(options.get(i + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(options.get(i) + " needs a number, not " + options.get(i + 1));
+            }
+            switch (options.get(i)) {
+                case "--max-states" -> states = value;
+                case "--max-mb" -> bytes = value << 20;
+                default -> millis = value * 1000;
+            }
+            i++;
+        }
+        return states == 0 && bytes == 0 && millis == 0 ? UNLIMITED : new SearchBudget(states, bytes, millis);
+    }
+
+    /**
+     * Removes the options of a budget and their values from a command line, leaving the others
+     * @param options List<String>, the options
+     * @return List<String>, the options that are not part of a budget, in order
+     */
+    public static List<String> strip(List<String> options) {
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < options.size(); i++) {
+            if (OPTIONS.contains(options.get(i))) {
+                i++;
+            } else {
+                rest.add(options.get(i));
+            }
+        }
+        return rest;
+    }
+
+    /**
+     * Removes an option that is not part of a budget and its value from a command line, such as --checkpoint file
+     * @param options List<String>, the options, such as those left by strip
+     * @param name String, the option
+     * @return String, its value, or null if the option is not given
+     * @throws IllegalArgumentException if the option has no value
+     */
+    public static String takeOption(List<String> options, String name) {
+        int at = options.indexOf(name);
+        if (at < 0) {
+            return null;
+        }
+        if (at + 1 == options.size()) {
+            throw new IllegalArgumentException(name + " needs a value");
+        }
+        options.remove(at);
+        return options.remove(at);
+    }
+
+    /**
+     * Get the most configurations a search may expand
+     * @return long, 0 for no limit
+     */
+    public long getMaxExpansions() {
+        return maxExpansions;
+    }
+
+    /**
+     * Get the most bytes the visited set of a search may take
+     * @return long, 0 for no limit
+     */
+    public long getMaxVisitedBytes() {
+        return maxVisitedBytes;
+    }
+
+    /**
+     * Get the longest a search may run
+     * @return long, in milliseconds, 0 for no limit
+     */
+    public long getMaxMillis() {
+        return maxNanos / 1_000_000;
+    }
+
+    /**
+     * Checks a search against the budget before it expands another configuration
+     * @param metrics SearchMetrics, the counts of the search so far
+     * @param started long, the System.nanoTime() the search started at
+     * @return BudgetExceeded, the limit the search ran into, or null if it may go on
+     */
+    BudgetExceeded check(SearchMetrics metrics, long started) {
+        if (maxExpansions > 0 && metrics.expansions >= maxExpansions) {
+            return new BudgetExceeded(Limit.EXPANSIONS, maxExpansions, metrics);
+        }
+        if (maxVisitedBytes > 0 && metrics.visitedBytes > maxVisitedBytes) {
+            return new BudgetExceeded(Limit.VISITED_BYTES, maxVisitedBytes, metrics);
+        }
+        if (maxNanos > 0 && (metrics.expansions & (CLOCK_INTERVAL - 1)) == 0
+                && System.nanoTime() - started > maxNanos) {
+            return new BudgetExceeded(Limit.TIME, getMaxMillis(), metrics);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,371 @@
+package puzzles.common.solver;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The counts and timings of one search, kept in 64-bit counters so that they do not overflow
+ * on searches of billions of configurations. The searching thread writes them as it goes, so they
+ * can be read while the search runs, when they are only as recent as the reading thread sees them,
+ * and are exact once the search has returned.
+ * <p>
+ * The time of a search is split into generating neighbors, looking configurations up in and adding
+ * them to the visited set, and building the path; the rest is the bookkeeping of the queue.
+ * The states per depth are the configurations counted once each, at the number of moves from the start
+ * they were first reached with, whichever search found them; with macro moves a chain of forced moves
+ * counts as all of its moves.
+ *
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class SearchMetrics {
+    /**
+     * placeholder for generated of type long, the configurations generated, counting the start
+     */
+    long generated;
+    /**
+     * placeholder for unique of type long, the configurations added to the visited set
+     */
+    long unique;
+    /**
+     * placeholder for expansions of type long, the configurations whose neighbors were generated
+     */
+    long expansions;
+    /**
+     * placeholder for duplicates of type long, the generated configurations that were already visited
+     */
+    long duplicates;
+    /**
+     * placeholder for peakFrontier of type long, the largest number of configurations waiting to be expanded
+     */
+    long peakFrontier;
+    /**
+     * placeholder for peakVisited of type long, the largest size of the visited set
+     */
+    long peakVisited;
+    /**
+     * placeholder for visitedBytes of type long, an estimate of the heap taken by the visited set
+     */
+    long visitedBytes;
+    /**
+     * placeholder for neighborNanos of type long, the time spent generating neighbors
+     */
+    long neighborNanos;
+    /**
+     * placeholder for hashNanos of type long, the time spent in the visited set
+     */
+    long hashNanos;
+    /**
+     * placeholder for pathNanos of type long, the time spent building the path
+     */
+    long pathNanos;
+    /**
+     * placeholder for elapsedNanos of type long, the time of the whole search
+     */
+    long elapsedNanos;
+    /**
+     * placeholder for depths of type long[], the states first reached at each depth, grown as the search goes deeper
+     */
+    private long[] depths = new long[16];
+    /**
+     * placeholder for maxDepth of type int, the deepest depth a state was reached at, or -1 before the start is
+     */
+    private int maxDepth = -1;
+
+    /**
+     * Creates the metrics of a search that has not started, with every count and timing at zero
+     */
+    public SearchMetrics() {
+    }
+
+    /**
+     * Counts states first reached at a depth
+     * @param depth int, the depth of the states
+     * @param count long, the number of states
+     */
+    void addStates(int depth, long count) {
+        if (depth >= depths.length) {
+            depths = Arrays.copyOf(depths, Math.max(depths.length * 2, depth + 1));
+        }
+        depths[depth] += count;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    /**
+     * Adds the counts and timings of another search to these, for a puzzle solved as several searches
+     * @param other SearchMetrics, the other search
+     */
+    public void add(SearchMetrics other) {
+        generated += other.generated;
+        unique += other.unique;
+        expansions += other.expansions;
+        duplicates += other.duplicates;
+        peakFrontier = Math.max(peakFrontier, other.peakFrontier);
+        peakVisited += other.peakVisited;
+        visitedBytes += other.visitedBytes;
+        neighborNanos += other.neighborNanos;
+        hashNanos += other.hashNanos;
+        pathNanos += other.pathNanos;
+        elapsedNanos = Math.max(elapsedNanos, other.elapsedNanos);
+        long[] theirs = other.getStatesPerDepth();
+        for (int depth = 0; depth < theirs.length; depth++) {
+            addStates(depth, theirs[depth]);
+        }
+    }
+
+    /**
+     * Writes the counts and timings for a checkpoint
+     * @param out DataOutput, the checkpoint being written
+     * @throws IOException if they cannot be written
+     */
+    void write(DataOutput out) throws IOException {
+        for (long count : new long[]{generated, unique, expansions, duplicates, peakFrontier, peakVisited,
+                visitedBytes, neighborNanos, hashNanos, pathNanos, elapsedNanos}) {
+            out.writeLong(count);
+        }
+        long[] states = getStatesPerDepth();
+        out.writeInt(states.length);
+        for (long count : states) {
+            out.writeLong(count);
+        }
+    }
+
+    /**
+     * Replaces the counts and timings with those of a checkpoint
+     * @param in DataInput, the checkpoint being read
+     * @throws IOException if they cannot be read
+     */
+    void read(DataInput in) throws IOException {
+        generated = in.readLong();
+        unique = in.readLong();
+        expansions = in.readLong();
+        duplicates = in.readLong();
+        peakFrontier = in.readLong();
+        peakVisited = in.readLong();
+        visitedBytes = in.readLong();
+        neighborNanos = in.readLong();
+        hashNanos = in.readLong();
+        pathNanos = in.readLong();
+        elapsedNanos = in.readLong();
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative number of depths in checkpoint");
+        }
+        depths = new long[Math.max(length, 16)];
+        for (int depth = 0; depth < length; depth++) {
+            depths[depth] = in.readLong();
+        }
+        maxDepth = length - 1;
+    }
+
+    /**
+     * Get the number of configurations generated, counting the start
+     * @return long
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Get the number of configurations added to the visited set
+     * @return long
+     */
+    public long getUnique() {
+        return unique;
+    }
+
+    /**
+     * Get the number of configurations whose neighbors were generated
+     * @return long
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Get the number of generated configurations that were already visited
+     * @return long
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Get the largest number of configurations that waited to be expanded at once
+     * @return long
+     */
+    public long getPeakFrontier() {
+        return peakFrontier;
+    }
+
+    /**
+     * Get the largest size of the visited set
+     * @return long
+     */
+    public long getPeakVisited() {
+        return peakVisited;
+    }
+
+    /**
+     * Get an estimate of the heap taken by the visited set, from the entries of the predecessor map and
+     * {@link Configuration#estimateBytes()} of every configuration in it, or from the table of hashes
+     * of the depth-first search
+     * @return long, in bytes
+     */
+    public long getVisitedBytes() {
+        return visitedBytes;
+    }
+
+    /**
+     * Get the time spent generating neighbors
+     * @return long, in nanoseconds
+     */
+    public long getNeighborNanos() {
+        return neighborNanos;
+    }
+
+    /**
+     * Get the time spent looking configurations up in and adding them to the visited set
+     * @return long, in nanoseconds
+     */
+    public long getHashNanos() {
+        return hashNanos;
+    }
+
+    /**
+     * Get the time spent building the path
+     * @return long, in nanoseconds
+     */
+    public long getPathNanos() {
+        return pathNanos;
+    }
+
+    /**
+     * Get the time of the whole search
+     * @return long, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Get the number of configurations generated per second of the search
+     * @return double
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : generated / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Get the number of states first reached at each depth
+     * @return long[], indexed by depth, from the start to the deepest state
+     */
+    public long[] getStatesPerDepth() {
+        long[] states = depths;
+        return Arrays.copyOf(states, Math.min(states.length, maxDepth + 1));
+    }
+
+    /**
+     * Writes the counts and timings as a JSON object, with the times in milliseconds
+     * @return String, the JSON object
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"generated\":").append(generated);
+        json.append(",\"unique\":").append(unique);
+        json.append(",\"expansions\":").append(expansions);
+        json.append(",\"duplicates\":").append(duplicates);
+        json.append(",\"peakFrontier\":").append(peakFrontier);
+        json.append(",\"peakVisited\":").append(peakVisited);
+        json.append(",\"visitedBytes\":").append(visitedBytes);
+        json.append(",\"elapsedMs\":").append(millis(elapsedNanos));
+        json.append(",\"neighborMs\":").append(millis(neighborNanos));
+        json.append(",\"hashMs\":").append(millis(hashNanos));
+        json.append(",\"pathMs\":").append(millis(pathNanos));
+        json.append(",\"nodesPerSecond\":").append(Math.round(getNodesPerSecond()));
+        json.append(",\"statesPerDepth\":[");
+        long[] states = getStatesPerDepth();
+        for (int depth = 0; depth < states.length; depth++) {
+            json.append(depth == 0 ? "" : ",").append(states[depth]);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Writes the result of a solve with its counts and timings as a JSON object, for the --json option of the puzzle mains
+     * @param puzzle String, what was solved, such as the file name
+     * @param steps int, the number of configurations on the path, 0 if there is no solution
+     * @param rejected String, the rule that proved the puzzle unsolvable, or null
+     * @return String, the JSON object
+     */
+    public String toJson(String puzzle, int steps, String rejected) {
+        return toJson(puzzle, steps, rejected, null);
+    }
+
+    /**
+     * Writes the result of a solve with its counts and timings as a JSON object, for the --json option of the puzzle mains
+     * @param puzzle String, what was solved, such as the file name
+     * @param steps int, the number of configurations on the path, 0 if there is no solution
+     * @param rejected String, the rule that proved the puzzle unsolvable, or null
+     * @param exceeded BudgetExceeded, the limit that stopped the search, or null
+     * @return String, the JSON object
+     */
+    public String toJson(String puzzle, int steps, String rejected, BudgetExceeded exceeded) {
+        return "{\"puzzle\":" + quote(puzzle) +
+                ",\"solved\":" + (steps > 0) +
+                ",\"moves\":" + Math.max(steps - 1, 0) +
+                ",\"rejected\":" + (rejected == null ? "null" : quote(rejected)) +
+                ",\"exceeded\":" + (exceeded == null ? "null" : quote(exceeded.getLimit().name())) +
+                ",\"metrics\":" + toJson() + "}";
+    }
+
+    /**
+     * Quotes a string for JSON
+     * @param text String, the string
+     * @return String, the string in quotes, with quotes, backslashes and control characters escaped
+     */
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Writes the counts and timings as lines of text, for the stats command of the PTUIs
+     * @return String, one count or timing per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "Generated: %d, unique: %d, duplicates: %d, expansions: %d%n",
+                generated, unique, duplicates, expansions));
+        text.append(String.format(Locale.ROOT, "Peak frontier: %d, peak visited: %d (about %.1f MB)%n",
+                peakFrontier, peakVisited, visitedBytes / (double) (1 << 20)));
+        text.append(String.format(Locale.ROOT, "Time: %s ms (neighbors %s ms, visited set %s ms, path %s ms)%n",
+                millis(elapsedNanos), millis(neighborNanos), millis(hashNanos), millis(pathNanos)));
+        text.append(String.format(Locale.ROOT, "Nodes/s: %.0f%n", getNodesPerSecond()));
+        text.append("States per depth: ").append(Arrays.toString(getStatesPerDepth()));
+        return text.toString();
+    }
+
+    /**
+     * Turns nanoseconds into milliseconds with three decimals
+     * @param nanos long, the time in nanoseconds
+     * @return String, the time in milliseconds
+     */
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
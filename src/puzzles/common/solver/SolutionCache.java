@@ -0,0 +1,140 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of the next step towards a solution, keyed by Configuration.
+ * A solved path gives the next step of every configuration on it, so one solve answers every
+ * hint along the way. Configurations proven to have no solution are cached as well.
+ * Keys must not be changed after they are cached; callers store copies of mutable boards.
+ * Every method is synchronized, so one cache can be shared by several models and threads.
+ * @author Jose Thomas Diaz jtd4400
+ */
+public class SolutionCache {
+    /**
+     * placeholder for UNSOLVABLE of type Configuration, the value stored for configurations with no solution
+     */
+    private static final Configuration UNSOLVABLE = new Configuration() {
+        @Override
+        public boolean isSolution() {
+            return false;
+        }
+
+        @Override
+        public Collection<Configuration> getNeighbors() {
+            return List.of();
+        }
+    };
+    /**
+     * placeholder for capacity of type int, the most configurations kept
+     */
+    private final int capacity;
+    /**
+     * placeholder for steps of type LinkedHashMap, holds Configurations as keys and their next steps as values, in access order
+     */
+    private final LinkedHashMap<Configuration, Configuration> steps;
+    /**
+     * placeholder for hits of type long, the lookups that found a configuration
+     */
+    private long hits;
+    /**
+     * placeholder for misses of type long, the lookups that did not
+     */
+    private long misses;
+
+    /**
+     * Creates an empty cache
+     * @param capacity int, the most configurations kept before the least recently used is dropped
+     */
+    public SolutionCache(int capacity) {
+        this.capacity = capacity;
+        this.steps = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Configuration, Configuration> eldest) {
+                return size() > SolutionCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Caches the next step of every configuration on a solved path
+     * @param path List<Configuration>, a path from a configuration to a solution
+     */
+    public synchronized void putPath(List<Configuration> path) {
+        Configuration previous = null;
+        for (Configuration step: path) {
+            if (previous != null) {
+                steps.put(previous, step);
+            }
+            previous = step;
+        }
+    }
+
+    /**
+     * Caches that a configuration has no solution
+     * @param config Configuration that was searched without finding a solution
+     */
+    public synchronized void putUnsolvable(Configuration config) {
+        steps.put(config, UNSOLVABLE);
+    }
+
+    /**
+     * Checks if the cache knows the answer for a configuration, counting a hit or a miss,
+     * and recording it as a Flight Recorder event when a recording has those enabled
+     * @param config Configuration to look up
+     * @return boolean, true if its next step or its lack of one is cached
+     */
+    public synchronized boolean contains(Configuration config) {
+        boolean found = steps.containsKey(config);
+        if (found) {
+            hits++;
+        } else {
+            misses++;
+        }
+        CacheEvent event = new CacheEvent();
+        if (event.shouldCommit()) {
+            event.puzzle = config.getClass().getSimpleName();
+            event.hit = found;
+            event.size = steps.size();
+            event.commit();
+        }
+        return found;
+    }
+
+    /**
+     * Get the cached next step of a configuration
+     * @param config Configuration to look up
+     * @return Configuration, the next step, or null if it has no solution or is not cached
+     */
+    public synchronized Configuration nextStep(Configuration config) {
+        Configuration next = steps.get(config);
+        return next == UNSOLVABLE ? null : next;
+    }
+
+    /**
+     * Get the number of configurations cached
+     * @return int
+     */
+    public synchronized int size() {
+        return steps.size();
+    }
+
+    /**
+     * Get the lookups that found a configuration
+     * @return long
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the lookups that did not find a configuration
+     * @return long
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,57 @@
+package puzzles.common.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one search of a Solver, from the call to search until the path is built,
+ * with the counts of the search and how it ended. It is timed around the search, so the garbage
+ * collections and allocation samples of a recording can be matched to the solve they happened in.
+ * @author Jose Thomas Diaz jtd4400
+ */
+@Name("puzzles.Solve")
+@Label("Solve")
+@Description("One search of a Solver, with its engine, counts and result")
+@Category({"Puzzles", "Solver"})
+@StackTrace(false)
+class SolveEvent extends Event {
+    /**
+     * placeholder for puzzle of type String, the type of the configuration searched
+     */
+    @Label("Puzzle")
+    String puzzle;
+    /**
+     * placeholder for engine of type String, bfs, por, macro or dfs
+     */
+    @Label("Engine")
+    String engine;
+    /**
+     * placeholder for generated of type long, the configurations generated
+     */
+    @Label("Generated")
+    long generated;
+    /**
+     * placeholder for unique of type long, the configurations added to the visited set
+     */
+    @Label("Unique")
+    long unique;
+    /**
+     * placeholder for expansions of type long, the configurations whose neighbors were generated
+     */
+    @Label("Expansions")
+    long expansions;
+    /**
+     * placeholder for peakVisited of type long, the largest size of the visited set
+     */
+    @Label("Peak Visited")
+    long peakVisited;
+    /**
+     * placeholder for result of type String, solved, no solution, rejected, cancelled or failed
+     */
+    @Label("Result")
+    String result;
+}
@@ -1,8 +1,20 @@
 package puzzles.common.solver;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
+ * Solves Configurations using BFS. Every Solver object runs its own search with its own
+ * predecessor map and queue, so several searches can run at the same time on different threads.
+ * The static methods keep the original single-search interface used by the puzzle mains:
+ * they run each search on a fresh Solver and report the counts of the last one.
  * @author Jose Thomas Diaz jtd4400
  */
 public class Solver {
@@ -11,44 +23,258 @@ public class Solver {
      */
     private int configCount;
     /**
-     * placeholder for map of type HashMap, holds Configurations as keys and Configurations and values
+     * placeholder for map of type LinkedHashMap, holds Configurations as keys and Configurations and values,
+     * in the order they were found so that a checkpoint can write the frontier as the last of them
      */
-    private static HashMap<Configuration, Configuration> map = new HashMap<>();
+    private final LinkedHashMap<Configuration, Configuration> map = new LinkedHashMap<>();
     /**
      * placeholder for queue of type List, holds Configurations
      */
-    private static List<Configuration> queue = new LinkedList<>();
+    private final List<Configuration> queue = new LinkedList<>();
     /**
      * placeholder for solution of type Configuration
      */
-    private static Configuration solution;
+    private Configuration solution;
     /**
-     * placeholder for totalConfigs of type int
+     * placeholder for metrics of type SearchMetrics, the counts and timings of this Solver's search
      */
-    private static int totalConfigs;
+    private final SearchMetrics metrics = new SearchMetrics();
     /**
-     * placeholder for uniqueConfigs of type int
+     * placeholder for depth of type int, the BFS layer of the configurations being expanded
      */
-    private static int uniqueConfigs;
+    private int depth;
+    /**
+     * placeholder for layerLeft of type long, the configurations of the current layer still in the queue
+     */
+    private long layerLeft;
+    /**
+     * placeholder for nextLayer of type long, the configurations queued for the next layer so far
+     */
+    private long nextLayer;
+    /**
+     * placeholder for moveDepths of type HashMap, the number of moves to every visited configuration, kept when
+     * the layer of a configuration is not its number of moves: with macro moves, where a stored edge can be several
+     * moves, and with partial-order reduction, where a configuration can be queued again
+     */
+    private HashMap<Configuration, Integer> moveDepths;
+    /**
+     * placeholder for moveDepth of type int, the number of moves to the configuration being expanded
+     */
+    private int moveDepth;
+    /**
+     * placeholder for rejected of type String, the rule that rejected this Solver's configuration before searching
+     */
+    private String rejected;
+    /**
+     * placeholder for engine of type String, the search that ran, bfs, por, macro, dfs or external, for the Flight Recorder
+     */
+    private String engine = "bfs";
+    /**
+     * placeholder for layer of type LayerEvent, the Flight Recorder event of the BFS layer being expanded
+     */
+    private LayerEvent layer;
+    /**
+     * placeholder for budget of type SearchBudget, the limits of this Solver's search
+     */
+    private SearchBudget budget = defaultBudget;
+    /**
+     * placeholder for exceeded of type BudgetExceeded, the limit this Solver's search ran into, or null
+     */
+    private volatile BudgetExceeded exceeded;
+    /**
+     * placeholder for started of type long, the System.nanoTime() this Solver's search started at
+     */
+    private long started;
+    /**
+     * placeholder for checkpointFile of type Path, the file this Solver's search is checkpointed to and resumed from, or null
+     */
+    private Path checkpointFile;
+    /**
+     * placeholder for checkpointNanos of type long, the time between two checkpoints
+     */
+    private long checkpointNanos;
+    /**
+     * placeholder for lastCheckpoint of type long, the System.nanoTime() of the last checkpoint, or of the start of the search
+     */
+    private long lastCheckpoint;
+    /**
+     * placeholder for codec of type ConfigurationCodec, the codec of the configurations of a checkpointed search, or null
+     */
+    private ConfigurationCodec codec;
+    /**
+     * placeholder for resumedNanos of type long, the time the search had run before the checkpoint it resumed from
+     */
+    private long resumedNanos;
+    /**
+     * placeholder for partialOrder of type boolean, whether equivalent orderings of independent moves are skipped
+     */
+    private boolean partialOrder;
+    /**
+     * placeholder for macroMoves of type boolean, whether chains of forced moves are stored as one edge
+     */
+    private boolean macroMoves;
+    /**
+     * placeholder for depthFirst of type boolean, whether a registered SearchBoard is searched depth-first instead
+     */
+    private boolean depthFirst;
+    /**
+     * placeholder for cancelled of type boolean, set from another thread to stop the search
+     */
+    private volatile boolean cancelled;
+    /**
+     * placeholder for depthFirstSolver of type DepthFirstSolver, the depth-first search running for this Solver, if any
+     */
+    private volatile DepthFirstSolver depthFirstSolver;
+    /**
+     * placeholder for externalDirectory of type Path, where the layers of an external-memory search are kept, or null to search in the heap
+     */
+    private Path externalDirectory;
+    /**
+     * placeholder for externalRecords of type int, the records of the sort buffer of an external-memory search
+     */
+    private int externalRecords;
+    /**
+     * placeholder for externalSolver of type ExternalSolver, the external-memory search running for this Solver, if any
+     */
+    private volatile ExternalSolver externalSolver;
+    /**
+     * placeholder for progress of type Consumer, called with this Solver every PROGRESS_INTERVAL unique configurations
+     */
+    private Consumer<Solver> progress;
+    /**
+     * placeholder for PROGRESS_INTERVAL of type int, the unique configurations between two progress calls
+     */
+    public static final int PROGRESS_INTERVAL = 1 << 14;
+    /**
+     * placeholder for analyzers of type HashMap, holds Configuration types as keys and the Analyzers registered for them as values
+     */
+    private static final HashMap<Class<? extends Configuration>, List<Analyzer>> analyzers = new HashMap<>();
+    /**
+     * placeholder for boards of type HashMap, holds Configuration types as keys and the factories of their SearchBoards as values
+     */
+    private static final HashMap<Class<? extends Configuration>, Function<Configuration, SearchBoard>> boards = new HashMap<>();
+    /**
+     * placeholder for codecs of type HashMap, holds Configuration types as keys and the factories of their checkpoint codecs as values
+     */
+    private static final HashMap<Class<? extends Configuration>, Function<Configuration, ConfigurationCodec>> codecs = new HashMap<>();
+    /**
+     * placeholder for CHECKPOINT_MILLIS of type long, the default time between two checkpoints
+     */
+    public static final long CHECKPOINT_MILLIS = 60_000;
+    /**
+     * placeholder for permits of type Semaphore, one permit per search allowed to run at once, or null for no limit
+     */
+    private static volatile Semaphore permits;
+    /**
+     * placeholder for defaultBudget of type SearchBudget, the budget every new Solver starts with
+     */
+    private static volatile SearchBudget defaultBudget = SearchBudget.UNLIMITED;
+    /**
+     * placeholder for ENTRY_BYTES of type int, an estimate of the bytes a predecessor map entry takes besides its configuration:
+     * the node of the LinkedHashMap and its share of the table
+     */
+    private static final int ENTRY_BYTES = 56;
+    /**
+     * placeholder for last of type Solver, the Solver used by the most recent call to solve
+     */
+    private static Solver last = new Solver();
 
     /**
      * Get the total number of configurations generated by a puzzle until a solution was found
-     * @return int
+     * @return long
      */
-    public static int getTotalConfigs() {
-        return totalConfigs;
+    public static long getTotalConfigs() {
+        return last.metrics.generated;
     }
 
     /**
      * Get the amount of unique configurations generated by a puzzle until a solution was found
-     * @return int
+     * @return long
      */
-    public static int getUniqueConfigs() {
-        return uniqueConfigs;
+    public static long getUniqueConfigs() {
+        return last.metrics.unique;
+    }
+
+    /**
+     * Get the counts and timings of the search of the most recent call to solve
+     * @return SearchMetrics
+     */
+    public static SearchMetrics getLastMetrics() {
+        return last.metrics;
+    }
+
+    /**
+     * Get the rule of the Analyzer that proved the last solved configuration unsolvable
+     * @return String, or null if the last configuration was searched normally
+     */
+    public static String getRejection() {
+        return last.rejected;
+    }
+
+    /**
+     * Get the limit the search of the most recent call to solve ran into
+     * @return BudgetExceeded, or null if the search was not stopped by its budget
+     */
+    public static BudgetExceeded getLastExceeded() {
+        return last.exceeded;
+    }
+
+    /**
+     * Sets the budget every Solver created afterwards starts with, so that a host can keep any one search
+     * from taking all of its memory or time. A Solver's own budget can still be changed with {@link #setBudget}
+     * @param budget SearchBudget, the budget, SearchBudget.UNLIMITED for none
+     */
+    public static void setDefaultBudget(SearchBudget budget) {
+        defaultBudget = budget;
     }
 
     public static void clearQueue(){
-        queue.clear();
+        last.queue.clear();
+    }
+
+    /**
+     * Registers an Analyzer that is run on every configuration of the given type before it is searched.
+     * Registering a second Analyzer of the same class for a type replaces the first one.
+     * @param type Class of the Configuration the Analyzer understands
+     * @param analyzer Analyzer that will be run
+     */
+    public static synchronized void addAnalyzer(Class<? extends Configuration> type, Analyzer analyzer) {
+        List<Analyzer> registered = analyzers.computeIfAbsent(type, t -> new ArrayList<>());
+        registered.removeIf(a -> a.getClass() == analyzer.getClass());
+        registered.add(analyzer);
+    }
+
+    /**
+     * Registers the factory of the mutable SearchBoard used to search configurations of the given type depth-first
+     * @param type Class of the Configuration the board can represent
+     * @param factory Function that creates a board holding a configuration of that type
+     */
+    public static synchronized void addBoard(Class<? extends Configuration> type, Function<Configuration, SearchBoard> factory) {
+        boards.put(type, factory);
+    }
+
+    /**
+     * Registers the factory of the codec that writes configurations of the given type to checkpoints
+     * @param type Class of the Configuration the codec can write
+     * @param factory Function that creates a codec for the configurations reachable from a starting one
+     */
+    public static synchronized void addCodec(Class<? extends Configuration> type, Function<Configuration, ConfigurationCodec> factory) {
+        codecs.put(type, factory);
+    }
+
+    /**
+     * Runs every Analyzer registered for the type of a configuration
+     * @param config Configuration that is about to be searched
+     * @return String describing the first rule that fired, or null if none did
+     */
+    public static synchronized String analyze(Configuration config) {
+        for (Analyzer analyzer: analyzers.getOrDefault(config.getClass(), List.of())) {
+            String rule = analyzer.analyze(config);
+            if (rule != null) {
+                return rule;
+            }
+        }
+        return null;
     }
 
     /**
@@ -57,29 +283,682 @@ public class Solver {
      * @return List<String> that represents the path found by the solver
      */
     public static List<String> solve(Configuration config) {
+        last = new Solver();
+        List<String> path = new LinkedList<>();
+        for (Configuration step: last.search(config)) {
+            path.add(step.toString());
+        }
+        return path;
+    }
+
+    /**
+     * Get the total number of configurations this Solver generated
+     * @return long
+     */
+    public long getTotal() {
+        return metrics.generated;
+    }
+
+    /**
+     * Get the amount of unique configurations this Solver generated
+     * @return long
+     */
+    public long getUnique() {
+        return metrics.unique;
+    }
+
+    /**
+     * Get the counts and timings of this Solver's search, which can be read while it runs
+     * @return SearchMetrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the rule of the Analyzer that proved this Solver's configuration unsolvable
+     * @return String, or null if the configuration was searched normally
+     */
+    public String getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Get the limit of its budget this Solver's search ran into. The search then returned an empty path
+     * that says nothing about whether the configuration has a solution
+     * @return BudgetExceeded, with the counts gathered until the search stopped, or null if it was not stopped by its budget
+     */
+    public BudgetExceeded getExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * Sets the limits of this Solver's search. When one is reached the search stops, returns an empty path
+     * and reports the limit through {@link #getExceeded()}
+     * @param budget SearchBudget, the limits, SearchBudget.UNLIMITED for none
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Checkpoints this Solver's search to a file. Every interval the search writes the configurations it has
+     * visited, their predecessors, the frontier and its counts to the file, using the codec registered with
+     * {@link #addCodec} for the type of the configuration, and it writes a last one when it is cancelled or runs
+     * out of budget. If the file exists when the search starts, the search goes on from it and finds the same path
+     * as a search that was never stopped. The file is deleted once the search ends.
+     * Only the breadth-first search is checkpointed, with or without macro moves; partial-order reduction and
+     * the depth-first search run without checkpoints
+     * @param file Path, the checkpoint file, or null for no checkpoints
+     * @param intervalMillis long, the time between two checkpoints, such as CHECKPOINT_MILLIS
+     */
+    public void setCheckpoint(Path file, long intervalMillis) {
+        this.checkpointFile = file;
+        this.checkpointNanos = intervalMillis * 1_000_000;
+    }
+
+    /**
+     * Turns partial-order reduction on or off. When it is on and the configuration being searched is a
+     * MoveConfiguration, every queued configuration carries a sleep set: the independent moves that were
+     * already explored from an earlier configuration and lead to configurations that are reached another way.
+     * Those moves are never made, so equivalent interleavings are pruned before they are generated,
+     * while every reachable configuration is still visited.
+     * @param partialOrder boolean, true to skip equivalent orderings of independent moves
+     */
+    public void setPartialOrder(boolean partialOrder) {
+        this.partialOrder = partialOrder;
+    }
+
+    /**
+     * Turns macro moves on or off. When they are on, a neighbor that has exactly one neighbor of its own
+     * is not stored: the search follows the forced chain until it reaches a configuration with no choice
+     * to make or with several, a solution, or a configuration it has already seen, and stores only that
+     * end of the chain. The forced steps are found again only when the path is built.
+     * Chains count as a single edge, so the path is only guaranteed to be shortest when every path to a
+     * configuration has the same length, as in Hoppers and Chess where every move removes a piece.
+     * Partial-order reduction takes precedence when both are turned on.
+     * @param macroMoves boolean, true to collapse chains of forced moves
+     */
+    public void setMacroMoves(boolean macroMoves) {
+        this.macroMoves = macroMoves;
+    }
+
+    /**
+     * Turns the depth-first search on or off. When it is on and a SearchBoard is registered for the type of
+     * the configuration being searched, the search makes and takes back moves on that one board with a
+     * {@link DepthFirstSolver} instead of storing every configuration, and the counts are those of that search.
+     * It takes precedence over partial-order reduction and macro moves.
+     * @param depthFirst boolean, true to search a registered SearchBoard depth-first
+     */
+    public void setDepthFirst(boolean depthFirst) {
+        this.depthFirst = depthFirst;
+    }
+
+    /**
+     * Sets whether the search keeps its layers in sorted files on disk instead of its visited configurations in the heap,
+     * for puzzles with more states than fit in memory. The type of the configuration must have a codec registered
+     * with {@link #addCodec}. The search is then a plain BFS: it is not checkpointed, does not call the progress callback,
+     * and neither skips equivalent orderings nor follows forced moves. A depth-first search takes precedence
+     * @param directory Path, where the files of the search are made, or null to search in the heap
+     * @param bufferRecords int, the configurations sorted in memory at once, ExternalSolver.DEFAULT_BUFFER_RECORDS unless memory is short
+     */
+    public void setExternalMemory(Path directory, int bufferRecords) {
+        this.externalDirectory = directory;
+        this.externalRecords = bufferRecords;
+    }
+
+    /**
+     * Sets the callback that is told how far the search has got. It is called on the searching thread
+     * every PROGRESS_INTERVAL unique configurations, so it should only hand the counts on.
+     * @param progress Consumer that is given this Solver, or null for none
+     */
+    public void setProgress(Consumer<Solver> progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Stops the search as soon as the searching thread next checks, which it does once per expanded
+     * configuration. A cancelled search returns an empty path. May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+        DepthFirstSolver dfs = depthFirstSolver;
+        if (dfs != null) {
+            dfs.cancel();
+        }
+        ExternalSolver external = externalSolver;
+        if (external != null) {
+            external.cancel();
+        }
+    }
+
+    /**
+     * Checks if the search was cancelled
+     * @return boolean, true if cancel was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Limits the number of searches that run at the same time in this JVM, so that many games
+     * asking for hints at once share the processors instead of all slowing down together.
+     * A search that is over the limit waits for another to end, and can be cancelled while it waits.
+     * Searches that are already waiting keep the limit they started waiting under.
+     * @param searches int, the number of searches that may run at once, or 0 for no limit
+     */
+    public static void setConcurrency(int searches) {
+        permits = searches > 0 ? new Semaphore(searches, true) : null;
+    }
+
+    /**
+     * Searches a given configuration using BFS, once a search may run under the limit of
+     * {@link #setConcurrency(int)}. A Solver should only search once.
+     * @param config Configuration that will be solved
+     * @return List<Configuration> that represents the path found, empty if there is no solution, it was cancelled or it ran out of budget
+     */
+    public List<Configuration> search(Configuration config) {
+        Semaphore gate = permits;
+        if (gate == null) {
+            return run(config);
+        }
+        try {
+            while (!gate.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                if (cancelled) {
+                    return new LinkedList<>();
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            return new LinkedList<>();
+        }
+        try {
+            return run(config);
+        } finally {
+            gate.release();
+        }
+    }
+
+    /**
+     * Searches a given configuration using BFS
+     * @param config Configuration that will be solved
+     * @return List<Configuration> that represents the path found, empty if there is no solution
+     */
+    private List<Configuration> run(Configuration config) {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        started = start;
+        List<Configuration> path = null;
+        try {
+            path = bfs(config);
+            return path;
+        } finally {
+            metrics.elapsedNanos = resumedNanos + System.nanoTime() - start;
+            endLayer();
+            event.end();
+            if (event.shouldCommit()) {
+                event.puzzle = config.getClass().getSimpleName();
+                event.engine = engine;
+                event.generated = metrics.generated;
+                event.unique = metrics.unique;
+                event.expansions = metrics.expansions;
+                event.peakVisited = metrics.peakVisited;
+                event.result = path == null ? "failed" : !path.isEmpty() ? "solved" : rejected != null ? "rejected"
+                        : cancelled ? "cancelled" : exceeded != null ? "budget exceeded" : "no solution";
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Searches a given configuration using BFS, counting into the metrics as it goes
+     * @param config Configuration that will be solved
+     * @return List<Configuration> that represents the path found, empty if there is no solution
+     */
+    private List<Configuration> bfs(Configuration config) {
 
         queue.add(config);
 
         map.put(config, null);
-        totalConfigs++;
-        uniqueConfigs++;
-        while (!queue.isEmpty()) {
-            Configuration now = queue.remove(0);
+        metrics.generated++;
+        metrics.unique++;
+        metrics.peakVisited = 1;
+        metrics.peakFrontier = 1;
+        metrics.visitedBytes = ENTRY_BYTES + config.estimateBytes();
+        metrics.addStates(0, 1);
+        layerLeft = 1;
+        startLayer();
+        rejected = config.isSolution() ? null : analyze(config);
+        if (rejected != null) {
+            queue.clear();
+            return new LinkedList<>();
+        }
+        Function<Configuration, SearchBoard> board = depthFirst ? board(config) : null;
+        if (board != null) {
+            queue.clear();
+            engine = "dfs";
+            layer = null;
+            DepthFirstSolver dfs = new DepthFirstSolver(board.apply(config), metrics);
+            depthFirstSolver = dfs;
+            if (cancelled) {
+                dfs.cancel();
+            }
+            dfs.setBudget(budget);
+            List<Configuration> path = dfs.search();
+            exceeded = dfs.getExceeded();
+            return path;
+        }
+        if (externalDirectory != null) {
+            Function<Configuration, ConfigurationCodec> factory = codec(config);
+            if (factory == null) {
+                throw new IllegalStateException("No codec is registered for " + config.getClass().getSimpleName());
+            }
+            queue.clear();
+            engine = "external";
+            layer = null;
+            ExternalSolver external = new ExternalSolver(config, factory.apply(config), externalDirectory,
+                    externalRecords, metrics);
+            externalSolver = external;
+            if (cancelled) {
+                external.cancel();
+            }
+            external.setBudget(budget);
+            List<Configuration> path = external.search();
+            exceeded = external.getExceeded();
+            return path;
+        }
+        if (macroMoves) {
+            engine = "macro";
+        }
+        if (macroMoves || partialOrder && config instanceof MoveConfiguration<?>) {
+            moveDepths = new HashMap<>();
+            moveDepths.put(config, 0);
+            metrics.visitedBytes += ENTRY_BYTES;
+        }
+        if (partialOrder && config instanceof MoveConfiguration<?>) {
+            engine = "por";
+            searchReduced((MoveConfiguration<?>) config);
+            return timedPath(config, false);
+        }
+        if (checkpointFile != null) {
+            startCheckpoints(config);
+        }
+        while (!queue.isEmpty() && !cancelled && !overBudget()) {
+            Configuration now = dequeue();
             if (now.isSolution()) {
                 solution = now;
                 break;
             }
 
-            for (Configuration c: now.getNeighbors()) {
-                totalConfigs++;
+            long begin = System.nanoTime();
+            Collection<Configuration> neighbors = now.getNeighbors();
+            long generatedAt = System.nanoTime();
+            metrics.neighborNanos += generatedAt - begin;
+            long forced = 0;
+            for (Configuration c: neighbors) {
+                metrics.generated++;
+                int moves = moveDepth + 1;
+                if (macroMoves) {
+                    long chain = System.nanoTime();
+                    long steps = metrics.generated;
+                    c = followForced(c);
+                    // followForced counts one generated configuration per forced move it makes
+                    moves += (int) (metrics.generated - steps);
+                    forced += System.nanoTime() - chain;
+                }
                 if (!map.containsKey(c)) {
                     map.put(c, now);
-                    queue.add(c);
-                    uniqueConfigs++;
+                    enqueue(c, moves);
+                    report();
+                } else {
+                    metrics.duplicates++;
+                }
+            }
+            metrics.neighborNanos += forced;
+            metrics.hashNanos += System.nanoTime() - generatedAt - forced;
+            if (codec != null && (metrics.expansions & (SearchBudget.CLOCK_INTERVAL - 1)) == 0
+                    && System.nanoTime() - lastCheckpoint >= checkpointNanos) {
+                checkpoint();
+            }
+        }
+        if (codec != null) {
+            endCheckpoints();
+        }
+        return timedPath(config, macroMoves);
+    }
+
+    /**
+     * Gets the codec of a checkpointed search and resumes the search from its checkpoint file, if there is one
+     * @param config Configuration, the start of the search, already in the map and the queue
+     */
+    private void startCheckpoints(Configuration config) {
+        Function<Configuration, ConfigurationCodec> factory = codec(config);
+        if (factory == null) {
+            throw new IllegalStateException("No checkpoint codec is registered for " + config.getClass().getSimpleName());
+        }
+        codec = factory.apply(config);
+        lastCheckpoint = System.nanoTime();
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+        try {
+            Checkpoint checkpoint = Checkpoint.read(checkpointFile, codec, metrics);
+            Configuration[] visited = checkpoint.visited;
+            if (checkpoint.macroMoves != macroMoves || visited.length == 0 || !visited[0].equals(config)) {
+                throw new IOException(checkpointFile + " is a checkpoint of another search");
+            }
+            map.clear();
+            queue.clear();
+            for (int i = 0; i < visited.length; i++) {
+                map.put(visited[i], checkpoint.parents[i] < 0 ? null : visited[checkpoint.parents[i]]);
+            }
+            queue.addAll(Arrays.asList(visited).subList(visited.length - checkpoint.frontier, visited.length));
+            if (moveDepths != null) {
+                moveDepths.clear();
+                for (int i = 0; i < visited.length; i++) {
+                    moveDepths.put(visited[i], checkpoint.moves[i]);
+                }
+            }
+            depth = checkpoint.depth;
+            layerLeft = checkpoint.layerLeft;
+            nextLayer = checkpoint.nextLayer;
+            resumedNanos = metrics.elapsedNanos;
+            startLayer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the state of the search to its checkpoint file. Called between two expansions, when every
+     * configuration in the queue is also the last of the map
+     */
+    private void checkpoint() {
+        metrics.elapsedNanos = resumedNanos + System.nanoTime() - started;
+        try {
+            new Checkpoint(macroMoves, depth, layerLeft, nextLayer).write(checkpointFile, codec, map, moveDepths, queue.size(), metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastCheckpoint = System.nanoTime();
+    }
+
+    /**
+     * Writes a last checkpoint for a search that was stopped before it ended, so it can be resumed,
+     * or deletes the checkpoint file of a search that ended
+     */
+    private void endCheckpoints() {
+        if (cancelled || exceeded != null) {
+            checkpoint();
+            return;
+        }
+        try {
+            Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Takes the next configuration off the queue and counts it as expanded, moving on to the next BFS layer
+     * once every configuration of the current one has been taken, and keeps its number of moves in moveDepth
+     * @return Configuration, the configuration at the head of the queue
+     */
+    private Configuration dequeue() {
+        if (layerLeft == 0) {
+            endLayer();
+            depth++;
+            layerLeft = nextLayer;
+            nextLayer = 0;
+            startLayer();
+        }
+        layerLeft--;
+        metrics.expansions++;
+        layer.expanded++;
+        Configuration now = queue.remove(0);
+        moveDepth = moveDepths == null ? depth : moveDepths.get(now);
+        return now;
+    }
+
+    /**
+     * Starts the Flight Recorder event of the layer at the current depth. There are only as many layers
+     * as moves in the longest path, so the event is made whether or not a recording will commit it
+     */
+    private void startLayer() {
+        layer = new LayerEvent();
+        layer.depth = depth;
+        layer.begin();
+    }
+
+    /**
+     * Commits the Flight Recorder event of the layer being expanded, if there is one, with the configurations
+     * it queued for the next layer
+     */
+    private void endLayer() {
+        LayerEvent event = layer;
+        if (event != null) {
+            layer = null;
+            event.discovered = nextLayer;
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Checks the search against its budget before another configuration is expanded
+     * @return boolean, true if a limit was reached, which is then kept in exceeded
+     */
+    private boolean overBudget() {
+        if (budget == SearchBudget.UNLIMITED) {
+            return false;
+        }
+        exceeded = budget.check(metrics, started);
+        return exceeded != null;
+    }
+
+    /**
+     * Puts a configuration seen for the first time on the queue, one layer below the one being expanded,
+     * and counts it at the depth of its number of moves
+     * @param c Configuration, the new configuration
+     * @param moves int, the number of moves from the start to c
+     */
+    private void enqueue(Configuration c, int moves) {
+        queue.add(c);
+        nextLayer++;
+        metrics.unique++;
+        metrics.peakVisited = map.size();
+        metrics.visitedBytes += ENTRY_BYTES + c.estimateBytes();
+        if (moveDepths != null) {
+            moveDepths.put(c, moves);
+            metrics.visitedBytes += ENTRY_BYTES;
+        }
+        metrics.addStates(moves, 1);
+        if (queue.size() > metrics.peakFrontier) {
+            metrics.peakFrontier = queue.size();
+        }
+    }
+
+    /**
+     * Builds the path to the solution found, if any, timing it in the metrics
+     * @param config Configuration, the start of the search
+     * @param forced boolean, whether the path has chains of forced moves to put back
+     * @return List<Configuration>, the path, empty if there is no solution
+     */
+    private List<Configuration> timedPath(Configuration config, boolean forced) {
+        long begin = System.nanoTime();
+        List<Configuration> path = constructPath(map, config, solution);
+        if (forced) {
+            path = expandForced(path);
+        }
+        metrics.pathNanos = System.nanoTime() - begin;
+        return path;
+    }
+
+    /**
+     * Get the factory of the SearchBoard registered for the type of a configuration
+     * @param config Configuration that is about to be searched
+     * @return Function that creates the board, or null if none is registered
+     */
+    private static synchronized Function<Configuration, SearchBoard> board(Configuration config) {
+        return boards.get(config.getClass());
+    }
+
+    /**
+     * Get the factory of the checkpoint codec registered for the type of a configuration
+     * @param config Configuration that is about to be searched
+     * @return Function that creates the codec, or null if none is registered
+     */
+    private static synchronized Function<Configuration, ConfigurationCodec> codec(Configuration config) {
+        return codecs.get(config.getClass());
+    }
+
+    /**
+     * Calls the progress callback if the unique count has just reached a multiple of PROGRESS_INTERVAL
+     */
+    private void report() {
+        if (progress != null && metrics.unique % PROGRESS_INTERVAL == 0) {
+            progress.accept(this);
+        }
+    }
+
+    /**
+     * Follows a chain of configurations that each have exactly one neighbor
+     * @param first Configuration where the chain starts
+     * @return Configuration where the chain ends, which is first itself if it offers a choice
+     */
+    private Configuration followForced(Configuration first) {
+        Configuration end = first;
+        HashSet<Configuration> chain = new HashSet<>();
+        while (!end.isSolution() && !map.containsKey(end) && chain.add(end)) {
+            Collection<Configuration> next = end.getNeighbors();
+            if (next.size() != 1) {
+                break;
+            }
+            end = next.iterator().next();
+            metrics.generated++;
+        }
+        return end;
+    }
+
+    /**
+     * Puts the forced steps of every macro move back into a path
+     * @param path List<Configuration>, the path between the stored ends of the chains
+     * @return List<Configuration>, the path with one configuration per move
+     */
+    private static List<Configuration> expandForced(List<Configuration> path) {
+        List<Configuration> steps = new LinkedList<>();
+        Configuration previous = null;
+        for (Configuration end: path) {
+            if (previous != null) {
+                steps.addAll(forcedSteps(previous, end));
+            }
+            steps.add(end);
+            previous = end;
+        }
+        return steps;
+    }
+
+    /**
+     * Finds the forced configurations between a configuration and the end of a chain that starts at one of its neighbors
+     * @param from Configuration, the configuration the macro move starts from
+     * @param end Configuration, the end of the chain
+     * @return List<Configuration>, the configurations strictly between from and end
+     */
+    private static List<Configuration> forcedSteps(Configuration from, Configuration end) {
+        Collection<Configuration> neighbors = from.getNeighbors();
+        if (neighbors.contains(end)) {
+            return List.of();
+        }
+        for (Configuration c: neighbors) {
+            List<Configuration> chain = new LinkedList<>();
+            HashSet<Configuration> seen = new HashSet<>();
+            while (!c.equals(end) && seen.add(c)) {
+                Collection<Configuration> next = c.getNeighbors();
+                if (next.size() != 1) {
+                    break;
+                }
+                chain.add(c);
+                c = next.iterator().next();
+            }
+            if (c.equals(end)) {
+                return chain;
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Runs the BFS with sleep sets. The start configuration is already in the map and the queue.
+     * A configuration reached again with a sleep set that is not a superset of its stored one keeps
+     * only the moves in both, and is queued again if it was already expanded. Moves that lead to a
+     * neighbor already generated from the same configuration are skipped, like getNeighbors does.
+     * @param start MoveConfiguration<M> that is being solved
+     * @param <M> the type of a move
+     */
+    @SuppressWarnings("unchecked")
+    private <M> void searchReduced(MoveConfiguration<M> start) {
+        HashMap<Configuration, List<M>> sleeps = new HashMap<>();
+        HashSet<Configuration> expanded = new HashSet<>();
+        sleeps.put(start, new ArrayList<>());
+        while (!queue.isEmpty() && !cancelled && !overBudget()) {
+            MoveConfiguration<M> now = (MoveConfiguration<M>) dequeue();
+            if (now.isSolution()) {
+                solution = now;
+                break;
+            }
+            expanded.add(now);
+            List<M> sleep = sleeps.get(now);
+            List<M> explored = new ArrayList<>(sleep);
+            HashSet<Configuration> children = new HashSet<>();
+            long begin = System.nanoTime();
+            List<M> moves = now.getMoves();
+            metrics.neighborNanos += System.nanoTime() - begin;
+            for (M move: moves) {
+                if (sleep.contains(move)) {
+                    continue;
+                }
+                long applied = System.nanoTime();
+                MoveConfiguration<M> c = now.applyMove(move);
+                metrics.neighborNanos += System.nanoTime() - applied;
+                if (!children.add(c)) {
+                    continue;
+                }
+                metrics.generated++;
+                List<M> childSleep = new ArrayList<>();
+                for (M done: explored) {
+                    if (now.independent(done, move)) {
+                        childSleep.add(done);
+                    }
+                }
+                explored.add(move);
+                long lookup = System.nanoTime();
+                boolean seen = map.containsKey(c);
+                if (!seen) {
+                    map.put(c, now);
+                }
+                metrics.hashNanos += System.nanoTime() - lookup;
+                if (!seen) {
+                    sleeps.put(c, childSleep);
+                    enqueue(c, moveDepth + 1);
+                    report();
+                } else {
+                    metrics.duplicates++;
+                    List<M> stored = sleeps.get(c);
+                    if (!childSleep.containsAll(stored)) {
+                        stored.retainAll(childSleep);
+                        if (expanded.remove(c)) {
+                            // it keeps its number of moves in moveDepths and is not counted again
+                            queue.add(c);
+                            nextLayer++;
+                        }
+                    }
                 }
             }
         }
-        return constructPath(map, config, solution);
     }
 
     /**
@@ -87,18 +966,18 @@ public class Solver {
      * @param predecessors HashMap<Configuration, Configuration> representing the predecessor map built previously
      * @param begin Configuration representing the starting Configuration
      * @param end Configuration representing the destination Configuration
-     * @return List<String> that represents the shortest path between the Configurations
+     * @return List<Configuration> that represents the shortest path between the Configurations
      */
-    private static List<String> constructPath(HashMap<Configuration, Configuration> predecessors, Configuration begin, Configuration end) {
-        List<String> path = new LinkedList<>();
+    private static List<Configuration> constructPath(HashMap<Configuration, Configuration> predecessors, Configuration begin, Configuration end) {
+        List<Configuration> path = new LinkedList<>();
         if (predecessors.containsKey(end)) {
             Configuration current = end;
             while (!current.equals(begin)) {
-                path.add(0, current.toString());
+                path.add(0, current);
                 current = predecessors.get(current);
             }
 
-            path.add(0, begin.toString());
+            path.add(0, begin);
         }
         return path;
     }
@@ -1,6 +1,7 @@
 package puzzles.hoppers.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -14,6 +15,8 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import puzzles.common.Coordinates;
+import puzzles.common.ModelEvent;
 import puzzles.common.Observer;
 import puzzles.hoppers.model.HoppersConfig;
 import puzzles.hoppers.model.HoppersModel;
@@ -22,6 +25,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -116,6 +120,27 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
      */
     private String name;
 
+    /**
+     * Represents the stage the board is displayed on, once the application has started.
+     */
+    private Stage stage;
+
+    /**
+     * Represents the label at the top of the window that shows the latest message.
+     */
+    private Label title;
+
+    /**
+     * Represents the image view of every cell, kept for the whole game so that a move
+     * only swaps the images of the cells it changed.
+     */
+    private ImageView[][] sprites;
+
+    /**
+     * Represents the button that cancels a hint, enabled only while one is being solved.
+     */
+    private Button cancelButton;
+
     /**
      * Initializes the application by loading the board configuration
      * from a file specified as the command line argument.
@@ -128,7 +153,9 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         textBoard = hoppersModel.getBoard();
         loadedFilename = filename;
 
+        this.hoppersModel.setNotifier(Platform::runLater);
         this.hoppersModel.addObserver(this);
+        this.hoppersModel.addEventObserver((model, events) -> apply(events));
 
         File file = new File(filename);
 
@@ -143,11 +170,16 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
      * @param filename the name of the file containing the board configuration
      */
     public void init(String filename) {
+        if (hoppersModel != null) {
+            hoppersModel.shutdown();
+        }
         gridInput = getGridInput(filename);
         hoppersModel = new HoppersModel(filename);
         textBoard = hoppersModel.getBoard();
 
+        this.hoppersModel.setNotifier(Platform::runLater);
         this.hoppersModel.addObserver(this);
+        this.hoppersModel.addEventObserver((model, events) -> apply(events));
 
         File file = new File(filename);
 
@@ -188,27 +220,82 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     }
 
     /**
-     * Updates the game board displayed by the GUI based on the given board and
-     * refreshes the stage.
+     * Updates the title of the displayed board, building the board first if it is not shown yet.
+     * The cells themselves are updated by the events the model publishes.
      *
-     * @param board the new board to be displayed
+     * @param board the board to be displayed
      * @param stage the stage to display the board on
      */
     public void updateBoard(char[][] board, Stage stage){
+        if (sprites == null) {
+            setStage(stage);
+            return;
+        }
+        title.setText(name);
+    }
 
-        StringBuilder sb = new StringBuilder();
-
-        for (char[] row : board) {
-            for (char c: row){
-                sb.append(c).append(' ');
+    /**
+     * Applies one batch of model events: only the cells in the board delta get a new image,
+     * however many moves the batch covers, and the title shows the latest message.
+     *
+     * @param events the coalesced events since the last batch
+     */
+    private void apply(List<ModelEvent> events) {
+        if (sprites == null) {
+            return;
+        }
+        char[][] board = hoppersModel.getBoard();
+        boolean solved = false;
+        for (ModelEvent event : events) {
+            if (event instanceof ModelEvent.BoardDelta delta) {
+                for (Coordinates cell : delta.cells()) {
+                    sprites[cell.row()][cell.col()].setImage(sprite(board[cell.row()][cell.col()]));
+                }
+            } else if (event instanceof ModelEvent.Message message) {
+                name = message.text();
+            } else if (event instanceof ModelEvent.Error error) {
+                name = error.message();
+            } else if (event instanceof ModelEvent.SolveProgress progress) {
+                cancelButton.setDisable(progress.done());
+            } else if (event instanceof ModelEvent.Solved) {
+                solved = true;
             }
-
-            sb.append(System.lineSeparator());
         }
+        title.setText(solved ? name + " Solved!" : name);
+    }
 
-        gridInput = sb.toString();
+    /**
+     * Returns the shared image of a cell's contents.
+     *
+     * @param c the character on the cell
+     * @return the image, or null for an unknown character
+     */
+    private Image sprite(char c) {
+        return switch (c) {
+            case HoppersConfig.RED_FROG -> redFrog;
+            case HoppersConfig.GREEN_FROG -> greenFrog;
+            case HoppersConfig.EMPTY -> lilyPad;
+            case HoppersConfig.INVALID -> water;
+            default -> null;
+        };
+    }
 
-        setStage(stage);
+    /**
+     * Handles a click on a cell: a frog is selected to jump, and a lily pad is where
+     * the selected frog jumps to.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     */
+    private void select(int row, int col) {
+        char c = hoppersModel.getBoard()[row][col];
+        if (c == HoppersConfig.RED_FROG || c == HoppersConfig.GREEN_FROG) {
+            startRow = row;
+            startCol = col;
+            jumpTurn = true;
+        } else if (c == HoppersConfig.EMPTY && jumpTurn) {
+            hoppersModel.jump(startRow, startCol, row, col);
+        }
     }
 
     /**
@@ -230,6 +317,7 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         Label label = new Label(name);
         label.setFont(font);
         label.setAlignment(Pos.CENTER);
+        title = label;
 
         titleBox.getChildren().add(label);
         titleBox.setAlignment(Pos.CENTER);
@@ -242,37 +330,23 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
 
         String[] rows = gridInput.split("\n");
 
-        // Create a button for each character in the grid and give the frogs function
+        // Create a button for each character in the grid and give the lily pads and frogs function
+        sprites = new ImageView[this.rowsNum][this.cols];
         for (int row = 0; row < this.rowsNum; row++) {
             for (int col = 0; col < this.cols; col++) {
                 char c = rows[row].charAt(col * 2);
-                Button button = new Button();
-                ImageView imageView = switch (c) {
-                    case HoppersConfig.RED_FROG -> new ImageView(redFrog);
-                    case HoppersConfig.GREEN_FROG -> new ImageView(greenFrog);
-                    case HoppersConfig.EMPTY -> new ImageView(lilyPad);
-                    case HoppersConfig.INVALID -> new ImageView(water);
-                    default -> null;
-                };
-                if (imageView != null) {
+                Image image = sprite(c);
+                if (image != null) {
+                    Button button = new Button();
+                    ImageView imageView = new ImageView(image);
+                    sprites[row][col] = imageView;
                     button.setGraphic(imageView);
                     button.setMinSize(ICON_SIZE, ICON_SIZE);
                     button.setMaxSize(ICON_SIZE, ICON_SIZE);
                     int finalRow = row;
                     int finalCol = col;
-                    if (c == HoppersConfig.RED_FROG || c == HoppersConfig.GREEN_FROG) {
-                        button.setOnAction(event -> {
-                            startRow = finalRow;
-                            startCol = finalCol;
-                            jumpTurn = true;
-                        });
-                    } else if (c == HoppersConfig.EMPTY) {
-                        button.setOnAction(event -> {
-                            if (jumpTurn) {
-                                hoppersModel.jump(startRow, startCol, finalRow, finalCol);
-                                updateBoard(hoppersModel.getBoard(), stage);
-                            }
-                        });
+                    if (c != HoppersConfig.INVALID) {
+                        button.setOnAction(event -> select(finalRow, finalCol));
                     }
                     gridPane.add(button, col, row);
                 }
@@ -293,13 +367,29 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         Button hintButton = new Button("Hint");
         hintButton.setOnAction(event -> hint(stage));
 
+        cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(event -> hoppersModel.cancelHint());
+        cancelButton.setDisable(true);
+
+        Button undoButton = new Button("Undo");
+        undoButton.setOnAction(event -> hoppersModel.undo());
+
+        Button redoButton = new Button("Redo");
+        redoButton.setOnAction(event -> hoppersModel.redo());
+
         loadButton.setFont(font);
         resetButton.setFont(font);
         hintButton.setFont(font);
+        cancelButton.setFont(font);
+        undoButton.setFont(font);
+        redoButton.setFont(font);
 
         hBox.getChildren().add(loadButton);
         hBox.getChildren().add(resetButton);
         hBox.getChildren().add(hintButton);
+        hBox.getChildren().add(cancelButton);
+        hBox.getChildren().add(undoButton);
+        hBox.getChildren().add(redoButton);
 
         hBox.setAlignment(Pos.CENTER);
 
@@ -337,7 +427,6 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
             try {
                 loadedFilename = filepath;
 
-                hoppersModel = new HoppersModel(filepath);
                 init(loadedFilename);
                 updateBoard(hoppersModel.getBoard(), stage);
                 start(stage);
@@ -365,12 +454,11 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
 
     /**
      * method to handle the action when hint is pressed
+     * the puzzle is solved in the background and the board is redrawn when the model reports the next step
      * @param stage the current stage
      */
     public void hint(Stage stage){
-        update(hoppersModel, "Next Step:");
-        hoppersModel.updateBoard();
-        updateBoard(hoppersModel.getBoard(), stage);
+        hoppersModel.requestHint();
     }
 
     /**
@@ -378,11 +466,21 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
      */
     @Override
     public void start(Stage stage) throws Exception {
+        this.stage = stage;
         setStage(stage);
     }
 
+    /**
+     * stops the model's background solver when the window is closed
+     */
+    @Override
+    public void stop() {
+        hoppersModel.shutdown();
+    }
+
     /**
      * updates the string to be displayed at the top of the game's window
+     * the board itself is redrawn from the model's events
      */
     @Override
     public void update(HoppersModel hoppersModel, String msg) {
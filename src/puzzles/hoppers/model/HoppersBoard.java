@@ -0,0 +1,242 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SearchBoard;
+
+import java.util.SplittableRandom;
+
+/**
+ * A mutable Hoppers board for searches that make and take back jumps in place.
+ * The cells are kept in one row-major array and every jump is packed into an int
+ * as the cell of the jumping frog times eight plus the direction of the jump.
+ * A Zobrist hash of the frogs is updated with three exclusive-ors per jump.
+ * @author cmp2318
+ */
+public class HoppersBoard implements SearchBoard {
+    /**
+     * The row and column offsets from a jumping frog to the frog it jumps over,
+     * in the same order as {@link HoppersConfig#getMoves()}.
+     */
+    private static final int[][] JUMPS = {
+            {-2, 0}, {0, 2}, {2, 0}, {0, -2},
+            {-1, -1}, {-1, 1}, {1, 1}, {1, -1}
+    };
+    /**
+     * The number of rows on the board.
+     */
+    private final int rows;
+    /**
+     * The number of columns on the board.
+     */
+    private final int cols;
+    /**
+     * The cells of the board in row-major order.
+     */
+    private final char[] cells;
+    /**
+     * over[cell * 8 + direction] is the cell jumped over, or -1 if the jump leaves the board.
+     */
+    private final int[] over;
+    /**
+     * to[cell * 8 + direction] is the cell landed on, or -1 if the jump leaves the board.
+     */
+    private final int[] to;
+    /**
+     * The random keys of a red frog on each cell.
+     */
+    private final long[] redKeys;
+    /**
+     * The random keys of a green frog on each cell.
+     */
+    private final long[] greenKeys;
+    /**
+     * The jumps made so far.
+     */
+    private final int[] stack;
+    /**
+     * The number of jumps made so far.
+     */
+    private int depth;
+    /**
+     * The number of frogs on the starting board.
+     */
+    private int frogs;
+    /**
+     * The number of green frogs left.
+     */
+    private int greens;
+    /**
+     * The Zobrist hash of the frogs on the board.
+     */
+    private long hash;
+
+    /**
+     * Creates a mutable board holding the same frogs as a configuration.
+     * @param config the configuration to copy
+     */
+    public HoppersBoard(HoppersConfig config) {
+        char[][] board = config.getBoard();
+        this.rows = board.length;
+        this.cols = board[0].length;
+        int size = rows * cols;
+        this.cells = new char[size];
+        this.over = new int[size * 8];
+        this.to = new int[size * 8];
+        this.redKeys = new long[size];
+        this.greenKeys = new long[size];
+        SplittableRandom random = new SplittableRandom(size);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                cells[cell] = board[r][c];
+                redKeys[cell] = random.nextLong();
+                greenKeys[cell] = random.nextLong();
+                for (int d = 0; d < JUMPS.length; d++) {
+                    int overRow = r + JUMPS[d][0];
+                    int overCol = c + JUMPS[d][1];
+                    int toRow = r + 2 * JUMPS[d][0];
+                    int toCol = c + 2 * JUMPS[d][1];
+                    boolean inside = toRow >= 0 && toRow < rows && toCol >= 0 && toCol < cols;
+                    over[cell * 8 + d] = inside ? overRow * cols + overCol : -1;
+                    to[cell * 8 + d] = inside ? toRow * cols + toCol : -1;
+                }
+                if (board[r][c] == HoppersConfig.GREEN_FROG) {
+                    greens++;
+                }
+                if (board[r][c] == HoppersConfig.GREEN_FROG || board[r][c] == HoppersConfig.RED_FROG) {
+                    frogs++;
+                }
+                hash ^= key(board[r][c], cell);
+            }
+        }
+        this.stack = new int[Math.max(greens, 1)];
+    }
+
+    /**
+     * Writes every jump that can be made into a buffer, frog by frog in row-major order.
+     * @param moves a buffer of at least {@link #maxMoves()} ints
+     * @return the number of jumps written
+     */
+    @Override
+    public int generateMoves(int[] moves) {
+        int count = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            char frog = cells[cell];
+            if (frog != HoppersConfig.RED_FROG && frog != HoppersConfig.GREEN_FROG) {
+                continue;
+            }
+            for (int move = cell * 8; move < cell * 8 + 8; move++) {
+                if (to[move] != -1 && cells[over[move]] == HoppersConfig.GREEN_FROG &&
+                        cells[to[move]] == HoppersConfig.EMPTY) {
+                    moves[count++] = move;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Makes a jump and pushes it on the stack.
+     * @param move a jump written by generateMoves
+     */
+    @Override
+    public void makeMove(int move) {
+        int from = move >> 3;
+        char frog = cells[from];
+        cells[from] = HoppersConfig.EMPTY;
+        cells[over[move]] = HoppersConfig.EMPTY;
+        cells[to[move]] = frog;
+        hash ^= key(frog, from) ^ greenKeys[over[move]] ^ key(frog, to[move]);
+        greens--;
+        stack[depth++] = move;
+    }
+
+    /**
+     * Takes back the last jump made.
+     */
+    @Override
+    public void unmakeMove() {
+        int move = stack[--depth];
+        int from = move >> 3;
+        char frog = cells[to[move]];
+        cells[to[move]] = HoppersConfig.EMPTY;
+        cells[over[move]] = HoppersConfig.GREEN_FROG;
+        cells[from] = frog;
+        hash ^= key(frog, from) ^ greenKeys[over[move]] ^ key(frog, to[move]);
+        greens++;
+    }
+
+    /**
+     * Returns the number of jumps made so far.
+     * @return the depth of the stack
+     */
+    @Override
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the Zobrist hash of the frogs on the board.
+     * @return the hash
+     */
+    @Override
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Checks if all green frogs have been removed.
+     * @return true if no green frog is left
+     */
+    @Override
+    public boolean isSolution() {
+        return greens == 0;
+    }
+
+    /**
+     * Every frog can jump in at most eight directions and no jump adds a frog.
+     * @return eight times the number of frogs on the starting board
+     */
+    @Override
+    public int maxMoves() {
+        return frogs * 8;
+    }
+
+    /**
+     * Every jump removes a green frog.
+     * @return the number of green frogs on the starting board
+     */
+    @Override
+    public int maxDepth() {
+        return stack.length;
+    }
+
+    /**
+     * Copies the board into a HoppersConfig.
+     * @return the configuration the board currently represents
+     */
+    @Override
+    public Configuration freeze() {
+        char[][] board = new char[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(cells, r * cols, board[r], 0, cols);
+        }
+        return new HoppersConfig(rows, cols, board);
+    }
+
+    /**
+     * Returns the random key of a cell's contents.
+     * @param contents the character on the cell
+     * @param cell the index of the cell
+     * @return the key, or 0 if the cell holds no frog
+     */
+    private long key(char contents, int cell) {
+        if (contents == HoppersConfig.RED_FROG) {
+            return redKeys[cell];
+        }
+        if (contents == HoppersConfig.GREEN_FROG) {
+            return greenKeys[cell];
+        }
+        return 0;
+    }
+}
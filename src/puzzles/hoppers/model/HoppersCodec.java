@@ -0,0 +1,105 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ConfigurationCodec;
+
+import java.util.Arrays;
+
+/**
+ * Writes the Hoppers boards reachable from a starting board into checkpoint records.
+ * The invalid cells and the dimensions never change, so a record only holds the lily pads,
+ * two bits each in row-major order: empty, a red frog or a green frog.
+ * @author cmp2318
+ */
+public class HoppersCodec implements ConfigurationCodec {
+    /**
+     * The contents of a lily pad, indexed by its two bits.
+     */
+    private static final char[] CELLS = {HoppersConfig.EMPTY, HoppersConfig.RED_FROG, HoppersConfig.GREEN_FROG};
+
+    /**
+     * The number of rows of the boards.
+     */
+    private final int rows;
+    /**
+     * The number of columns of the boards.
+     */
+    private final int cols;
+    /**
+     * The row and column of every lily pad, in row-major order.
+     */
+    private final int[][] pads;
+
+    /**
+     * Creates the codec of the boards reachable from a starting board.
+     * @param start the starting board
+     */
+    public HoppersCodec(HoppersConfig start) {
+        char[][] board = start.getBoard();
+        this.rows = board.length;
+        this.cols = board[0].length;
+        int count = 0;
+        for (char[] row : board) {
+            for (char cell : row) {
+                if (cell != HoppersConfig.INVALID) {
+                    count++;
+                }
+            }
+        }
+        this.pads = new int[count][];
+        int pad = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (board[r][c] != HoppersConfig.INVALID) {
+                    pads[pad++] = new int[]{r, c};
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes of a record, a quarter byte per lily pad.
+     * @return the size of a record
+     */
+    @Override
+    public int size() {
+        return (pads.length * 2 + 7) / 8;
+    }
+
+    /**
+     * Writes the lily pads of a board into a record.
+     * @param config a board reachable from the starting one
+     * @param record the record, overwritten
+     */
+    @Override
+    public void encode(Configuration config, byte[] record) {
+        char[][] board = ((HoppersConfig) config).getBoard();
+        Arrays.fill(record, (byte) 0);
+        for (int pad = 0; pad < pads.length; pad++) {
+            int bits = switch (board[pads[pad][0]][pads[pad][1]]) {
+                case HoppersConfig.EMPTY -> 0;
+                case HoppersConfig.RED_FROG -> 1;
+                case HoppersConfig.GREEN_FROG -> 2;
+                default -> throw new IllegalArgumentException("Not a lily pad at " + pads[pad][0] + " " + pads[pad][1]);
+            };
+            record[pad / 4] |= (byte) (bits << (pad % 4 * 2));
+        }
+    }
+
+    /**
+     * Reads a board back from a record.
+     * @param record a record written by encode
+     * @return the board
+     */
+    @Override
+    public Configuration decode(byte[] record) {
+        char[][] board = new char[rows][cols];
+        for (char[] row : board) {
+            Arrays.fill(row, HoppersConfig.INVALID);
+        }
+        for (int pad = 0; pad < pads.length; pad++) {
+            board[pads[pad][0]][pads[pad][1]] = CELLS[(record[pad / 4] >> (pad % 4 * 2)) & 3];
+        }
+        return new HoppersConfig(rows, cols, board);
+    }
+}
@@ -1,6 +1,8 @@
 package puzzles.hoppers.model;
 
+import puzzles.common.Coordinates;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.MoveConfiguration;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -15,7 +17,7 @@ import java.util.*;
  * and to find all possible jumps for a given frog at a given position.
  * @author cmp2318
  */
-public class HoppersConfig implements Configuration{
+public class HoppersConfig implements MoveConfiguration<Jump> {
     /**
      * The number of rows in the game board.
      */
@@ -29,6 +31,10 @@ public class HoppersConfig implements Configuration{
      * Each element of the array represents a cell on the board.
      */
     private final char[][] board;
+    /**
+     * The hash code of the board, or 0 until it is first asked for.
+     */
+    private int hash;
     /**
      * Constant representing an empty cell on the game board.
      */
@@ -98,65 +104,76 @@ public class HoppersConfig implements Configuration{
     @Override
     public Collection<Configuration> getNeighbors() {
         List<Configuration> neighbors = new ArrayList<>();
+        for (Jump jump : getMoves()) {
+            neighbors.add(applyMove(jump));
+        }
+        return neighbors;
+    }
+
+    /**
+     * Returns every jump that can be made on the current board, frog by frog in row-major order.
+     * @return List of jumps
+     */
+    @Override
+    public List<Jump> getMoves() {
+        List<Jump> jumps = new ArrayList<>();
 
 
         for(int r = 0;r<numRows;r++){
 
             for (int c = 0;c<numCols;c++){
-                if(board[r][c] == RED_FROG){
-
-
-                    List<Configuration> newNeighbors = checkJumps(r, c, RED_FROG);
-                    neighbors.addAll(newNeighbors);
-                } else if (board[r][c] == GREEN_FROG) {
-                    List<Configuration> newNeighbors = checkJumps(r, c, GREEN_FROG);
-                    neighbors.addAll(newNeighbors);
+                if(board[r][c] == RED_FROG || board[r][c] == GREEN_FROG){
+                    jumps.addAll(checkJumps(r, c));
                 }
             }
         }
 
-        return neighbors;
+        return jumps;
 
     }
 
+    /**
+     * Makes a jump on a copy of the board.
+     * @param jump a jump returned by getMoves
+     * @return the configuration after the jump
+     */
+    @Override
+    public HoppersConfig applyMove(Jump jump) {
+        char[][] neighborBoard = copyBoard(board);
+        neighborBoard[jump.from().row()][jump.from().col()] = EMPTY;
+        neighborBoard[jump.over().row()][jump.over().col()] = EMPTY;
+        neighborBoard[jump.to().row()][jump.to().col()] = board[jump.from().row()][jump.from().col()];
+        return new HoppersConfig(numRows, numCols, neighborBoard);
+    }
 
     /**
-     * Finds all possible jumps for the given frog at the given position.
+     * Two jumps are independent when they touch disjoint cells.
+     * @param a the first jump
+     * @param b the second jump
+     * @return true if the jumps can be made in either order
+     */
+    @Override
+    public boolean independent(Jump a, Jump b) {
+        return !a.overlaps(b);
+    }
+
+
+    /**
+     * Finds all possible jumps for the frog at the given position.
      *
      * @param row the row of the frog
      * @param col the column of the frog
-     * @param frog the type of the frog
-     * @return a list of all possible configurations resulting from the jumps
+     * @return a list of all possible jumps for the frog
      */
-    private List<Configuration> checkJumps(int row, int col, char frog) {
-        List<Configuration> neighbors = new ArrayList<>();
+    private List<Jump> checkJumps(int row, int col) {
+        List<Jump> jumps = new ArrayList<>();
         int n = board.length;
         int m = board[0].length;
 
 
-        // check 4 cardinal positions
-        int[][] moves = { {-2, 0}, {0, 2}, {2, 0}, {0, -2} };
-        for (int[] move : moves) {
-            int r = row + move[0];
-            int c = col + move[1];
-            if (r < 0 || r >= n || c < 0 || c >= m || board[r][c] != GREEN_FROG) {
-                continue;
-            }
-            int rr = row + 2 * move[0];
-            int cc = col + 2 * move[1];
-            if (rr < 0 || rr >= n || cc < 0 || cc >= m || board[rr][cc] != EMPTY) {
-                continue;
-            }
-            char[][] neighborBoard = copyBoard(board);
-            neighborBoard[row][col] = EMPTY;
-            neighborBoard[r][c] = EMPTY;
-            neighborBoard[rr][cc] = frog;
-            neighbors.add(new HoppersConfig(numRows, numCols, neighborBoard));
-        }
-
-
-        // check the 4 diagonal positions
-        moves = new int[][] { {-1, -1}, {-1, 1}, {1, 1}, {1, -1} };
+        // check 4 cardinal positions, then the 4 diagonal positions
+        int[][] moves = { {-2, 0}, {0, 2}, {2, 0}, {0, -2},
+                {-1, -1}, {-1, 1}, {1, 1}, {1, -1} };
         for (int[] move : moves) {
             int r = row + move[0];
             int c = col + move[1];
@@ -168,15 +185,11 @@ public class HoppersConfig implements Configuration{
             if (rr < 0 || rr >= n || cc < 0 || cc >= m || board[rr][cc] != EMPTY) {
                 continue;
             }
-            char[][] neighborBoard = copyBoard(board);
-            neighborBoard[row][col] = EMPTY;
-            neighborBoard[r][c] = EMPTY;
-            neighborBoard[rr][cc] = frog;
-            neighbors.add(new HoppersConfig(numRows, numCols, neighborBoard));
+            jumps.add(new Jump(new Coordinates(row, col), new Coordinates(r, c), new Coordinates(rr, cc)));
         }
 
 
-        return neighbors;
+        return jumps;
 
 
     }
@@ -211,25 +224,131 @@ public class HoppersConfig implements Configuration{
      */
     public static char[][] createBoard(String filename){
         try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String[] dimensions = reader.readLine().split(" ");
-            int rows = Integer.parseInt(dimensions[0]);
-            int cols = Integer.parseInt(dimensions[1]);
-            char[][] grid = new char[rows][cols];
-            for (int row = 0; row < rows; row++) {
-                String line = reader.readLine();
-                for (int col = 0; col < cols; col++) {
-                    grid[row][col] = line.charAt(col * 2);
-                }
-            }
-
-
-            return grid;
+            return read(reader).getBoard();
         } catch (IOException e) {
             System.err.println("Error reading input file: " + e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Reads a board configuration in the format of the puzzle files, from any source
+     * such as the body of a request to the solve service.
+     * Each row is only allocated once its line has been read, so a bad first line
+     * cannot make the board larger than the input.
+     * @param reader the source of the board, positioned at the line with the dimensions
+     * @return the configuration read
+     * @throws IOException if the source cannot be read or is not a board
+     */
+    public static HoppersConfig read(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("No board dimensions");
+        }
+        String[] dimensions = header.trim().split("\\s+");
+        int rows;
+        int cols;
+        try {
+            rows = Integer.parseInt(dimensions[0]);
+            cols = Integer.parseInt(dimensions[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Bad board dimensions: " + header);
+        }
+        if (rows <= 0 || cols <= 0) {
+            throw new IOException("Bad board dimensions: " + header);
+        }
+        char[][] grid = new char[rows][];
+        for (int row = 0; row < rows; row++) {
+            String line = reader.readLine();
+            if (line == null || line.length() < cols * 2 - 1) {
+                throw new IOException("Row " + row + " is missing or too short");
+            }
+            grid[row] = new char[cols];
+            for (int col = 0; col < cols; col++) {
+                grid[row][col] = line.charAt(col * 2);
+            }
+        }
+        return new HoppersConfig(rows, cols, grid);
+    }
+
+
+    /**
+     * Two configurations are equal when their boards hold the same cells.
+     *
+     * @param other the object to compare against
+     * @return true if other is a HoppersConfig with the same board
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof HoppersConfig) {
+            HoppersConfig config = (HoppersConfig) other;
+            return hashCode() == config.hashCode() && Arrays.deepEquals(board, config.board);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code based on the cells of the board. The cells are packed two bits
+     * each into 64-bit words, which are mixed so that boards differing in a single frog
+     * differ in about half the bits. The hash is worked out once, so the board must not
+     * be changed after it is first asked for.
+     *
+     * @return the hash code of the board
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            long mixed = numRows * 31L + numCols;
+            long word = 0;
+            int cells = 0;
+            for (char[] row : board) {
+                for (char cell : row) {
+                    word = word << 2 | (cell == GREEN_FROG ? 1 : cell == RED_FROG ? 2 : cell == INVALID ? 3 : 0);
+                    if (++cells == 32) {
+                        mixed = mix(mixed ^ word);
+                        word = 0;
+                        cells = 0;
+                    }
+                }
+            }
+            mixed = mix(mixed ^ word);
+            h = (int) (mixed ^ mixed >>> 32);
+            hash = h == 0 ? 1 : h;
+        }
+        return hash;
+    }
+
+    /**
+     * Scrambles the bits of a word, with the finalizer of the 64-bit MurmurHash3.
+     * @param x the word
+     * @return the scrambled word
+     */
+    private static long mix(long x) {
+        x = (x ^ x >>> 33) * 0xff51afd7ed558ccdL;
+        x = (x ^ x >>> 33) * 0xc4ceb9fe1a85ec53L;
+        return x ^ x >>> 33;
+    }
+
+    /**
+     * Returns the heap this configuration takes on a 64-bit JVM with compressed references:
+     * the object with its cached hash, the array of rows and one char array per row, each rounded up to 8 bytes.
+     * @return the size in bytes
+     */
+    @Override
+    public long estimateBytes() {
+        return 32 + align(16 + 4L * numRows) + numRows * align(16 + 2L * numCols);
+    }
+
+    /**
+     * Rounds a size up to the 8 bytes every object on the heap is aligned to.
+     * @param bytes the size
+     * @return the aligned size
+     */
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
 
     /**
      * Returns a string representation of the current HoppersConfig object.
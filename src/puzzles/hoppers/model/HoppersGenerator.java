@@ -0,0 +1,127 @@
+package puzzles.hoppers.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Makes random Hoppers puzzles that are known to be solvable, by playing the game backwards.
+ * The generator starts from a solved board with only the red frog on it and takes back jumps
+ * until the board has the wanted number of frogs: a frog moves back over an empty cell,
+ * and a green frog appears in that cell. Every jump taken back can then be made forwards,
+ * so the puzzle can be solved by making them again in the opposite order.
+ * The same seed always makes the same puzzle.
+ * @author cmp2318
+ */
+public class HoppersGenerator {
+    /**
+     * The number of times generation starts over when the frogs are boxed in before there are enough of them.
+     */
+    private static final int ATTEMPTS = 1000;
+    /**
+     * The row and column offsets a frog jumps over, as in {@link HoppersConfig}.
+     */
+    private static final int[][] DIRECTIONS = { {-2, 0}, {0, 2}, {2, 0}, {0, -2},
+            {-1, -1}, {-1, 1}, {1, 1}, {1, -1} };
+
+    /**
+     * The source of the puzzles.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Creates a generator.
+     * @param seed the seed of the puzzles it makes
+     */
+    public HoppersGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Makes a solvable puzzle. The cells whose row and column add up to an odd number are invalid, as on every Hoppers board.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param frogs the number of frogs, counting the red one
+     * @return the board
+     * @throws IllegalArgumentException if that many frogs cannot be placed on a board of that size
+     */
+    public char[][] generate(int rows, int cols, int frogs) {
+        if (rows <= 0 || cols <= 0 || frogs <= 0 || frogs > (rows * cols + 1) / 2) {
+            throw new IllegalArgumentException(frogs + " frogs do not fit on a " + rows + "x" + cols + " board");
+        }
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            char[][] board = new char[rows][cols];
+            List<int[]> cells = new ArrayList<>();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    board[r][c] = (r + c) % 2 == 0 ? HoppersConfig.EMPTY : HoppersConfig.INVALID;
+                    if (board[r][c] == HoppersConfig.EMPTY) {
+                        cells.add(new int[]{r, c});
+                    }
+                }
+            }
+            int[] red = cells.get(random.nextInt(cells.size()));
+            board[red[0]][red[1]] = HoppersConfig.RED_FROG;
+            int placed = 1;
+            while (placed < frogs && unjump(board)) {
+                placed++;
+            }
+            if (placed == frogs) {
+                return board;
+            }
+        }
+        throw new IllegalArgumentException("Could not place " + frogs + " frogs on a " + rows + "x" + cols + " board");
+    }
+
+    /**
+     * Takes back one jump chosen at random from every jump that could have led to the board.
+     * @param board the board, changed in place
+     * @return true if a jump was taken back, false if no jump could have led to the board
+     */
+    private boolean unjump(char[][] board) {
+        List<int[]> jumps = new ArrayList<>();
+        for (int r = 0; r < board.length; r++) {
+            for (int c = 0; c < board[r].length; c++) {
+                if (board[r][c] != HoppersConfig.RED_FROG && board[r][c] != HoppersConfig.GREEN_FROG) {
+                    continue;
+                }
+                for (int[] d : DIRECTIONS) {
+                    int overRow = r - d[0];
+                    int overCol = c - d[1];
+                    int fromRow = r - 2 * d[0];
+                    int fromCol = c - 2 * d[1];
+                    if (fromRow >= 0 && fromRow < board.length && fromCol >= 0 && fromCol < board[r].length
+                            && board[overRow][overCol] == HoppersConfig.EMPTY
+                            && board[fromRow][fromCol] == HoppersConfig.EMPTY) {
+                        jumps.add(new int[]{r, c, overRow, overCol, fromRow, fromCol});
+                    }
+                }
+            }
+        }
+        if (jumps.isEmpty()) {
+            return false;
+        }
+        int[] jump = jumps.get(random.nextInt(jumps.size()));
+        board[jump[4]][jump[5]] = board[jump[0]][jump[1]];
+        board[jump[2]][jump[3]] = HoppersConfig.GREEN_FROG;
+        board[jump[0]][jump[1]] = HoppersConfig.EMPTY;
+        return true;
+    }
+
+    /**
+     * Returns a board in the format of the puzzle files, the dimensions on the first line and then one line per row.
+     * @param board the board
+     * @return the contents of a puzzle file
+     */
+    public static String format(char[][] board) {
+        StringBuilder text = new StringBuilder();
+        text.append(board.length).append(' ').append(board[0].length).append('\n');
+        for (char[] row : board) {
+            for (int c = 0; c < row.length; c++) {
+                text.append(c == 0 ? "" : " ").append(row[c]);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
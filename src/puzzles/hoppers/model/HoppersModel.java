@@ -1,14 +1,35 @@
 package puzzles.hoppers.model;
 
+import puzzles.common.Coordinates;
+import puzzles.common.EventQueue;
+import puzzles.common.History;
+import puzzles.common.ModelEvent;
+import puzzles.common.OperationEvent;
 import puzzles.common.Observer;
+import puzzles.common.PersistentBoard;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SolutionCache;
+import puzzles.common.solver.SearchBudget;
+import puzzles.common.solver.SearchMetrics;
 import puzzles.common.solver.Solver;
+import puzzles.hoppers.solver.HoppersAnalyzer;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The HoppersModel class represents the model of the Hoppers game, which
@@ -37,6 +58,86 @@ public class HoppersModel {
      * The number of columns on the game board.
      */
     private int cols;
+    /**
+     * Runs the solves started by {@link #requestHint()}, one at a time on a daemon thread.
+     * Java 17 has no virtual threads, so one platform thread is kept per model.
+     */
+    private final ExecutorService solving = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "hoppers-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Runs the speculative solves started after every jump, on a daemon thread of the
+     * lowest priority so they give way to the GUI and to hints that were asked for.
+     * Every model has its own, so the prefetch of one game never waits behind those of
+     * the other games of a host; a model cancels its previous prefetch before queueing the next.
+     */
+    private final ExecutorService prefetching = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "hoppers-prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    /**
+     * The number of configurations kept in the hint cache.
+     */
+    private static final int HINT_CACHE_SIZE = 4096;
+    /**
+     * The next steps found by every solve, shared by all models so that a reset or
+     * reload of the same puzzle keeps them.
+     */
+    private static final SolutionCache hints = new SolutionCache(HINT_CACHE_SIZE);
+    /**
+     * The longest a hint or speculative solve may run, in milliseconds.
+     */
+    private static final long HINT_MILLIS = 60_000;
+    /**
+     * The limits of every solve this model starts, so that a board too large to solve
+     * gives up with a message instead of leaving the player waiting until the heap runs out.
+     * A solve may use a quarter of the heap, as a hint and a speculative solve can run at once.
+     */
+    private volatile SearchBudget budget = new SearchBudget(0, Runtime.getRuntime().maxMemory() / 4, HINT_MILLIS);
+    /**
+     * The solver of the speculative solve in the background, or null if there is none.
+     */
+    private volatile Solver prefetch;
+    /**
+     * The solver of the most recent solve this model started, a hint or a speculative one,
+     * or null if it has not started any.
+     */
+    private volatile Solver lastSolve;
+    /**
+     * The configuration the speculative solve started from.
+     */
+    private volatile HoppersConfig prefetchStart;
+    /**
+     * The task of the speculative solve, done once its result is cached.
+     */
+    private volatile Future<?> prefetchTask;
+    /**
+     * Runs every notification of the observers. The GUI sets this to its application
+     * thread; by default observers are told on the thread that changed the model.
+     */
+    private Executor notifier = Runnable::run;
+    /**
+     * The solver of the hint being computed in the background, or null if there is none.
+     * Only read and written on the notifier's thread.
+     */
+    private Solver pending;
+    /**
+     * Whether a progress notification has been posted and not yet delivered,
+     * so that a slow observer thread never builds up a backlog of them.
+     */
+    private final AtomicBoolean progressPosted = new AtomicBoolean();
+    /**
+     * The typed events of this model, delivered in coalesced batches on the notifier.
+     */
+    private final EventQueue<HoppersModel> events = new EventQueue<>(this);
+    /**
+     * The moves made since the board was loaded, for undo and redo.
+     */
+    private final History<Character> history;
 
     /**
      * Constructs a HoppersModel object and loads the board from the given file.
@@ -45,8 +146,19 @@ public class HoppersModel {
      */
     public HoppersModel(String filename) {
 
+        Solver.addAnalyzer(HoppersConfig.class, new HoppersAnalyzer());
         board = loadBoard(filename);
         currentConfig = new HoppersConfig(rows, cols, board);
+        // a board that could not be read was already reported, and has no moves to record
+        List<Character> cells = new ArrayList<>();
+        if (board != null) {
+            for (char[] row : board) {
+                for (char cell : row) {
+                    cells.add(cell);
+                }
+            }
+        }
+        history = new History<>(PersistentBoard.of(cells));
 
         alertObservers("Loaded: " + filename);
     }
@@ -60,6 +172,37 @@ public class HoppersModel {
         this.observers.add(observer);
     }
 
+    /**
+     * Sets the thread observers are told on. The notifier is also where the result of a
+     * background solve is applied, so every change to the board happens on that thread.
+     * @param notifier runs each notification, for example Platform::runLater
+     */
+    public void setNotifier(Executor notifier) {
+        this.notifier = notifier;
+        this.events.setFrame(notifier);
+    }
+
+    /**
+     * A view calls this to receive typed events instead of messages. Every event published
+     * before the notifier runs the delivery arrives in one list, with the changed cells of
+     * all moves merged into a single {@link ModelEvent.BoardDelta}.
+     *
+     * @param observer the view
+     */
+    public void addEventObserver(Observer<HoppersModel, List<ModelEvent>> observer) {
+        events.addObserver(observer);
+    }
+
+    /**
+     * Runs a series of changes, such as playing several moves, and delivers the events
+     * they publish as one batch.
+     *
+     * @param changes the changes to make
+     */
+    public void batch(Runnable changes) {
+        events.batch(changes);
+    }
+
     /**
      * Returns the current configuration of the game board.
      * @return the current configuration of the game board
@@ -92,39 +235,410 @@ public class HoppersModel {
      * If there is no solution to the puzzle, the method will alert the observers.
      * If there is a valid next step, the method will update the board with the new
      * configuration and alert the observers.
+     * If the speculative solve is already working on this board, its answer is waited for
+     * instead of solving the board a second time.
      */
     public void updateBoard(){
-        if (currentConfig.isSolution()){
-            alertObservers("This is the solution: ");
+        OperationEvent event = OperationEvent.begin("hoppers", "hint");
+        try {
+            if (currentConfig.isSolution()){
+                alertObservers("This is the solution: ");
+                return;
+            }
+
+            if (!hints.contains(currentConfig)) {
+                HoppersConfig start = new HoppersConfig(rows, cols, HoppersConfig.copyBoard(board));
+                Solver solver = joinPrefetch(start);
+                if (solver == null) {
+                    solver = new Solver();
+                    solver.setBudget(budget);
+                    lastSolve = solver;
+                    cache(solver, start, solver.search(start));
+                }
+                if (solver.getExceeded() != null) {
+                    alertError("No hint, the solver gave up: " + solver.getExceeded());
+                    return;
+                }
+                if (solver.getRejected() != null) {
+                    alertError("No Solution to this puzzle: " + solver.getRejected());
+                    return;
+                }
+            }
+            applyCached();
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Sets the limits of the hints and speculative solves started afterwards.
+     * @param budget the limits, SearchBudget.UNLIMITED to let them run until they end
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the counts and timings of the most recent solve this model started,
+     * which may still be running.
+     * @return the metrics, or null if the model has not solved anything
+     */
+    public SearchMetrics getMetrics() {
+        Solver solver = lastSolve;
+        return solver == null ? null : solver.getMetrics();
+    }
+
+    /**
+     * Starts solving the current configuration on the background thread and makes the
+     * next move once the solve is done. Observers are told "Solving..." at the start,
+     * the number of configurations seen every {@link Solver#PROGRESS_INTERVAL} of them,
+     * and then the same messages as {@link #updateBoard()}, all through the notifier.
+     * A request made while a hint for the same board is still being computed is merged
+     * into it, so clicking repeatedly does not queue up more solves.
+     * Must be called on the notifier's thread.
+     */
+    public void requestHint() {
+        OperationEvent event = OperationEvent.begin("hoppers", "requestHint");
+        try {
+            if (pending != null) {
+                alertObservers("Still solving...");
+                return;
+            }
+            if (currentConfig.isSolution()) {
+                alertObservers("This is the solution: ");
+                return;
+            }
+            if (hints.contains(currentConfig)) {
+                applyCached();
+                return;
+            }
+            Solver running = prefetch;
+            if (running != null && currentConfig.equals(prefetchStart)) {
+                // the speculative solve is already working on this board, so it becomes the hint
+                pending = running;
+                events.publish(new ModelEvent.SolveProgress(0, false));
+                alertObservers("Solving...");
+                return;
+            }
+            Solver solver = new Solver();
+            solver.setBudget(budget);
+            // jumps change the board in place, so the background thread gets its own copy
+            HoppersConfig start = new HoppersConfig(rows, cols, HoppersConfig.copyBoard(board));
+            solver.setProgress(s -> {
+                if (!s.isCancelled()) {
+                    events.publish(new ModelEvent.SolveProgress(s.getUnique(), false));
+                }
+                if (progressPosted.compareAndSet(false, true)) {
+                    long unique = s.getUnique();
+                    notifier.execute(() -> {
+                        progressPosted.set(false);
+                        if (pending == solver) {
+                            alertObservers("Solving... " + unique + " configurations");
+                        }
+                    });
+                }
+            });
+            pending = solver;
+            lastSolve = solver;
+            events.publish(new ModelEvent.SolveProgress(0, false));
+            alertObservers("Solving...");
+            solving.execute(() -> {
+                List<Configuration> path = solver.search(start);
+                cache(solver, start, path);
+                notifier.execute(() -> finishHint(solver, start, path));
+            });
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Starts a speculative solve of the current board on the low-priority thread, replacing
+     * the one in progress, so that the hint is usually cached before it is asked for.
+     * If a hint is asked for while it runs, the hint takes over its result.
+     */
+    private void prefetch() {
+        cancelPrefetch();
+        if (currentConfig.isSolution() || hints.contains(currentConfig)) {
             return;
         }
+        Solver solver = new Solver();
+        solver.setBudget(budget);
+        HoppersConfig start = new HoppersConfig(rows, cols, HoppersConfig.copyBoard(board));
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            if (solver.isCancelled()) {
+                return;
+            }
+            List<Configuration> path = solver.search(start);
+            cache(solver, start, path);
+            notifier.execute(() -> {
+                if (prefetch == solver) {
+                    prefetch = null;
+                }
+                finishHint(solver, start, path);
+            });
+        }, null);
+        prefetchStart = start;
+        prefetch = solver;
+        prefetchTask = task;
+        lastSolve = solver;
+        prefetching.execute(task);
+    }
 
-        List<String> path;
+    /**
+     * Waits for the speculative solve of a board, if one is running, instead of solving it again.
+     * @param start the board a hint is wanted for
+     * @return the solver of the speculative solve once it has cached its answer or given up,
+     *         or null if there is none for the board or it was cancelled
+     */
+    private Solver joinPrefetch(HoppersConfig start) {
+        Solver running = prefetch;
+        Future<?> task = prefetchTask;
+        if (running == null || task == null || !start.equals(prefetchStart)) {
+            return null;
+        }
+        try {
+            task.get();
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        boolean answered = hints.contains(start) || running.getExceeded() != null;
+        return !running.isCancelled() && answered ? running : null;
+    }
 
-        Solver.clearQueue();
+    /**
+     * Cancels the speculative solve in progress, unless a hint has taken it over.
+     */
+    private void cancelPrefetch() {
+        Solver running = prefetch;
+        if (running != null && running != pending) {
+            running.cancel();
+        }
+        prefetch = null;
+    }
 
-        try{
-            path = Solver.solve(currentConfig);
-            String nextStep = path.get(1);
-            String[] lines = nextStep.split("\n");
-            char[][] newBoard = new char[rows][cols];
+    /**
+     * Caches the result of a solve that ran to the end. A solve that gave up is not cached,
+     * as its empty path does not mean the board has no solution.
+     * @param solver the solver that ran
+     * @param start the configuration it solved, which nothing changes afterwards
+     * @param path the path it found
+     */
+    private static void cache(Solver solver, HoppersConfig start, List<Configuration> path) {
+        if (solver.isCancelled() || solver.getExceeded() != null) {
+            return;
+        }
+        if (path.isEmpty()) {
+            hints.putUnsolvable(start);
+        } else {
+            hints.putPath(path);
+        }
+    }
+
+    /**
+     * Makes the cached next step of the current board, or tells the observers there is none.
+     */
+    private void applyCached() {
+        Configuration next = hints.nextStep(currentConfig);
+        if (next == null) {
+            alertError("No Solution to this puzzle");
+            return;
+        }
+        setConfig((HoppersConfig) next);
+        alertObservers("Next Step:");
+    }
+
+    /**
+     * Stops the hint being computed in the background, if there is one.
+     * Must be called on the notifier's thread.
+     */
+    public void cancelHint() {
+        if (pending != null) {
+            pending.cancel();
+            events.publish(new ModelEvent.SolveProgress(pending.getUnique(), true));
+            pending = null;
+            alertObservers("Hint cancelled");
+        }
+    }
 
-            for (int i = 2; i < lines.length; i++) {
-                String[] row = lines[i].split("\\| ")[1].split(" ");
-                for (int j = 0; j < row.length; j++) {
-                    newBoard[i-2][j] = row[j].charAt(0);
+    /**
+     * Stops any background solve and the hint and prefetch threads. The model can still be
+     * played, but {@link #requestHint()} must not be called afterwards.
+     */
+    public void shutdown() {
+        if (pending != null) {
+            pending.cancel();
+            pending = null;
+        }
+        cancelPrefetch();
+        solving.shutdownNow();
+        prefetching.shutdownNow();
+    }
+
+    /**
+     * Applies the result of a background solve, unless it was cancelled or the board
+     * has changed since it was started. Runs on the notifier's thread.
+     * @param solver the solver that ran
+     * @param start the configuration it solved
+     * @param path the path it found
+     */
+    private void finishHint(Solver solver, HoppersConfig start, List<Configuration> path) {
+        if (pending != solver || solver.isCancelled()) {
+            return;
+        }
+        pending = null;
+        events.publish(new ModelEvent.SolveProgress(solver.getUnique(), true));
+        if (!start.equals(currentConfig)) {
+            return;
+        }
+        if (solver.getExceeded() != null) {
+            alertError("No hint, the solver gave up: " + solver.getExceeded());
+            return;
+        }
+        if (path.size() < 2) {
+            if (solver.getRejected() != null) {
+                alertError("No Solution to this puzzle: " + solver.getRejected());
+            } else {
+                alertError("No Solution to this puzzle");
+            }
+            return;
+        }
+        setConfig((HoppersConfig) path.get(1));
+        alertObservers("Next Step:");
+    }
+
+    /**
+     * Replaces the current configuration with a copy of the given one, which may be
+     * cached and so must not be changed by later jumps, and publishes the cells that differ.
+     * A single jump changes three cells, so only those are published.
+     * @param next the new configuration
+     */
+    private void setConfig(HoppersConfig next) {
+        char[][] nextBoard = HoppersConfig.copyBoard(next.getBoard());
+        next = new HoppersConfig(rows, cols, nextBoard);
+        Set<Coordinates> changed = new LinkedHashSet<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (board[r][c] != nextBoard[r][c]) {
+                    changed.add(new Coordinates(r, c));
                 }
             }
-            currentConfig = new HoppersConfig(rows, cols, newBoard);
-            board = currentConfig.getBoard();
-            alertObservers("Next Step:");
         }
-        catch (IndexOutOfBoundsException | NullPointerException e){
-            alertObservers("No Solution to this puzzle");
+        currentConfig = next;
+        board = nextBoard;
+        publishMove(changed);
+    }
+
+    /**
+     * Records the cells a move changed in the history, publishes them,
+     * and publishes that the puzzle is solved if it now is.
+     * @param changed the cells the move changed, already changed on the board
+     */
+    private void publishMove(Set<Coordinates> changed) {
+        List<History.Change<Character>> changes = new ArrayList<>();
+        for (Coordinates cell : changed) {
+            int index = cell.row() * cols + cell.col();
+            changes.add(new History.Change<>(index, history.current().get(index), board[cell.row()][cell.col()]));
+        }
+        history.record(changes);
+        events.publish(new ModelEvent.BoardDelta(changed));
+        if (currentConfig.isSolution()) {
+            events.publish(new ModelEvent.Solved());
+        }
+    }
+
+    /**
+     * Takes back the last move, whether it was a jump or a hint.
+     */
+    public void undo() {
+        OperationEvent event = OperationEvent.begin("hoppers", "undo");
+        try {
+            if (!history.canUndo()) {
+                alertError("Nothing to undo");
+                return;
+            }
+            travel(history.undo(), "Undo:");
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Makes the last move that was taken back again.
+     */
+    public void redo() {
+        OperationEvent event = OperationEvent.begin("hoppers", "redo");
+        try {
+            if (!history.canRedo()) {
+                alertError("Nothing to redo");
+                return;
+            }
+            travel(history.redo(), "Redo:");
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Goes to any point in the history of moves, keeping the later moves for redo.
+     * @param move the number of moves to have made, from 0 to {@link #getHistorySize()}
+     */
+    public void goTo(int move) {
+        OperationEvent event = OperationEvent.begin("hoppers", "goTo");
+        try {
+            if (move < 0 || move > history.size()) {
+                alertError("There is no move " + move);
+                return;
+            }
+            travel(history.seek(move), "Move " + move + " of " + history.size() + ":");
+        } finally {
+            event.finish();
         }
+    }
 
+    /**
+     * Returns the number of moves currently made.
+     * @return the position in the history
+     */
+    public int getHistoryPosition() {
+        return history.position();
+    }
 
+    /**
+     * Returns the number of moves in the history, including ones taken back.
+     * @return the length of the history
+     */
+    public int getHistorySize() {
+        return history.size();
+    }
 
+    /**
+     * Copies the cells the history changed onto the board and informs the observers.
+     * Any hint being computed is for the old board, so it is cancelled.
+     * @param cells the indices of the changed cells
+     * @param msg the message for the observers
+     */
+    private void travel(List<Integer> cells, String msg) {
+        cancelPrefetch();
+        if (pending != null) {
+            pending.cancel();
+            events.publish(new ModelEvent.SolveProgress(pending.getUnique(), true));
+            pending = null;
+        }
+        Set<Coordinates> changed = new LinkedHashSet<>();
+        for (int index : cells) {
+            board[index / cols][index % cols] = history.current().get(index);
+            changed.add(new Coordinates(index / cols, index % cols));
+        }
+        currentConfig = new HoppersConfig(rows, cols, board);
+        events.publish(new ModelEvent.BoardDelta(changed));
+        if (currentConfig.isSolution()) {
+            events.publish(new ModelEvent.Solved());
+        }
+        alertObservers(msg);
     }
 
     /**
@@ -141,50 +655,63 @@ public class HoppersModel {
      * @param endCol the column number of the ending position
      */
     public void jump(int startRow, int startCol, int endRow, int endCol){
-        char[][] board = currentConfig.getBoard();
+        OperationEvent event = OperationEvent.begin("hoppers", "jump");
+        try {
+            char[][] board = currentConfig.getBoard();
 
-        char start = board[startRow][startCol];
-        int jumpedRow = (startRow+endRow)/2;
-        int jumpedCol = (startCol+endCol)/2;
-
-        if(Math.abs(endRow-startRow) == 1){
-            alertObservers("Not a valid jump");
-            return;
-        }
+            char start = board[startRow][startCol];
+            int jumpedRow = (startRow+endRow)/2;
+            int jumpedCol = (startCol+endCol)/2;
 
-        if ((start!=HoppersConfig.RED_FROG && start!=HoppersConfig.GREEN_FROG)){
-            alertObservers("Invalid Selection");
-            return;
-        }
-        if(board[jumpedRow][jumpedCol] != HoppersConfig.RED_FROG &&
-                board[jumpedRow][jumpedCol] != HoppersConfig.GREEN_FROG){
+            if(Math.abs(endRow-startRow) == 1){
+                alertError("Not a valid jump");
+                return;
+            }
 
-            alertObservers("Cannot jump an empty space");
-            return;
-        }
-        if(board[endRow][endCol] == HoppersConfig.GREEN_FROG ||
-                board[endRow][endCol] == HoppersConfig.RED_FROG ||
-                board[endRow][endCol] == HoppersConfig.INVALID){
+            if ((start!=HoppersConfig.RED_FROG && start!=HoppersConfig.GREEN_FROG)){
+                alertError("Invalid Selection");
+                return;
+            }
+            if(board[jumpedRow][jumpedCol] != HoppersConfig.RED_FROG &&
+                    board[jumpedRow][jumpedCol] != HoppersConfig.GREEN_FROG){
 
-            alertObservers("Not a valid space to jump to");
-            return;
+                alertError("Cannot jump an empty space");
+                return;
+            }
+            if(board[endRow][endCol] == HoppersConfig.GREEN_FROG ||
+                    board[endRow][endCol] == HoppersConfig.RED_FROG ||
+                    board[endRow][endCol] == HoppersConfig.INVALID){
 
-        }
-        if (board[jumpedRow][jumpedCol] == HoppersConfig.RED_FROG){
-            alertObservers("Cannot jump the red frog");
-            return;
-        }
+                alertError("Not a valid space to jump to");
+                return;
 
-        board[startRow][startCol] = HoppersConfig.EMPTY;
-        board[jumpedRow][jumpedCol] = HoppersConfig.EMPTY;
-        board[endRow][endCol] = start;
+            }
+            if (board[jumpedRow][jumpedCol] == HoppersConfig.RED_FROG){
+                alertError("Cannot jump the red frog");
+                return;
+            }
 
+            if (pending != null) {
+                pending.cancel();
+                events.publish(new ModelEvent.SolveProgress(pending.getUnique(), true));
+                pending = null;
+            }
+            board[startRow][startCol] = HoppersConfig.EMPTY;
+            board[jumpedRow][jumpedCol] = HoppersConfig.EMPTY;
+            board[endRow][endCol] = start;
+            currentConfig = new HoppersConfig(rows, cols, board);
+            publishMove(new LinkedHashSet<>(List.of(new Coordinates(startRow, startCol),
+                    new Coordinates(jumpedRow, jumpedCol), new Coordinates(endRow, endCol))));
 
-        String result = "Jumped from (" + startRow + ", " + startCol + ") to (" +
-                endRow + ", " + endCol + ")" + System.lineSeparator();
 
-        alertObservers(result);
+            String result = "Jumped from (" + startRow + ", " + startCol + ") to (" +
+                    endRow + ", " + endCol + ")" + System.lineSeparator();
 
+            alertObservers(result);
+            prefetch();
+        } finally {
+            event.finish();
+        }
     }
 
 
@@ -194,10 +721,27 @@ public class HoppersModel {
      * the update method
      */
     private void alertObservers(String msg) {
-        for (var observer : observers) {
+        events.publish(new ModelEvent.Message(msg));
+        notifier.execute(() -> {
+            for (var observer : observers) {
 
-            observer.update(this, msg);
-        }
+                observer.update(this, msg);
+            }
+        });
+    }
+
+    /**
+     * Something the user asked for could not be done, so inform the view
+     * with the same message as alertObservers and an Error event
+     */
+    private void alertError(String msg) {
+        events.publish(new ModelEvent.Error(msg));
+        notifier.execute(() -> {
+            for (var observer : observers) {
+
+                observer.update(this, msg);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,33 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.Coordinates;
+
+/**
+ * A single Hoppers move: the frog at from jumps over the frog at over
+ * and lands on the empty lily pad at to.
+ * @param from the cell the jumping frog starts on
+ * @param over the cell of the frog that is jumped and removed
+ * @param to the cell the jumping frog lands on
+ * @author cmp2318
+ */
+public record Jump(Coordinates from, Coordinates over, Coordinates to) {
+
+    /**
+     * Checks whether this jump and another one touch any cell in common.
+     * Jumps that touch disjoint cells can be made in either order.
+     * @param other the other jump
+     * @return true if the jumps share a cell
+     */
+    public boolean overlaps(Jump other) {
+        return touches(other.from) || touches(other.over) || touches(other.to);
+    }
+
+    /**
+     * Checks whether this jump reads or changes the given cell.
+     * @param cell the cell to check
+     * @return true if the cell is one of the three cells of the jump
+     */
+    private boolean touches(Coordinates cell) {
+        return from.equals(cell) || over.equals(cell) || to.equals(cell);
+    }
+}
@@ -1,9 +1,11 @@
 package puzzles.hoppers.ptui;
 
 import puzzles.common.Observer;
+import puzzles.common.solver.SearchMetrics;
 import puzzles.hoppers.model.HoppersModel;
 import puzzles.hoppers.solver.Hoppers;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 /**
@@ -17,7 +19,12 @@ public class HoppersPTUI extends Hoppers implements Observer<HoppersModel, Strin
     /**
      * instance of the model throughout the game.
      */
-    private static HoppersModel model;
+    private HoppersModel model;
+
+    /**
+     * Where the board and the messages are printed.
+     */
+    private final PrintStream out;
 
     /**
      * A boolean variable to track if it is time for the
@@ -40,6 +47,22 @@ public class HoppersPTUI extends Hoppers implements Observer<HoppersModel, Strin
      */
     private String filename;
 
+    /**
+     * Creates a PTUI that prints to the console.
+     */
+    public HoppersPTUI() {
+        this(System.out);
+    }
+
+    /**
+     * Creates a PTUI that prints somewhere other than the console,
+     * such as the connection of a session of the game host.
+     * @param out where the board and the messages are printed
+     */
+    public HoppersPTUI(PrintStream out) {
+        this.out = out;
+    }
+
     /**
      * Initializes the game with the given filename, creates a new HoppersModel,
      * and adds this PTUI as an observer to the model.
@@ -49,13 +72,17 @@ public class HoppersPTUI extends Hoppers implements Observer<HoppersModel, Strin
      * @throws IOException if there is an error reading the file
      */
     public void init(String filename) throws IOException {
+        HoppersModel loaded = new HoppersModel(filename);
         this.filename = filename;
-        model = new HoppersModel(filename);
+        if (model != null) {
+            model.shutdown();
+        }
+        model = loaded;
         model.addObserver(this);
 
         this.jumpMove = false;
 
-        System.out.println(model.getConfig().toString());
+        out.println(model.getConfig().toString());
         displayHelp();
 
 
@@ -74,8 +101,8 @@ public class HoppersPTUI extends Hoppers implements Observer<HoppersModel, Strin
     public void update(HoppersModel model, String data) {
 
         // for demonstration purposes
-        System.out.println(data);
-        System.out.println(model.getConfig().toString());
+        out.println(data);
+        out.println(model.getConfig().toString());
 
     }
 
@@ -84,11 +111,15 @@ public class HoppersPTUI extends Hoppers implements Observer<HoppersModel, Strin
      * which lists the available commands and their usage.
      */
     private void displayHelp() {
-        System.out.println( "h(int)              -- hint next move" );
-        System.out.println( "l(oad) filename     -- load new puzzle file" );
-        System.out.println( "s(elect) r c        -- select cell at r, c" );
-        System.out.println( "q(uit)              -- quit the game" );
-        System.out.println( "r(eset)             -- reset the current game" );
+        out.println( "h(int)              -- hint next move" );
+        out.println( "l(oad) filename     -- load new puzzle file" );
+        out.println( "s(elect) r c        -- select cell at r, c" );
+        out.println( "q(uit)              -- quit the game" );
+        out.println( "r(eset)             -- reset the current game" );
+        out.println( "u(ndo)              -- take back the last move" );
+        out.println( "redo                -- make the last move taken back again" );
+        out.println( "g(oto) n            -- go to move n of the history" );
+        out.println( "stats               -- show the counts and timings of the last solve" );
     }
 
     /**
@@ -99,66 +130,109 @@ public class HoppersPTUI extends Hoppers implements Observer<HoppersModel, Strin
     public void run() {
         Scanner in = new Scanner( System.in );
         for ( ; ; ) {
-            System.out.print( "> " );
-            String line = in.nextLine();
-            String[] words = line.split( "\\s+" );
-            if (words.length > 0) {
-
-                //gets the row and column if s, then selects the position
-                if(words[0].startsWith("s")){
-                    if(jumpMove){
-                        int endRow = Integer.parseInt(words[1]);
-                        int endCol = Integer.parseInt(words[2]);
-
-                        model.jump(startRow, startCol, endRow, endCol);
-                        jumpMove = false;
-                    }
-                    else{
-                        startRow = Integer.parseInt(words[1]);
-                        startCol = Integer.parseInt(words[2]);
-
-                        System.out.println("Selected: (" + startRow + ", " + startCol + ")");
-                        model.displayBoard();
-
-                        jumpMove = true;
-                    }
+            out.print( "> " );
+            if (!execute(in.nextLine())) {
+                break;
+            }
+        }
+    }
 
+    /**
+     * Stops the model's background solves, for when the game ends.
+     */
+    public void shutdown() {
+        if (model != null) {
+            model.shutdown();
+        }
+    }
+
+    /**
+     * Runs one command line, exactly as if it had been typed at the prompt.
+     * The replay benchmark calls this directly to run scripts without a console.
+     * @param line the command and its arguments
+     * @return false if the command was quit, true otherwise
+     */
+    public boolean execute(String line) {
+        String[] words = line.split( "\\s+" );
+        if (words.length > 0) {
+
+            if(words[0].equals("stats")){
+                SearchMetrics metrics = model.getMetrics();
+                out.println(metrics == null ? "Nothing has been solved yet" : metrics.toString());
+                return true;
+            }
+
+            //gets the row and column if s, then selects the position
+            if(words[0].startsWith("s")){
+                if(jumpMove){
+                    int endRow = Integer.parseInt(words[1]);
+                    int endCol = Integer.parseInt(words[2]);
+
+                    model.jump(startRow, startCol, endRow, endCol);
+                    jumpMove = false;
                 }
-                if(words[0].startsWith("r")){
-                    try {
-                        System.out.println("Reset: ");
-                        init(filename);
-                        continue;
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                if(words[0].startsWith("h")){
-                    model.updateBoard();
-                }
+                else{
+                    startRow = Integer.parseInt(words[1]);
+                    startCol = Integer.parseInt(words[2]);
+
+                    out.println("Selected: (" + startRow + ", " + startCol + ")");
+                    out.println(model.getConfig().toString());
 
-                if(words[0].startsWith("l")){
-                    try {
-                        System.out.println("Loaded:");
-                        init(words[1]);
-                        continue;
-
-                    } catch (IOException e) {
-                        System.out.println("The input file is not found or is inaccessible");
-                    } catch (ArrayIndexOutOfBoundsException e){
-                        System.out.println("No file name provided");
-                    }
+                    jumpMove = true;
                 }
 
-                if (words[0].startsWith( "q" )) {
-                    break;
+            }
+            if(words[0].equals("redo")){
+                model.redo();
+                return true;
+            }
+            if(words[0].startsWith("u")){
+                model.undo();
+                return true;
+            }
+            if(words[0].startsWith("g")){
+                try {
+                    model.goTo(Integer.parseInt(words[1]));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    out.println("Usage: goto n");
+                }
+                return true;
+            }
+            if(words[0].startsWith("r")){
+                try {
+                    out.println("Reset: ");
+                    init(filename);
+                    return true;
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
                 }
-                else {
-                    displayHelp();
+            }
+            if(words[0].startsWith("h")){
+                model.updateBoard();
+            }
+
+            if(words[0].startsWith("l")){
+                try {
+                    out.println("Loaded:");
+                    init(words[1]);
+                    return true;
+
+                } catch (IOException e) {
+                    out.println("The input file is not found or is inaccessible");
+                } catch (ArrayIndexOutOfBoundsException e){
+                    out.println("No file name provided");
                 }
+            }
 
+            if (words[0].startsWith( "q" )) {
+                return false;
             }
+            else {
+                displayHelp();
+            }
+
         }
+        return true;
     }
 
     /**
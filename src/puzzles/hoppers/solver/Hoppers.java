@@ -1,12 +1,18 @@
 package puzzles.hoppers.solver;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ExternalSolver;
+import puzzles.common.solver.SearchBudget;
 import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersBoard;
+import puzzles.hoppers.model.HoppersCodec;
 import puzzles.hoppers.model.HoppersConfig;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -51,18 +57,53 @@ public class Hoppers {
 
     /**
      * Main method of the Hoppers class, which reads in a file, creates a board, and solves the Hoppers game using the Solver class.
+     * The options --por and --macro after the file name turn on partial-order reduction
+     * and macro moves, and --dfs solves by making and taking back jumps on a HoppersBoard.
+     * With --json, the result and the metrics of the search are printed as one JSON object instead of the steps.
+     * --max-states n, --max-mb n and --max-seconds n limit the configurations expanded, the megabytes of the
+     * visited set and the time of the search, which gives up with "Gave up" and the counts so far when one is reached.
+     * --checkpoint file writes the state of the search to the file every minute, or every --checkpoint-seconds n,
+     * and a later run with the same file goes on from it.
+     * --external dir keeps the layers of the search in sorted files in the directory instead of the visited set in the heap,
+     * sorting --sort-records n configurations in memory at once
      * @param args an array of command-line arguments that contains the name of the file to be read in
      */
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java Hoppers filename");
+        List<String> options = args.length < 1 ? List.of() : SearchBudget.strip(List.of(args).subList(1, args.length));
+        SearchBudget budget;
+        String checkpoint;
+        long checkpointMillis;
+        String external;
+        int sortRecords;
+        try {
+            budget = args.length < 1 ? SearchBudget.UNLIMITED : SearchBudget.parse(List.of(args).subList(1, args.length));
+            checkpoint = SearchBudget.takeOption(options, "--checkpoint");
+            String seconds = SearchBudget.takeOption(options, "--checkpoint-seconds");
+            checkpointMillis = seconds == null ? Solver.CHECKPOINT_MILLIS : Long.parseLong(seconds) * 1000;
+            external = SearchBudget.takeOption(options, "--external");
+            String records = SearchBudget.takeOption(options, "--sort-records");
+            sortRecords = records == null ? ExternalSolver.DEFAULT_BUFFER_RECORDS : Integer.parseInt(records);
+            if (sortRecords < 1) {
+                throw new IllegalArgumentException("--sort-records must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (args.length < 1 || !List.of("--por", "--macro", "--dfs", "--json").containsAll(options)) {
+            System.out.println("Usage: java Hoppers filename [--por] [--macro] [--dfs] [--json] " +
+                    "[--max-states n] [--max-mb n] [--max-seconds n] [--checkpoint file [--checkpoint-seconds n]] " +
+                    "[--external dir [--sort-records n]]");
         }
         else {
             String filename = args[0];
 
             try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
                 String[] dimensions = reader.readLine().split(" ");
-                System.out.println("File: " + filename);
+                boolean json = options.contains("--json");
+                if (!json) {
+                    System.out.println("File: " + filename);
+                }
                 int rows = Integer.parseInt(dimensions[0]);
                 int cols = Integer.parseInt(dimensions[1]);
 
@@ -70,25 +111,52 @@ public class Hoppers {
 
                 char[][] board = hoppers.createBoard(filename);
 
-                Configuration starter = new HoppersConfig(rows, cols, board );
+                HoppersConfig starter = new HoppersConfig(rows, cols, board );
 
-                List<String> solve;
-
-                solve = Solver.solve(starter);
+                Solver.addAnalyzer(HoppersConfig.class, new HoppersAnalyzer());
+                Solver.addBoard(HoppersConfig.class, c -> new HoppersBoard((HoppersConfig) c));
+                Solver.addCodec(HoppersConfig.class, c -> new HoppersCodec((HoppersConfig) c));
+                HoppersDecomposer decomposer = new HoppersDecomposer(starter);
+                decomposer.setPartialOrder(options.contains("--por"));
+                decomposer.setMacroMoves(options.contains("--macro"));
+                decomposer.setDepthFirst(options.contains("--dfs"));
+                decomposer.setBudget(budget);
+                if (checkpoint != null) {
+                    decomposer.setCheckpoint(Path.of(checkpoint), checkpointMillis);
+                }
+                if (external != null) {
+                    decomposer.setExternalMemory(Path.of(external), sortRecords);
+                }
+                List<Configuration> solve = decomposer.solve();
+                if (json) {
+                    System.out.println(decomposer.getMetrics().toJson(filename, solve.size(), decomposer.getRejected(),
+                            decomposer.getExceeded()));
+                    return;
+                }
 
                 int stepNum = 0;
-                System.out.println("Total configs: " + Solver.getTotalConfigs());
-                System.out.println("Unique configs: " + Solver.getUniqueConfigs());
-                if (solve.size() == 0) {
+                if (decomposer.getComponents().size() > 1) {
+                    System.out.println("Independent groups: " + decomposer.getComponents().size());
+                }
+                System.out.println("Total configs: " + decomposer.getTotal());
+                System.out.println("Unique configs: " + decomposer.getUnique());
+                if (decomposer.getRejected() != null) {
+                    System.out.println("Unsolvable: " + decomposer.getRejected());
+                }
+                if (decomposer.getExceeded() != null) {
+                    System.out.println("Gave up: " + decomposer.getExceeded());
+                } else if (solve.size() == 0) {
                     System.out.println("No solution");
                 }
-                for (String step: solve) {
+                for (Configuration step: solve) {
                     System.out.println("Step " + stepNum + ": ");
                     System.out.println(step);
                     stepNum++;
                 }
             } catch (IOException e) {
                 System.err.println("Error reading input file: " + e.getMessage());
+            } catch (UncheckedIOException e) {
+                System.err.println("Error with the search files: " + e.getCause().getMessage());
             }
         }
     }
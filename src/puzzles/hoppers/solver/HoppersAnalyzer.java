@@ -0,0 +1,132 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.Analyzer;
+import puzzles.common.solver.Configuration;
+import puzzles.hoppers.model.HoppersConfig;
+
+/**
+ * The HoppersAnalyzer rejects Hoppers boards that can be proven unsolvable
+ * before any search starts. Every jump moves a frog either four squares
+ * along a row or column or two squares along a diagonal, so a frog never
+ * leaves its lattice class: the cells that share its row parity, its
+ * column parity and its (row + column) value modulo four. The rules below
+ * only use that fact and the shape of the board, so they run in time linear
+ * in the board size.
+ * @author cmp2318
+ */
+public class HoppersAnalyzer implements Analyzer {
+    /**
+     * The offsets from a jumping frog to the frog it jumps over.
+     * The landing cell is twice the offset away.
+     */
+    private static final int[][] JUMPS = {
+            {-2, 0}, {0, 2}, {2, 0}, {0, -2},
+            {-1, -1}, {-1, 1}, {1, 1}, {1, -1}
+    };
+
+    /**
+     * Checks the board against every rule, in order of cost.
+     * @param config the configuration that is about to be solved
+     * @return the rule that fired, or null if the board might be solvable
+     */
+    @Override
+    public String analyze(Configuration config) {
+        char[][] board = ((HoppersConfig) config).getBoard();
+        int rows = board.length;
+        int cols = board[0].length;
+
+        // frogs[c] counts the frogs in lattice class c
+        int[] frogs = new int[8];
+        int redClass = -1;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (board[r][c] == HoppersConfig.RED_FROG) {
+                    redClass = latticeClass(r, c);
+                    frogs[redClass]++;
+                } else if (board[r][c] == HoppersConfig.GREEN_FROG) {
+                    frogs[latticeClass(r, c)]++;
+                }
+            }
+        }
+
+        if (redClass == -1) {
+            return "There is no red frog to clear the board";
+        }
+
+        // jumpable[c] is true if a frog standing somewhere in class c could be jumped
+        boolean[] jumpable = new boolean[8];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (isLilyPad(board, r, c) && canBeJumped(board, frogs, r, c)) {
+                    jumpable[latticeClass(r, c)] = true;
+                }
+            }
+        }
+
+        boolean greenOffClass = false;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (board[r][c] == HoppersConfig.GREEN_FROG) {
+                    if (latticeClass(r, c) != redClass) {
+                        greenOffClass = true;
+                    }
+                    if (!jumpable[latticeClass(r, c)]) {
+                        return "The green frog at (" + r + ", " + c +
+                                ") can never be jumped from anywhere it can reach";
+                    }
+                }
+            }
+        }
+
+        if (!greenOffClass) {
+            return "Every green frog is on the red frog's lattice class";
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether some frog could ever be in position to jump a frog standing on the given cell.
+     * That needs a valid cell on one side of it to jump from, a valid cell on the other side
+     * to land on, and at least one frog in the lattice class of the cell jumped from.
+     * @param board the game board
+     * @param frogs the number of frogs in each lattice class
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if a frog on the cell might be jumped, false if it never can be
+     */
+    private static boolean canBeJumped(char[][] board, int[] frogs, int row, int col) {
+        for (int[] jump : JUMPS) {
+            int fromRow = row - jump[0];
+            int fromCol = col - jump[1];
+            int toRow = row + jump[0];
+            int toCol = col + jump[1];
+            if (isLilyPad(board, fromRow, fromCol) && isLilyPad(board, toRow, toCol) &&
+                    frogs[latticeClass(fromRow, fromCol)] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a cell is on the board and is not water.
+     * @param board the game board
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if a frog may stand on the cell
+     */
+    private static boolean isLilyPad(char[][] board, int row, int col) {
+        return row >= 0 && row < board.length && col >= 0 && col < board[0].length &&
+                board[row][col] != HoppersConfig.INVALID;
+    }
+
+    /**
+     * Returns the lattice class of a cell, which no jump can change.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return a number between 0 and 7
+     */
+    public static int latticeClass(int row, int col) {
+        return (row & 1) * 4 + (col & 1) * 2 + (((row + col) & 3) >> 1);
+    }
+}
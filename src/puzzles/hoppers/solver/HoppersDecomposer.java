@@ -0,0 +1,406 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.BudgetExceeded;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SearchBudget;
+import puzzles.common.solver.SearchMetrics;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The HoppersDecomposer splits a Hoppers board into groups of frogs that can never
+ * interact, as an early check that the board can be solved at all, and then solves it.
+ * A frog never leaves its lattice class (see {@link HoppersAnalyzer}), so the cells
+ * it can ever stand on are the ones of its class that it can reach by jumping.
+ * The lattice class alone is not enough to separate frogs, because a frog always
+ * jumps over a frog of a different class. Two frogs are therefore put in the same
+ * group when one could land where the other could stand, or jump over a cell where
+ * the other could stand.
+ * <p>
+ * The board is only solved when every group is cleared, and only the red frog may not
+ * be jumped. A group without the red frog, or one that an Analyzer rejects, therefore
+ * rejects the board before anything is searched. Since there is a single red frog,
+ * every board of several groups is rejected this way, and a board of one group is
+ * searched as a whole.
+ * @author cmp2318
+ */
+public class HoppersDecomposer {
+    /**
+     * The offsets from a jumping frog to the frog it jumps over.
+     * The landing cell is twice the offset away.
+     */
+    private static final int[][] JUMPS = {
+            {-2, 0}, {0, 2}, {2, 0}, {0, -2},
+            {-1, -1}, {-1, 1}, {1, 1}, {1, -1}
+    };
+
+    /**
+     * The full board being solved.
+     */
+    private final HoppersConfig config;
+    /**
+     * The boards of the independent groups, each holding only that group's frogs.
+     */
+    private final List<HoppersConfig> components;
+    /**
+     * The counts and timings of the search.
+     */
+    private final SearchMetrics metrics = new SearchMetrics();
+    /**
+     * The rule that rejected one of the groups before searching, if any.
+     */
+    private String rejected;
+    /**
+     * Whether the search uses partial-order reduction.
+     */
+    private boolean partialOrder;
+    /**
+     * Whether the search collapses chains of forced jumps.
+     */
+    private boolean macroMoves;
+    /**
+     * Whether the search makes and takes back jumps on a HoppersBoard.
+     */
+    private boolean depthFirst;
+    /**
+     * The limits of the search.
+     */
+    private SearchBudget budget = SearchBudget.UNLIMITED;
+    /**
+     * The limit the search ran into, if any.
+     */
+    private BudgetExceeded exceeded;
+    /**
+     * The file the search is checkpointed to, or null.
+     */
+    private Path checkpoint;
+    /**
+     * The time between two checkpoints, in milliseconds.
+     */
+    private long checkpointMillis;
+    /**
+     * The directory the layers of the search are kept in, or null to search in the heap.
+     */
+    private Path external;
+    /**
+     * The configurations the search sorts in memory at once.
+     */
+    private int externalRecords;
+
+    /**
+     * Splits the given board into its independent groups of frogs.
+     * @param config the board to be solved
+     */
+    public HoppersDecomposer(HoppersConfig config) {
+        this.config = config;
+        this.components = decompose(config);
+    }
+
+    /**
+     * Returns the boards of the independent groups of frogs.
+     * @return one board per group, a single board if nothing could be split
+     */
+    public List<HoppersConfig> getComponents() {
+        return components;
+    }
+
+    /**
+     * Returns the total number of configurations generated by the search.
+     * @return the total number of configurations
+     */
+    public long getTotal() {
+        return metrics.getGenerated();
+    }
+
+    /**
+     * Returns the number of unique configurations generated by the search.
+     * @return the number of unique configurations
+     */
+    public long getUnique() {
+        return metrics.getUnique();
+    }
+
+    /**
+     * Returns the counts and timings of the search.
+     * @return the metrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the rule that proved the board or one of its groups unsolvable.
+     * @return the rule, or null if the board was searched normally
+     */
+    public String getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the limit the search ran into, which leaves the board unsolved
+     * whether or not it has a solution.
+     * @return the limit, or null if the search was not stopped by its budget
+     */
+    public BudgetExceeded getExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * Sets the limits of the search.
+     * @param budget the limits, SearchBudget.UNLIMITED for none
+     * @see Solver#setBudget(SearchBudget)
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Checkpoints the search.
+     * @param file the checkpoint file, or null for no checkpoints
+     * @param intervalMillis the time between two checkpoints
+     * @see Solver#setCheckpoint(Path, long)
+     */
+    public void setCheckpoint(Path file, long intervalMillis) {
+        this.checkpoint = file;
+        this.checkpointMillis = intervalMillis;
+    }
+
+    /**
+     * Keeps the layers of the search in files on disk, in a directory of its own inside the given one.
+     * @param directory where the files are made, or null to search in the heap
+     * @param bufferRecords the configurations the search sorts in memory at once
+     * @see Solver#setExternalMemory(Path, int)
+     */
+    public void setExternalMemory(Path directory, int bufferRecords) {
+        this.external = directory;
+        this.externalRecords = bufferRecords;
+    }
+
+    /**
+     * Turns partial-order reduction on or off for the search.
+     * @param partialOrder true to skip equivalent orderings of independent jumps
+     * @see Solver#setPartialOrder(boolean)
+     */
+    public void setPartialOrder(boolean partialOrder) {
+        this.partialOrder = partialOrder;
+    }
+
+    /**
+     * Turns macro moves on or off for the search.
+     * @param macroMoves true to store chains of forced jumps as one edge
+     * @see Solver#setMacroMoves(boolean)
+     */
+    public void setMacroMoves(boolean macroMoves) {
+        this.macroMoves = macroMoves;
+    }
+
+    /**
+     * Turns the depth-first search on or off.
+     * @param depthFirst true to search the board on a mutable HoppersBoard
+     * @see Solver#setDepthFirst(boolean)
+     */
+    public void setDepthFirst(boolean depthFirst) {
+        this.depthFirst = depthFirst;
+    }
+
+    /**
+     * Checks every group before searching, then solves the board.
+     * There is only one red frog, so a board of several groups always has a group
+     * that can never be cleared, and is rejected without being searched.
+     * @return the path on the full board, empty if there is no solution
+     */
+    public List<Configuration> solve() {
+        if (components.size() > 1) {
+            for (int i = 0; i < components.size(); i++) {
+                HoppersConfig component = components.get(i);
+                String group = "Group " + (i + 1) + " of " + components.size();
+                if (!hasRedFrog(component)) {
+                    rejected = group + " has no red frog, so its green frogs can never all be jumped";
+                    return new LinkedList<>();
+                }
+                String rule = component.isSolution() ? null : Solver.analyze(component);
+                if (rule != null) {
+                    rejected = group + ": " + rule;
+                    return new LinkedList<>();
+                }
+            }
+        }
+
+        Solver solver = new Solver();
+        solver.setPartialOrder(partialOrder);
+        solver.setMacroMoves(macroMoves);
+        solver.setDepthFirst(depthFirst);
+        solver.setBudget(budget);
+        solver.setCheckpoint(checkpoint, checkpointMillis);
+        solver.setExternalMemory(external, externalRecords);
+        List<Configuration> path = solver.search(config);
+        metrics.add(solver.getMetrics());
+        rejected = solver.getRejected();
+        exceeded = solver.getExceeded();
+        return path;
+    }
+
+    /**
+     * Checks if a group has the red frog. Only the red frog may not be jumped, so a
+     * group of green frogs alone always keeps at least one of them and can never be cleared.
+     * @param group the board of the group
+     * @return true if a red frog is on it
+     */
+    private static boolean hasRedFrog(HoppersConfig group) {
+        for (char[] row : group.getBoard()) {
+            for (char cell : row) {
+                if (cell == HoppersConfig.RED_FROG) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a board into groups of frogs that can never interact.
+     * @param config the board to split
+     * @return one board per group, holding that group's frogs and empty lily pads elsewhere
+     */
+    public static List<HoppersConfig> decompose(HoppersConfig config) {
+        char[][] board = config.getBoard();
+        int rows = board.length;
+        int cols = board[0].length;
+
+        List<int[]> frogs = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (board[r][c] == HoppersConfig.RED_FROG || board[r][c] == HoppersConfig.GREEN_FROG) {
+                    frogs.add(new int[]{r, c});
+                }
+            }
+        }
+
+        // owner[r][c] is the first frog found that could stand on the cell, or -1
+        int[][] owner = new int[rows][cols];
+        for (int[] row : owner) {
+            Arrays.fill(row, -1);
+        }
+        int[] group = new int[frogs.size()];
+        for (int f = 0; f < frogs.size(); f++) {
+            group[f] = f;
+            for (int[] cell : reach(board, frogs.get(f))) {
+                if (owner[cell[0]][cell[1]] == -1) {
+                    owner[cell[0]][cell[1]] = f;
+                } else {
+                    union(group, f, owner[cell[0]][cell[1]]);
+                }
+            }
+        }
+
+        // a frog that could jump over a cell another frog could stand on interacts with it
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (owner[r][c] == -1) {
+                    continue;
+                }
+                for (int[] jump : JUMPS) {
+                    int overRow = r + jump[0];
+                    int overCol = c + jump[1];
+                    if (overRow >= 0 && overRow < rows && overCol >= 0 && overCol < cols &&
+                            owner[overRow][overCol] != -1) {
+                        union(group, owner[r][c], owner[overRow][overCol]);
+                    }
+                }
+            }
+        }
+
+        List<Integer> roots = new ArrayList<>();
+        List<HoppersConfig> components = new ArrayList<>();
+        for (int f = 0; f < frogs.size(); f++) {
+            int root = find(group, f);
+            int index = roots.indexOf(root);
+            if (index == -1) {
+                roots.add(root);
+                char[][] empty = HoppersConfig.copyBoard(board);
+                for (int[] frog : frogs) {
+                    empty[frog[0]][frog[1]] = HoppersConfig.EMPTY;
+                }
+                components.add(new HoppersConfig(rows, cols, empty));
+                index = components.size() - 1;
+            }
+            int[] frog = frogs.get(f);
+            components.get(index).getBoard()[frog[0]][frog[1]] = board[frog[0]][frog[1]];
+        }
+        if (components.size() <= 1) {
+            return List.of(config);
+        }
+        return components;
+    }
+
+    /**
+     * Finds every cell a frog could ever stand on, ignoring the other frogs except
+     * for needing a lily pad to jump over.
+     * @param board the game board
+     * @param frog the row and column of the frog
+     * @return the cells the frog could reach, including its own
+     */
+    private static List<int[]> reach(char[][] board, int[] frog) {
+        boolean[][] seen = new boolean[board.length][board[0].length];
+        List<int[]> cells = new ArrayList<>();
+        cells.add(frog);
+        seen[frog[0]][frog[1]] = true;
+        for (int i = 0; i < cells.size(); i++) {
+            int[] cell = cells.get(i);
+            for (int[] jump : JUMPS) {
+                int overRow = cell[0] + jump[0];
+                int overCol = cell[1] + jump[1];
+                int toRow = cell[0] + 2 * jump[0];
+                int toCol = cell[1] + 2 * jump[1];
+                if (isLilyPad(board, overRow, overCol) && isLilyPad(board, toRow, toCol) &&
+                        !seen[toRow][toCol]) {
+                    seen[toRow][toCol] = true;
+                    cells.add(new int[]{toRow, toCol});
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Checks whether a cell is on the board and is not water.
+     * @param board the game board
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if a frog may stand on the cell
+     */
+    private static boolean isLilyPad(char[][] board, int row, int col) {
+        return row >= 0 && row < board.length && col >= 0 && col < board[0].length &&
+                board[row][col] != HoppersConfig.INVALID;
+    }
+
+    /**
+     * Joins the groups of two frogs.
+     * @param group the parent of every frog
+     * @param a the first frog
+     * @param b the second frog
+     */
+    private static void union(int[] group, int a, int b) {
+        group[find(group, a)] = find(group, b);
+    }
+
+    /**
+     * Finds the representative of a frog's group.
+     * @param group the parent of every frog
+     * @param i the frog
+     * @return the representative frog
+     */
+    private static int find(int[] group, int i) {
+        while (group[i] != i) {
+            group[i] = group[group[i]];
+            i = group[i];
+        }
+        return i;
+    }
+}
@@ -20,6 +20,7 @@ public class Strings {
      * Prints out the total number of configurations generated by the solver before a solution was found
      * Prints out the amount of unique configurations generated by the solver before a solution was found
      * Prints out each step of the shortest path found by the solver
+     * With --json after the arguments, prints the result and the metrics of the search as one JSON object instead
      * @param args the arguments of the program of type String[]
      */
     public static void main(String[] args) {
@@ -29,6 +30,10 @@ public class Strings {
             Configuration starter = new StringsConfig(args[0], args[1]);
             List<String> solve;
             solve = Solver.solve(starter);
+            if (args.length > 2 && args[2].equals("--json")) {
+                System.out.println(Solver.getLastMetrics().toJson("strings " + args[0] + " " + args[1], solve.size(), null));
+                return;
+            }
             int stepNum = 0;
             System.out.println("Start: " + args[0] + ", End: " + args[1]);
             System.out.println("Total configs: " + Solver.getTotalConfigs());
@@ -0,0 +1,274 @@
+package puzzles.tools;
+
+import puzzles.chess.solver.Chess;
+import puzzles.hoppers.solver.Hoppers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Solves a whole corpus of Hoppers and Chess puzzle files in one parallel pass, writing the output
+ * of every puzzle to output/hoppers/name-out.txt or output/chess/name-out.txt as the mains print it.
+ * <p>
+ * The puzzles are named by files, directories, whose .txt files are all solved, or globs such as
+ * {@code "data/hoppers/*.txt"}. Whether a file is a Hoppers or a Chess puzzle is taken from the name
+ * of its directory, or from its pieces if the directory is named neither.
+ * <p>
+ * Every puzzle is solved by its main in a JVM of its own, started with the heap limit given by --memory,
+ * so a puzzle that runs out of memory fails alone and cannot take the memory of the others. At most
+ * --jobs puzzles are solved at once, and a puzzle that takes longer than --timeout seconds is stopped.
+ * An output file is only written when its puzzle was solved to the end, so a failed run leaves the
+ * previous output in place. A table of the time, the unique configurations and the result of every
+ * puzzle is printed at the end, and the program exits with status 1 if any puzzle failed.
+ * @author cmp2318
+ */
+public class BatchSolve {
+    /**
+     * The characters that make a name a glob rather than a file.
+     */
+    private static final Pattern GLOB = Pattern.compile("[*?\\[{]");
+    /**
+     * The count of unique configurations printed by the mains.
+     */
+    private static final Pattern UNIQUE = Pattern.compile("^Unique configs: (\\d+)", Pattern.MULTILINE);
+    /**
+     * The step headers printed by the mains.
+     */
+    private static final Pattern STEP = Pattern.compile("^Step \\d+:", Pattern.MULTILINE);
+
+    /**
+     * The result of solving one puzzle.
+     * @param file the puzzle file
+     * @param type hoppers or chess
+     * @param status solved, no solution, or why the run failed
+     * @param failed whether the run failed, rather than finding a solution or that there is none
+     * @param moves the number of moves of the solution, or -1 if there is none
+     * @param unique the unique configurations, or -1 if the run failed
+     * @param millis the wall time
+     */
+    private record Result(Path file, String type, String status, boolean failed, int moves, long unique, long millis) {}
+
+    private Path output = Path.of("output");
+    private int jobs = Runtime.getRuntime().availableProcessors();
+    private int memory = 1024;
+    private long timeout = 0;
+    private final List<String> options = new ArrayList<>();
+
+    /**
+     * Finds the puzzle files a name stands for.
+     * @param name a file, a directory, or a glob
+     * @return the files, sorted by name
+     * @throws IOException if a directory cannot be read
+     */
+    private static List<Path> expand(String name) throws IOException {
+        Matcher glob = GLOB.matcher(name);
+        Path dir;
+        PathMatcher matcher;
+        int depth;
+        if (glob.find()) {
+            int slash = name.lastIndexOf(File.separatorChar, glob.start());
+            dir = Path.of(slash == -1 ? "." : name.substring(0, slash + 1));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + (slash == -1 ? name : name.substring(slash + 1)));
+            depth = name.contains("**") ? Integer.MAX_VALUE : name.substring(slash + 1).split("/").length;
+        } else if (Files.isDirectory(Path.of(name))) {
+            dir = Path.of(name);
+            matcher = FileSystems.getDefault().getPathMatcher("glob:*.txt");
+            depth = 1;
+        } else {
+            return List.of(Path.of(name));
+        }
+        try (Stream<Path> files = Files.walk(dir, depth)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> matcher.matches(dir.relativize(file)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Decides whether a puzzle file is a Hoppers or a Chess puzzle.
+     * @param file the puzzle file
+     * @return hoppers or chess
+     * @throws IOException if the file cannot be read
+     */
+    private static String type(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        String dir = parent == null ? "" : parent.getFileName().toString();
+        if (dir.equals("hoppers") || dir.equals("chess")) {
+            return dir;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.indexOf('G') != -1 || line.indexOf('*') != -1) {
+                    return "hoppers";
+                }
+            }
+        }
+        return "chess";
+    }
+
+    /**
+     * Builds the command line of a JVM running the main of a puzzle, on the class or module path of this one.
+     * @param type hoppers or chess
+     * @param file the puzzle file
+     * @return the command line
+     */
+    private List<String> command(String type, Path file) {
+        String main = (type.equals("hoppers") ? Hoppers.class : Chess.class).getName();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Xmx" + memory + "m");
+        String modules = System.getProperty("jdk.module.path");
+        if (modules != null && BatchSolve.class.getModule().isNamed()) {
+            command.addAll(List.of("-p", modules, "-m", BatchSolve.class.getModule().getName() + "/" + main));
+        } else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), main));
+        }
+        command.add(file.toString());
+        command.addAll(options);
+        return command;
+    }
+
+    /**
+     * Solves one puzzle in a JVM of its own, writing its output file if it is solved to the end.
+     * @param file the puzzle file
+     * @return the result
+     * @throws IOException if a file cannot be read or written
+     * @throws InterruptedException if the batch is interrupted
+     */
+    private Result solve(Path file) throws IOException, InterruptedException {
+        String type = type(file);
+        String name = file.getFileName().toString().replaceFirst("\\.txt$", "");
+        Path dir = Files.createDirectories(output.resolve(type));
+        Path target = dir.resolve(name + "-out.txt");
+        Path out = Files.createTempFile(dir, name, ".part");
+        Path err = Files.createTempFile(dir, name, ".err");
+        long start = System.nanoTime();
+        try {
+            Process process = new ProcessBuilder(command(type, file))
+                    .redirectOutput(out.toFile())
+                    .redirectError(err.toFile())
+                    .start();
+            boolean finished;
+            try {
+                finished = timeout > 0 ? process.waitFor(timeout, TimeUnit.SECONDS) : process.waitFor() >= 0;
+            } finally {
+                process.destroyForcibly();
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (!finished) {
+                return new Result(file, type, "timed out", true, -1, -1, millis);
+            }
+            String errors = Files.readString(err).strip();
+            String text = Files.readString(out);
+            Matcher unique = UNIQUE.matcher(text);
+            if (process.exitValue() != 0 || !errors.isEmpty() || !unique.find()) {
+                String status = errors.contains("OutOfMemoryError") ? "out of memory"
+                        : errors.isEmpty() ? "exit status " + process.exitValue() : errors.lines().findFirst().get();
+                return new Result(file, type, status, true, -1, -1, millis);
+            }
+            Files.move(out, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long steps = STEP.matcher(text).results().count();
+            return new Result(file, type, steps == 0 ? "no solution" : "solved", false,
+                    (int) steps - 1, Long.parseLong(unique.group(1)), millis);
+        } finally {
+            Files.deleteIfExists(out);
+            Files.deleteIfExists(err);
+        }
+    }
+
+    /**
+     * Solves every puzzle on a pool of at most --jobs threads, each waiting on one JVM.
+     * @param files the puzzle files
+     * @return the results, in the order of the files
+     * @throws InterruptedException if the batch is interrupted
+     */
+    private List<Result> solveAll(List<Path> files) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (Path file : files) {
+            futures.add(pool.submit(() -> solve(file)));
+        }
+        pool.shutdown();
+        List<Result> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(files.get(i), "?", e.getCause().toString(), true, -1, -1, 0));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Solves a corpus of puzzles and prints the table of results.
+     * @param args the puzzle files, directories and globs, and the options --out dir, --jobs n,
+     *             --memory megabytes, --timeout seconds, --por, --macro and --dfs
+     * @throws IOException if a directory cannot be read
+     * @throws InterruptedException if the batch is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchSolve batch = new BatchSolve();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> batch.output = Path.of(args[++i]);
+                case "--jobs" -> batch.jobs = Integer.parseInt(args[++i]);
+                case "--memory" -> batch.memory = Integer.parseInt(args[++i]);
+                case "--timeout" -> batch.timeout = Long.parseLong(args[++i]);
+                case "--por", "--macro", "--dfs" -> batch.options.add(args[i]);
+                default -> files.addAll(expand(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: java BatchSolve file|directory|glob ... [--out dir] [--jobs n] " +
+                    "[--memory megabytes] [--timeout seconds] [--por] [--macro] [--dfs]");
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Result> results = batch.solveAll(files);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        long serial = 0;
+        int failures = 0;
+        System.out.printf("%-32s %-8s %-14s %6s %10s %10s%n", "puzzle", "type", "result", "moves", "unique", "ms");
+        for (Result result : results) {
+            System.out.printf("%-32s %-8s %-14s %6s %10s %10d%n", result.file(), result.type(), result.status(),
+                    result.moves() < 0 ? "-" : String.valueOf(result.moves()),
+                    result.unique() < 0 ? "-" : String.valueOf(result.unique()), result.millis());
+            serial += result.millis();
+            if (result.failed()) {
+                failures++;
+            }
+        }
+        System.out.printf("%d puzzles, %d failed, %d ms with %d jobs (%d ms of solving in all)%n",
+                results.size(), failures, elapsed, batch.jobs, serial);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package puzzles.tools;
+
+import puzzles.chess.ptui.ChessPTUI;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.ptui.HoppersPTUI;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Hosts many independent Hoppers and Chess games in one JVM, each played over its own
+ * connection to a local socket with the same commands as the PTUIs.
+ * <p>
+ * A client connects to the loopback port and sends one line naming the game and the puzzle,
+ * such as {@code hoppers hoppers-4.txt} or {@code chess chess-2.txt}. Every line after that is
+ * a PTUI command, answered with the PTUI's output and a {@code > } prompt, until {@code quit}
+ * or the connection closes. Puzzle files are looked up under the host's puzzle directory and
+ * may not name files outside it: the host reads every command line the way the game's PTUI does
+ * and refuses any load of another file before the PTUI sees it. Errors are logged by the host,
+ * and the client is only told that its command failed.
+ * <p>
+ * Every session has its own PTUI and model, with its own thread that prefetches hints. The hint
+ * cache is shared by all the sessions of a puzzle type, so sessions that reach the same board
+ * get its hint without solving it again. The number of solves running at once is limited with
+ * {@link Solver#setConcurrency(int)}, and so is the number of sessions. Java 17 has no virtual
+ * threads, so each session is served by a platform thread from a cached pool.
+ * @author cmp2318
+ */
+public class GameHost {
+    /**
+     * The port the host listens on unless --port is given.
+     */
+    public static final int DEFAULT_PORT = 7070;
+    /**
+     * How long a session may be idle before it is closed, in milliseconds.
+     */
+    private static final int IDLE_TIMEOUT = 10 * 60 * 1000;
+
+    /**
+     * The directory puzzle files are read from.
+     */
+    private final Path puzzles;
+    /**
+     * One permit per session that may be open at once.
+     */
+    private final Semaphore sessions;
+    /**
+     * Serves the sessions, one thread each.
+     */
+    private final ExecutorService pool = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "game-session");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The number of the next session, for the log.
+     */
+    private final AtomicInteger nextSession = new AtomicInteger(1);
+    /**
+     * The number of sessions open now.
+     */
+    private final AtomicInteger open = new AtomicInteger();
+
+    /**
+     * Creates a host.
+     * @param puzzles the directory puzzle files are read from
+     * @param maxSessions the number of sessions that may be open at once
+     * @param solvers the number of solves that may run at once
+     */
+    public GameHost(Path puzzles, int maxSessions, int solvers) {
+        Path directory = puzzles.toAbsolutePath().normalize();
+        try {
+            directory = directory.toRealPath();
+        } catch (IOException e) {
+            // a missing directory has no files to serve, and every load is refused
+        }
+        this.puzzles = directory;
+        this.sessions = new Semaphore(maxSessions);
+        Solver.setConcurrency(solvers);
+    }
+
+    /**
+     * Accepts connections on the loopback address until the server socket is closed.
+     * A connection over the session limit is told so and closed at once.
+     * @param server the socket to accept connections on
+     * @throws IOException if accepting fails
+     */
+    public void serve(ServerSocket server) throws IOException {
+        while (!server.isClosed()) {
+            Socket socket = server.accept();
+            if (!sessions.tryAcquire()) {
+                try (socket) {
+                    socket.getOutputStream().write("BUSY\n".getBytes(StandardCharsets.UTF_8));
+                }
+                continue;
+            }
+            pool.execute(() -> {
+                try (socket) {
+                    session(socket);
+                } catch (IOException e) {
+                    // the client went away
+                } finally {
+                    sessions.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Plays one game over a connection.
+     * @param socket the connection
+     * @throws IOException if the connection fails
+     */
+    private void session(Socket socket) throws IOException {
+        int id = nextSession.getAndIncrement();
+        socket.setSoTimeout(IDLE_TIMEOUT);
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintStream out = new PrintStream(
+                new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8);
+        out.println("hoppers|chess puzzle-file");
+        out.flush();
+
+        String first = in.readLine();
+        String[] words = first == null ? new String[0] : first.trim().split("\\s+");
+        Path file = words.length == 2 ? resolve(words[1]) : null;
+        if (file == null || !(words[0].equals("hoppers") || words[0].equals("chess"))) {
+            out.println("Usage: hoppers|chess puzzle-file, with the file under " + puzzles);
+            out.flush();
+            return;
+        }
+
+        Predicate<String> execute;
+        Predicate<String> loads;
+        Runnable shutdown;
+        try {
+            if (words[0].equals("hoppers")) {
+                loads = command -> command.startsWith("l");
+                HoppersPTUI ptui = new HoppersPTUI(out);
+                ptui.init(file.toString());
+                execute = ptui::execute;
+                shutdown = ptui::shutdown;
+            } else {
+                loads = command -> command.equalsIgnoreCase("l") || command.equalsIgnoreCase("load");
+                PrintWriter writer = new PrintWriter(out, true);
+                ChessPTUI ptui = new ChessPTUI(writer);
+                ptui.init(file.toString());
+                ptui.startScripted(writer);
+                execute = ptui::execute;
+                shutdown = ptui::shutdown;
+            }
+        } catch (Exception e) {
+            System.err.println("session " + id + " cannot load " + file + ": " + e);
+            out.println("Cannot load " + words[1]);
+            out.flush();
+            return;
+        }
+
+        System.err.println("session " + id + " opened: " + first.trim() + " (" + open.incrementAndGet() + " open)");
+        try {
+            boolean more = true;
+            while (more) {
+                out.print("> ");
+                out.flush();
+                String line = in.readLine();
+                if (line == null) {
+                    break;
+                }
+                String command = command(line, loads);
+                if (command == null) {
+                    out.println("Usage: load puzzle-file, with the file under " + puzzles);
+                    continue;
+                }
+                try {
+                    more = execute.test(command);
+                } catch (RuntimeException e) {
+                    System.err.println("session " + id + " failed on " + command + ": " + e);
+                    out.println("Error: the command failed");
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            out.println("Closing idle session");
+        } finally {
+            out.flush();
+            shutdown.run();
+            System.err.println("session " + id + " closed (" + open.decrementAndGet() + " open)");
+        }
+    }
+
+    /**
+     * Rewrites a command line as the PTUI will read it, with its words separated by single spaces,
+     * and checks that a load command names one file under the puzzle directory. The PTUIs decide
+     * what is a load command in their own way, so the game's own test is used.
+     * @param line a command line
+     * @param loads tells if the first word of a line makes the game's PTUI load a file
+     * @return the rewritten line, with the file of a load command as a path under the puzzle directory,
+     *         or null if it is a load command without a single file under the directory
+     */
+    private String command(String line, Predicate<String> loads) {
+        String[] words = line.trim().split("\\s+");
+        if (!loads.test(words[0])) {
+            return String.join(" ", words);
+        }
+        Path file = words.length == 2 ? resolve(words[1]) : null;
+        return file == null ? null : words[0] + " " + file;
+    }
+
+    /**
+     * Finds a puzzle file under the puzzle directory, following links so that a link
+     * in the directory cannot lead outside it.
+     * @param name the name of the file, relative to the puzzle directory
+     * @return the file, or null if it does not exist or is outside the directory
+     */
+    private Path resolve(String name) {
+        try {
+            Path file = puzzles.resolve(name).toRealPath();
+            return file.startsWith(puzzles) && Files.isRegularFile(file) ? file : null;
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a host until it is killed.
+     * @param args the options --port p, --dir puzzle-directory, --sessions n and --solvers n
+     * @throws IOException if the port cannot be listened on
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        Path dir = Path.of("data");
+        int maxSessions = 10_000;
+        int solvers = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--dir" -> dir = Path.of(args[++i]);
+                case "--sessions" -> maxSessions = Integer.parseInt(args[++i]);
+                case "--solvers" -> solvers = Integer.parseInt(args[++i]);
+                default -> {
+                    System.out.println("Usage: java GameHost [--port p] [--dir puzzle-directory] " +
+                            "[--sessions n] [--solvers n]");
+                    return;
+                }
+            }
+        }
+        GameHost host = new GameHost(dir, maxSessions, solvers);
+        try (ServerSocket server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress())) {
+            System.err.println("Serving puzzles from " + host.puzzles + " on " + server.getLocalSocketAddress());
+            host.serve(server);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package puzzles.tools;
+
+import puzzles.chess.model.ChessGenerator;
+import puzzles.hoppers.model.HoppersGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes random solvable Hoppers or Chess puzzles in the format of the files in data/,
+ * so that the solvers can be measured on boards of any size and number of pieces.
+ * <p>
+ * {@code Generate hoppers rows cols frogs} or {@code Generate chess rows cols pieces} prints one
+ * puzzle. With --count n, n puzzles are made from consecutive seeds starting at --seed, and with
+ * --out dir each is written to dir/hoppers-rows-cols-frogs-seed.txt (or chess-...) instead of printed.
+ * --pieces gives the letters the Chess pieces are chosen from, KQRBNP unless it is given.
+ * The same arguments always make the same puzzles.
+ * @author cmp2318
+ */
+public class Generate {
+    /**
+     * Makes one puzzle.
+     * @param type hoppers or chess
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param pieces the number of frogs or pieces
+     * @param mix the letters the Chess pieces are chosen from
+     * @param seed the seed of the puzzle
+     * @return the contents of the puzzle file
+     */
+    public static String generate(String type, int rows, int cols, int pieces, String mix, long seed) {
+        if (type.equals("hoppers")) {
+            return HoppersGenerator.format(new HoppersGenerator(seed).generate(rows, cols, pieces));
+        }
+        return ChessGenerator.format(new ChessGenerator(seed).generate(rows, cols, pieces, mix));
+    }
+
+    /**
+     * Makes puzzles and prints them or writes them to files.
+     * @param args hoppers or chess, the rows, the columns and the number of pieces, and the options
+     *             --seed s, --count n, --pieces letters and --out dir
+     * @throws IOException if a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4 || !(args[0].equals("hoppers") || args[0].equals("chess"))) {
+            System.out.println("Usage: java Generate hoppers|chess rows cols pieces " +
+                    "[--seed s] [--count n] [--pieces letters] [--out dir]");
+            return;
+        }
+        String type = args[0];
+        int rows = Integer.parseInt(args[1]);
+        int cols = Integer.parseInt(args[2]);
+        int pieces = Integer.parseInt(args[3]);
+        long seed = 1;
+        int count = 1;
+        String mix = "KQRBNP";
+        Path out = null;
+        for (int i = 4; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--count" -> count = Integer.parseInt(args[++i]);
+                case "--pieces" -> mix = args[++i].toUpperCase();
+                case "--out" -> out = Path.of(args[++i]);
+                default -> {
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+                }
+            }
+        }
+        if (out != null) {
+            Files.createDirectories(out);
+        }
+        for (int i = 0; i < count; i++) {
+            String puzzle;
+            try {
+                puzzle = generate(type, rows, cols, pieces, mix, seed + i);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+                return;
+            }
+            if (out == null) {
+                System.out.print(puzzle);
+            } else {
+                Path file = out.resolve(type + "-" + rows + "-" + cols + "-" + pieces + "-" + (seed + i) + ".txt");
+                Files.writeString(file, puzzle);
+                System.out.println(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package puzzles.tools;
+
+import puzzles.chess.model.ChessConfig;
+import puzzles.chess.solver.Chess;
+import puzzles.clock.Clock;
+import puzzles.clock.ClockConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.solver.Hoppers;
+import puzzles.strings.Strings;
+import puzzles.strings.StringsConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs every puzzle main on the inputs of the golden outputs in output/ and checks the answers,
+ * recording the wall time, the peak heap and the number of unique configurations of each run,
+ * so that a new engine can be shown to give the same answers before it replaces the old one.
+ * <p>
+ * The golden files were written by the reference solution, whose boards are formatted a little
+ * differently and which may pick a different one of several shortest paths, so the outputs are
+ * not compared line by line. A run passes when it agrees with its golden file on whether there is
+ * a solution and on the number of moves, starts from the same board, and every step is a legal
+ * move of the puzzle ending in a solution. With --exact the steps must also be the golden ones.
+ * <p>
+ * With --baseline, the measurements are compared with those of an earlier run saved with --save,
+ * and a run fails if it takes more than --time-factor times the baseline's time (plus 50 ms, so
+ * that small puzzles do not fail on noise), more than --heap-factor times its peak heap (plus 16 MB), or more
+ * unique configurations than --unique-factor times the baseline's. --max-ms and --max-heap-mb
+ * are budgets for every run regardless of the baseline. The program exits with status 1 if any
+ * run fails.
+ * <p>
+ * Every run is made in a JVM of its own, started with the heap options of this one, so that the
+ * garbage or an OutOfMemoryError of one run does not count against the next. The arguments after
+ * {@code --} are passed on to the Hoppers and Chess mains, such as {@code -- --dfs} or
+ * {@code -- --external /tmp}, to show that another engine gives the golden answers.
+ * With --exact the unique configurations must also be those of the golden file.
+ * @author cmp2318
+ */
+public class GoldenRunner {
+    /**
+     * The time every run may take beyond the baseline's, in milliseconds, however short the baseline is.
+     */
+    private static final long TIME_SLACK = 50;
+    /**
+     * The heap every run may use beyond the baseline's, in bytes, however small the baseline is.
+     */
+    private static final long HEAP_SLACK = 16 << 20;
+    /**
+     * The line a run's JVM ends its output with, followed by its wall time in milliseconds and its peak heap in bytes.
+     */
+    private static final String MEASURED = "golden-runner-measured";
+    /**
+     * A step header, with the step of Clock and Strings on the same line.
+     */
+    private static final Pattern STEP = Pattern.compile("^Step \\d+:\\s*(.*)$");
+    /**
+     * The counts printed by every main.
+     */
+    private static final Pattern COUNT = Pattern.compile("^(Total|Unique) configs: (\\d+)");
+
+    /**
+     * The puzzles the mains solve.
+     */
+    private enum Kind { CHESS, HOPPERS, CLOCK, STRINGS }
+
+    /**
+     * One run of a main.
+     * @param name the name of the golden file, without -out.txt
+     * @param kind the puzzle
+     * @param args the arguments of the main
+     * @param golden the golden output
+     */
+    private record Case(String name, Kind kind, String[] args, Path golden) {}
+
+    /**
+     * What a main printed, or what its golden file says it should print.
+     * @param total the total configurations, or -1 if none were printed
+     * @param unique the unique configurations, or -1 if none were printed
+     * @param steps every step, board rows separated by newlines
+     */
+    private record Output(long total, long unique, List<String> steps) {}
+
+    /**
+     * The measurements of one run.
+     * @param millis the wall time
+     * @param heap the peak heap, in bytes
+     * @param unique the unique configurations
+     */
+    private record Measure(double millis, long heap, long unique) {}
+
+    private boolean exact;
+    private double timeFactor = 1.5;
+    private double heapFactor = 1.5;
+    private double uniqueFactor = 1.0;
+    private long maxMillis = Long.MAX_VALUE;
+    private long maxHeap = Long.MAX_VALUE;
+    private Map<String, Measure> baseline = Map.of();
+
+    /**
+     * Finds a run for every golden output of a main, skipping the PTUI transcripts.
+     * @param output the directory of the golden outputs
+     * @param filters parts of case names to run, or none to run every case
+     * @param engine the arguments added to those of the Hoppers and Chess mains
+     * @return the runs
+     * @throws IOException if the directory cannot be read
+     */
+    private static List<Case> cases(Path output, List<String> filters, List<String> engine) throws IOException {
+        List<Case> cases = new ArrayList<>();
+        for (Kind kind : Kind.values()) {
+            Path dir = output.resolve(kind.name().toLowerCase());
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*-out.txt")) {
+                stream.forEach(files::add);
+            }
+            files.sort(null);
+            for (Path golden : files) {
+                String name = golden.getFileName().toString().replace("-out.txt", "");
+                if (name.endsWith("-ptui") || !(filters.isEmpty() || filters.stream().anyMatch(name::contains))) {
+                    continue;
+                }
+                String[] args = switch (kind) {
+                    case CHESS, HOPPERS -> {
+                        List<String> main = new ArrayList<>(List.of("data/" + kind.name().toLowerCase() + "/" + name + ".txt"));
+                        main.addAll(engine);
+                        yield main.toArray(new String[0]);
+                    }
+                    case CLOCK, STRINGS -> name.substring(name.indexOf('-') + 1).split("-");
+                };
+                cases.add(new Case(name, kind, args, golden));
+            }
+        }
+        return cases;
+    }
+
+    /**
+     * Runs a main in a JVM of its own, capturing what it prints and its measurements.
+     * @param test the run
+     * @param measures where the measurements are put
+     * @return what the main printed
+     * @throws IOException if the JVM cannot be started
+     */
+    private static String run(Case test, Map<String, Measure> measures) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-Xm") || option.startsWith("-Xss") || option.startsWith("-XX:")) {
+                command.add(option);
+            }
+        }
+        String modules = System.getProperty("jdk.module.path");
+        if (modules != null && GoldenRunner.class.getModule().isNamed()) {
+            command.addAll(List.of("-p", modules, "-m", GoldenRunner.class.getModule().getName() + "/" + GoldenRunner.class.getName()));
+        } else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), GoldenRunner.class.getName()));
+        }
+        command.add("--case");
+        command.add(test.kind().name());
+        command.addAll(List.of(test.args()));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        process.getOutputStream().close();
+        String text = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        long peak = 0;
+        int measured = text.lastIndexOf(MEASURED);
+        if (measured != -1) {
+            String[] fields = text.substring(measured + MEASURED.length()).strip().split(" ");
+            millis = Double.parseDouble(fields[0]);
+            peak = Long.parseLong(fields[1]);
+            text = text.substring(0, measured);
+        } else {
+            text += System.lineSeparator() + "Exception: the run's JVM exited with status " + process.exitValue();
+        }
+        measures.put(test.name(), new Measure(millis, peak, parse(text).unique()));
+        return text;
+    }
+
+    /**
+     * Runs a main in this JVM, which was started by {@link #run} for this run alone, and prints
+     * what it printed followed by its measurements.
+     * @param kind the puzzle
+     * @param args the arguments of the main
+     */
+    private static void runCase(Kind kind, String[] args) {
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap.add(pool);
+            }
+        }
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        try {
+            switch (kind) {
+                case CHESS -> Chess.main(args);
+                case HOPPERS -> Hoppers.main(args);
+                case CLOCK -> Clock.main(args);
+                case STRINGS -> Strings.main(args);
+            }
+        } catch (Exception | OutOfMemoryError e) {
+            System.out.println("Exception: " + e);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heap) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%s %.3f %d%n", MEASURED, millis, peak);
+        System.out.flush();
+        System.exit(0);
+    }
+
+    /**
+     * Reads the counts and the steps out of the output of a main, in either format.
+     * Trailing spaces and blank lines are dropped, and so are the row and column numbers of the Hoppers boards.
+     * @param text the output
+     * @return the counts and the steps
+     */
+    static Output parse(String text) {
+        long total = -1;
+        long unique = -1;
+        List<String> steps = new ArrayList<>();
+        StringBuilder board = null;
+        for (String line : text.split("\\R")) {
+            line = line.strip();
+            Matcher count = COUNT.matcher(line);
+            Matcher step = STEP.matcher(line);
+            if (count.find()) {
+                if (count.group(1).equals("Total")) {
+                    total = Long.parseLong(count.group(2));
+                } else {
+                    unique = Long.parseLong(count.group(2));
+                }
+            } else if (step.matches()) {
+                if (board != null) {
+                    steps.add(board.toString().strip());
+                }
+                board = new StringBuilder(step.group(1));
+            } else if (board != null && !line.isEmpty() && !line.matches("[\\d ]+|-+")) {
+                board.append('\n').append(line.replaceFirst("^\\d+ \\| ", ""));
+            }
+        }
+        if (board != null) {
+            steps.add(board.toString().strip());
+        }
+        return new Output(total, unique, steps);
+    }
+
+    /**
+     * Builds the configuration a printed step stands for.
+     * @param test the run the step was printed by
+     * @param step the step
+     * @return the configuration
+     * @throws IOException if the step is not a board of the puzzle
+     */
+    private static Configuration configuration(Case test, String step) throws IOException {
+        String[] args = test.args();
+        switch (test.kind()) {
+            case CLOCK:
+                return new ClockConfig(Integer.parseInt(args[0]), Integer.parseInt(step), Integer.parseInt(args[2]));
+            case STRINGS:
+                return new StringsConfig(step, args[1]);
+            default:
+                String[] rows = step.split("\n");
+                String text = rows.length + " " + rows[0].split(" ").length + "\n" + step + "\n";
+                BufferedReader reader = new BufferedReader(new StringReader(text));
+                return test.kind() == Kind.CHESS ? ChessConfig.read(reader) : HoppersConfig.read(reader);
+        }
+    }
+
+    /**
+     * Checks a run's output against its golden file and its measurements against the budgets.
+     * @param test the run
+     * @param text what the main printed
+     * @param measure its measurements
+     * @return why the run fails, or null if it passes
+     * @throws IOException if the golden file cannot be read
+     */
+    private String check(Case test, String text, Measure measure) throws IOException {
+        Output golden = parse(Files.readString(test.golden()));
+        Output actual = parse(text);
+        int failed = text.indexOf("Exception: ");
+        if (failed != -1) {
+            return text.substring(failed).lines().findFirst().orElse("").strip();
+        }
+        if (golden.steps().isEmpty() != actual.steps().isEmpty()) {
+            return actual.steps().isEmpty() ? "no solution found" : "solution found for an unsolvable puzzle";
+        }
+        if (golden.steps().size() != actual.steps().size()) {
+            return (actual.steps().size() - 1) + " moves instead of " + (golden.steps().size() - 1);
+        }
+        if (!actual.steps().isEmpty()) {
+            if (!actual.steps().get(0).equals(golden.steps().get(0))) {
+                return "different starting board";
+            }
+            if (exact && !actual.steps().equals(golden.steps())) {
+                return "different path";
+            }
+            try {
+                Configuration previous = configuration(test, actual.steps().get(0));
+                for (int i = 1; i < actual.steps().size(); i++) {
+                    Configuration next = configuration(test, actual.steps().get(i));
+                    if (!previous.getNeighbors().contains(next)) {
+                        return "step " + i + " is not a legal move";
+                    }
+                    previous = next;
+                }
+                if (!previous.isSolution()) {
+                    return "the last step is not a solution";
+                }
+            } catch (IOException | RuntimeException e) {
+                return "unreadable step: " + e.getMessage();
+            }
+        }
+        if (exact && golden.unique() != -1 && actual.unique() != golden.unique()) {
+            return actual.unique() + " unique configs instead of " + golden.unique();
+        }
+        if (measure.millis() > maxMillis) {
+            return String.format("%.0f ms is over the budget of %d ms", measure.millis(), maxMillis);
+        }
+        if (measure.heap() > maxHeap) {
+            return (measure.heap() >> 20) + " MB of heap is over the budget of " + (maxHeap >> 20) + " MB";
+        }
+        Measure base = baseline.get(test.name());
+        if (base != null) {
+            if (measure.millis() > base.millis() * timeFactor + TIME_SLACK) {
+                return String.format("%.0f ms against a baseline of %.0f ms", measure.millis(), base.millis());
+            }
+            if (measure.heap() > base.heap() * heapFactor + HEAP_SLACK) {
+                return (measure.heap() >> 20) + " MB of heap against a baseline of " + (base.heap() >> 20) + " MB";
+            }
+            if (measure.unique() > base.unique() * uniqueFactor) {
+                return measure.unique() + " unique configs against a baseline of " + base.unique();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the value of an option.
+     * @param args the arguments
+     * @param i the index of the value, just after the option
+     * @return the value
+     * @throws IllegalArgumentException if the option is the last argument
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        }
+        return args[i];
+    }
+
+    /**
+     * Reads measurements saved by an earlier run.
+     * @param file the file, one tab-separated line per run after the header
+     * @return the measurements, by the name of the run
+     * @throws IOException if the file cannot be read
+     */
+    private static Map<String, Measure> load(Path file) throws IOException {
+        Map<String, Measure> measures = new HashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            String[] fields = line.split("\t");
+            if (fields.length == 4 && !fields[0].equals("case")) {
+                measures.put(fields[0], new Measure(Double.parseDouble(fields[1]),
+                        Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+            }
+        }
+        return measures;
+    }
+
+    /**
+     * Saves the measurements of this run, for a later run to compare with.
+     * @param file the file
+     * @param measures the measurements, by the name of the run
+     * @throws IOException if the file cannot be written
+     */
+    private static void save(Path file, Map<String, Measure> measures) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("case\tmillis\theap\tunique");
+            for (Map.Entry<String, Measure> entry : measures.entrySet()) {
+                Measure m = entry.getValue();
+                out.printf("%s\t%.3f\t%d\t%d%n", entry.getKey(), m.millis(), m.heap(), m.unique());
+            }
+        }
+    }
+
+    /**
+     * Runs the golden cases.
+     * @param args parts of the names of the cases to run, and the options --exact, --output dir,
+     *             --baseline file, --save file, --time-factor x, --heap-factor x, --unique-factor x,
+     *             --max-ms n and --max-heap-mb n, then optionally -- and the arguments to pass on to
+     *             the Hoppers and Chess mains
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--case")) {
+            runCase(Kind.valueOf(args[1]), Arrays.copyOfRange(args, 2, args.length));
+            return;
+        }
+        GoldenRunner runner = new GoldenRunner();
+        Path output = Path.of("output");
+        Path save = null;
+        List<String> filters = new ArrayList<>();
+        List<String> engine = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--" -> {
+                        engine.addAll(List.of(args).subList(i + 1, args.length));
+                        i = args.length;
+                    }
+                    case "--exact" -> runner.exact = true;
+                    case "--output" -> output = Path.of(value(args, ++i));
+                    case "--baseline" -> runner.baseline = load(Path.of(value(args, ++i)));
+                    case "--save" -> save = Path.of(value(args, ++i));
+                    case "--time-factor" -> runner.timeFactor = Double.parseDouble(value(args, ++i));
+                    case "--heap-factor" -> runner.heapFactor = Double.parseDouble(value(args, ++i));
+                    case "--unique-factor" -> runner.uniqueFactor = Double.parseDouble(value(args, ++i));
+                    case "--max-ms" -> runner.maxMillis = Long.parseLong(value(args, ++i));
+                    case "--max-heap-mb" -> runner.maxHeap = Long.parseLong(value(args, ++i)) << 20;
+                    default -> filters.add(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: java GoldenRunner [case-name-part...] [--exact] [--output dir] " +
+                    "[--baseline file] [--save file] [--time-factor x] [--heap-factor x] [--unique-factor x] " +
+                    "[--max-ms n] [--max-heap-mb n] [-- main-args...]");
+            System.exit(2);
+        }
+
+        Map<String, Measure> measures = new java.util.LinkedHashMap<>();
+        int failures = 0;
+        System.out.printf("%-22s %-6s %6s %10s %10s %9s %12s  %s%n",
+                "case", "result", "moves", "ms", "heap MB", "unique", "golden uniq", "reason");
+        for (Case test : cases(output, filters, engine)) {
+            String text = run(test, measures);
+            Measure measure = measures.get(test.name());
+            String reason = runner.check(test, text, measure);
+            if (reason != null) {
+                failures++;
+            }
+            Output actual = parse(text);
+            Output golden = parse(Files.readString(test.golden()));
+            System.out.printf("%-22s %-6s %6d %10.1f %10d %9d %12d  %s%n", test.name(),
+                    reason == null ? "PASS" : "FAIL", Math.max(actual.steps().size() - 1, 0), measure.millis(),
+                    measure.heap() >> 20, measure.unique(), golden.unique(), reason == null ? "" : reason);
+        }
+        System.out.println(measures.size() - failures + " passed, " + failures + " failed");
+        if (save != null) {
+            save(save, measures);
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
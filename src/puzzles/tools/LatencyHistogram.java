@@ -0,0 +1,126 @@
+package puzzles.tools;
+
+import java.io.PrintStream;
+
+/**
+ * A histogram of latencies in power-of-two buckets of nanoseconds.
+ * Recording a latency is a few arithmetic operations and no allocation, so one
+ * histogram can take millions of samples; percentiles are reported as the upper
+ * bound of the bucket they fall in, which is within a factor of two.
+ * @author cmp2318
+ */
+public class LatencyHistogram {
+    /**
+     * counts[i] is the number of latencies from 2^i up to 2^(i+1) nanoseconds.
+     */
+    private final long[] counts = new long[64];
+    /**
+     * The number of latencies recorded.
+     */
+    private long count;
+    /**
+     * The sum of the latencies recorded, in nanoseconds.
+     */
+    private long total;
+    /**
+     * The smallest latency recorded, in nanoseconds.
+     */
+    private long min = Long.MAX_VALUE;
+    /**
+     * The largest latency recorded, in nanoseconds.
+     */
+    private long max;
+
+    /**
+     * Adds a latency.
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 1);
+        counts[63 - Long.numberOfLeadingZeros(nanos)]++;
+        count++;
+        total += nanos;
+        min = Math.min(min, nanos);
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean latency.
+     * @return the mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Returns the largest latency recorded.
+     * @return the maximum in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns an upper bound of a percentile of the latencies.
+     * @param percent the percentile, from 0 to 100
+     * @return the upper bound of the bucket holding it, in nanoseconds, never above the maximum
+     */
+    public long percentile(double percent) {
+        long rank = (long) Math.ceil(count * percent / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(i == 62 ? Long.MAX_VALUE : 1L << (i + 1), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Prints one line of summary and one line per non-empty bucket.
+     * @param name the name of what was timed
+     * @param out where to print
+     */
+    public void print(String name, PrintStream out) {
+        out.printf("%-8s %8d %10s %10s %10s %10s %10s%n", name, count, format(getMean()),
+                format(percentile(50)), format(percentile(90)), format(percentile(99)), format(max));
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                int bar = (int) Math.max(1, 40 * counts[i] / Math.max(1, count));
+                out.printf("    < %8s %8d %s%n", format(1L << Math.min(i + 1, 62)), counts[i], "#".repeat(bar));
+            }
+        }
+    }
+
+    /**
+     * Prints the column headings matching {@link #print(String, PrintStream)}.
+     * @param out where to print
+     */
+    public static void printHeader(PrintStream out) {
+        out.printf("%-8s %8s %10s %10s %10s %10s %10s%n", "command", "count", "mean", "p50", "p90", "p99", "max");
+    }
+
+    /**
+     * Formats a latency with a unit that keeps it short.
+     * @param nanos the latency in nanoseconds
+     * @return the formatted latency
+     */
+    static String format(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 10_000_000) {
+            return nanos / 1_000 + "us";
+        }
+        return nanos / 1_000_000 + "ms";
+    }
+}
@@ -0,0 +1,312 @@
+package puzzles.tools;
+
+import puzzles.chess.model.ChessBoard;
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.MoveConfiguration;
+import puzzles.common.solver.SearchBoard;
+import puzzles.hoppers.model.HoppersBoard;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Counts the positions reachable from a Hoppers or Chess puzzle at every depth, as chess engines
+ * count them with perft, to check and time move generation apart from the bookkeeping of the Solver.
+ * <p>
+ * The tree count is the number of move sequences of each length, so a position reached in two orders
+ * is counted twice. It is made by making and taking back moves on the puzzle's {@link SearchBoard},
+ * and the moves of the last depth are counted without being made. The work is split over the
+ * threads by the positions a few moves from the start.
+ * <p>
+ * The unique count is the number of different positions at each depth, found a layer at a time from
+ * {@link Configuration#getNeighbors()}. Every move of both puzzles takes a piece off the board, so a
+ * position can only be reached at one depth and no position is counted at two.
+ * <p>
+ * With --check the tree count is made a second time from {@link MoveConfiguration#applyMove}, and
+ * the program exits with status 1 if the two move generators disagree at any depth.
+ * @author cmp2318
+ */
+public class Perft {
+    /**
+     * The number of start positions per thread the tree count is split into.
+     */
+    private static final int TASKS_PER_THREAD = 16;
+
+    /**
+     * The threads the counts are made on.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Makes the mutable board of a position.
+     */
+    private final Function<Configuration, SearchBoard> boards;
+
+    /**
+     * Creates a counter.
+     * @param threads the number of threads to count on
+     * @param boards makes the mutable board of a position
+     */
+    public Perft(int threads, Function<Configuration, SearchBoard> boards) {
+        this.pool = new ForkJoinPool(threads);
+        this.boards = boards;
+    }
+
+    /**
+     * Counts the move sequences of every length up to a depth.
+     * @param start the start position
+     * @param depth the longest sequences counted
+     * @param applyMove true to make the moves on configurations rather than on the mutable board
+     * @return the number of sequences of every length, from 0 to depth
+     * @throws InterruptedException if the count is interrupted
+     */
+    public long[] tree(MoveConfiguration<?> start, int depth, boolean applyMove) throws InterruptedException {
+        long[] counts = new long[depth + 1];
+        counts[0] = 1;
+        if (depth == 0) {
+            return counts;
+        }
+        List<MoveConfiguration<?>> frontier = List.of(start);
+        int split = 0;
+        while (split < depth - 1 && frontier.size() < pool.getParallelism() * TASKS_PER_THREAD) {
+            List<MoveConfiguration<?>> next = new ArrayList<>();
+            for (MoveConfiguration<?> config : frontier) {
+                expand(config, next);
+            }
+            frontier = next;
+            split++;
+            counts[split] = frontier.size();
+            if (frontier.isEmpty()) {
+                return counts;
+            }
+        }
+
+        int from = split;
+        List<Future<long[]>> tasks = new ArrayList<>();
+        for (MoveConfiguration<?> config : frontier) {
+            tasks.add(pool.submit(() -> {
+                long[] local = new long[depth + 1];
+                if (applyMove) {
+                    walk(config, from, depth, local);
+                } else {
+                    SearchBoard board = boards.apply(config);
+                    int[][] buffers = new int[depth - from][board.maxMoves()];
+                    walk(board, buffers, from, depth, local);
+                }
+                return local;
+            }));
+        }
+        try {
+            for (Future<long[]> task : tasks) {
+                long[] local = task.get();
+                for (int d = from + 1; d <= depth; d++) {
+                    counts[d] += local[d];
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return counts;
+    }
+
+    /**
+     * Adds the positions one move from a position to a list, once for every move.
+     * @param config the position
+     * @param next the list
+     * @param <M> the type of a move
+     */
+    private static <M> void expand(MoveConfiguration<M> config, List<MoveConfiguration<?>> next) {
+        for (M move : config.getMoves()) {
+            next.add(config.applyMove(move));
+        }
+    }
+
+    /**
+     * Counts the move sequences below a position by making and taking back moves on its board.
+     * @param board the board, left as it was
+     * @param buffers a move buffer for every depth below the position
+     * @param depth the depth of the position
+     * @param max the longest sequences counted
+     * @param counts the counts of every length, added to
+     */
+    private static void walk(SearchBoard board, int[][] buffers, int depth, int max, long[] counts) {
+        int[] moves = buffers[max - depth - 1];
+        int n = board.generateMoves(moves);
+        counts[depth + 1] += n;
+        if (depth + 1 < max) {
+            for (int i = 0; i < n; i++) {
+                board.makeMove(moves[i]);
+                walk(board, buffers, depth + 1, max, counts);
+                board.unmakeMove();
+            }
+        }
+    }
+
+    /**
+     * Counts the move sequences below a position by applying every move to a copy.
+     * @param config the position
+     * @param depth the depth of the position
+     * @param max the longest sequences counted
+     * @param counts the counts of every length, added to
+     * @param <M> the type of a move
+     */
+    private static <M> void walk(MoveConfiguration<M> config, int depth, int max, long[] counts) {
+        List<M> moves = config.getMoves();
+        counts[depth + 1] += moves.size();
+        if (depth + 1 < max) {
+            for (M move : moves) {
+                walk(config.applyMove(move), depth + 1, max, counts);
+            }
+        }
+    }
+
+    /**
+     * Counts the different positions at every depth, one layer at a time.
+     * @param start the start position
+     * @param depth the deepest layer counted
+     * @param generated the number of neighbors generated, before duplicates were dropped, added to
+     * @return the number of positions at every depth, from 0 to depth
+     * @throws InterruptedException if the count is interrupted
+     */
+    public long[] unique(Configuration start, int depth, AtomicLong generated) throws InterruptedException {
+        long[] counts = new long[depth + 1];
+        Set<Configuration> layer = Set.of(start);
+        counts[0] = 1;
+        for (int d = 1; d <= depth && !layer.isEmpty(); d++) {
+            Set<Configuration> current = layer;
+            Set<Configuration> next = ConcurrentHashMap.newKeySet();
+            try {
+                pool.submit(() -> current.parallelStream().forEach(config -> {
+                    Collection<Configuration> neighbors = config.getNeighbors();
+                    generated.addAndGet(neighbors.size());
+                    next.addAll(neighbors);
+                })).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            counts[d] = next.size();
+            layer = next;
+        }
+        return counts;
+    }
+
+    /**
+     * Prints the counts of every depth, with how fast each count was made.
+     * @param args hoppers or chess, the puzzle file, and the options --depth n, --threads n,
+     *             --tree or --unique to make only one of the counts, and --check
+     * @throws IOException if the puzzle file cannot be read
+     * @throws InterruptedException if the count is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || !(args[0].equals("hoppers") || args[0].equals("chess"))) {
+            System.out.println("Usage: java Perft hoppers|chess puzzle-file [--depth n] [--threads n] " +
+                    "[--tree|--unique] [--check]");
+            return;
+        }
+        MoveConfiguration<?> start;
+        Function<Configuration, SearchBoard> boards;
+        try (BufferedReader reader = new BufferedReader(new FileReader(args[1]))) {
+            if (args[0].equals("hoppers")) {
+                start = HoppersConfig.read(reader);
+                boards = c -> new HoppersBoard((HoppersConfig) c);
+            } else {
+                start = ChessConfig.read(reader);
+                boards = c -> new ChessBoard((ChessConfig) c);
+            }
+        }
+        int depth = boards.apply(start).maxDepth();
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean tree = true;
+        boolean unique = true;
+        boolean check = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--tree" -> unique = false;
+                case "--unique" -> tree = false;
+                case "--check" -> check = true;
+                default -> {
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        Perft perft = new Perft(threads, boards);
+        System.out.println("File: " + args[1] + ", depth " + depth + ", " + threads + " threads");
+        long[] sequences = null;
+        long[] positions = null;
+        int failures = 0;
+        if (tree) {
+            long begin = System.nanoTime();
+            sequences = perft.tree(start, depth, false);
+            report("tree", sum(sequences), System.nanoTime() - begin);
+            if (check) {
+                begin = System.nanoTime();
+                long[] copies = perft.tree(start, depth, true);
+                report("applyMove", sum(copies), System.nanoTime() - begin);
+                for (int d = 0; d <= depth; d++) {
+                    if (copies[d] != sequences[d]) {
+                        System.out.println("Depth " + d + ": the board makes " + sequences[d] +
+                                " sequences and applyMove makes " + copies[d]);
+                        failures++;
+                    }
+                }
+            }
+        }
+        if (unique) {
+            AtomicLong generated = new AtomicLong();
+            long begin = System.nanoTime();
+            positions = perft.unique(start, depth, generated);
+            report("unique", generated.get(), System.nanoTime() - begin);
+        }
+
+        System.out.printf("%5s %20s %14s%n", "depth", "sequences", "positions");
+        for (int d = 0; d <= depth; d++) {
+            System.out.printf("%5d %20s %14s%n", d,
+                    sequences == null ? "-" : String.valueOf(sequences[d]),
+                    positions == null ? "-" : String.valueOf(positions[d]));
+        }
+        perft.pool.shutdown();
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints how long a count took and how many positions it made per second.
+     * @param name the name of the count
+     * @param nodes the number of positions made
+     * @param nanos how long the count took
+     */
+    private static void report(String name, long nodes, long nanos) {
+        System.out.printf("%-10s %14d nodes in %8.3f s, %,.0f nodes/s%n",
+                name, nodes, nanos / 1e9, nodes / Math.max(nanos / 1e9, 1e-9));
+    }
+
+    /**
+     * Adds up counts.
+     * @param counts the counts
+     * @return their sum
+     */
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,244 @@
+package puzzles.tools;
+
+import puzzles.chess.ptui.ChessPTUI;
+import puzzles.hoppers.ptui.HoppersPTUI;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Replays PTUI command scripts as fast as the PTUIs can run them, without a console,
+ * and reports how long each kind of command took.
+ * Each script, such as input/hoppers-4-ptui-in.txt, is run on a fresh PTUI that loads the
+ * puzzle file first. Scripts can also be generated at random from a seed, so that thousands
+ * of sessions can be timed. Everything the PTUIs print goes to one large buffer that is
+ * thrown away, or written to a file with --out, so the timings are of the models and not
+ * of the terminal.
+ * @author cmp2318
+ */
+public class Replay {
+    /**
+     * The number of commands in every generated script, not counting the final quit.
+     */
+    private static final int SCRIPT_LENGTH = 50;
+    /**
+     * The size of the buffer the PTUI output is written through.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The latencies of every kind of command, by the name of the command.
+     */
+    private final Map<String, LatencyHistogram> latencies = new TreeMap<>();
+    /**
+     * Whether the scripts are run on the Hoppers PTUI rather than the Chess PTUI.
+     */
+    private final boolean hoppers;
+    /**
+     * The number of commands that threw an exception.
+     */
+    private int errors;
+
+    /**
+     * Creates a replay for one of the PTUIs.
+     * @param hoppers true for the Hoppers PTUI, false for the Chess PTUI
+     */
+    public Replay(boolean hoppers) {
+        this.hoppers = hoppers;
+    }
+
+    /**
+     * Runs one script on a fresh PTUI, timing every command until the script ends or quits,
+     * then shuts the PTUI down so that its background solves do not run into the next script.
+     * @param puzzle the puzzle file the PTUI starts with
+     * @param script the command lines
+     * @throws Exception if the PTUI cannot be started
+     */
+    public void run(String puzzle, List<String> script) throws Exception {
+        Predicate<String> execute;
+        Runnable shutdown;
+        if (hoppers) {
+            HoppersPTUI ptui = new HoppersPTUI();
+            ptui.init(puzzle);
+            execute = ptui::execute;
+            shutdown = ptui::shutdown;
+        } else {
+            ChessPTUI ptui = new ChessPTUI();
+            ptui.init(puzzle);
+            ptui.startScripted(new PrintWriter(System.out));
+            execute = ptui::execute;
+            shutdown = ptui::shutdown;
+        }
+        try {
+            boolean selected = false;
+            for (String line : script) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String name = name(line.trim().split("\\s+")[0]);
+                if (name.equals("select") && hoppers) {
+                    // every second select of the Hoppers PTUI makes the jump
+                    name = selected ? "jump" : "select";
+                    selected = !selected;
+                } else if (name.equals("load") || name.equals("reset")) {
+                    selected = false;
+                }
+                boolean more = true;
+                long start = System.nanoTime();
+                try {
+                    more = execute.test(line);
+                } catch (RuntimeException e) {
+                    errors++;
+                }
+                latencies.computeIfAbsent(name, n -> new LatencyHistogram()).record(System.nanoTime() - start);
+                if (!more) {
+                    break;
+                }
+            }
+        } finally {
+            // the model's prefetch thread and background solves would otherwise outlive the script
+            shutdown.run();
+        }
+    }
+
+    /**
+     * Prints the latency table and the histogram of every kind of command.
+     * @param out where to print
+     * @param nanos the wall time of the whole replay
+     */
+    public void report(PrintStream out, long nanos) {
+        long commands = 0;
+        LatencyHistogram.printHeader(out);
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            entry.getValue().print(entry.getKey(), out);
+            commands += entry.getValue().getCount();
+        }
+        out.println("Commands: " + commands + ", errors: " + errors);
+        out.printf("Elapsed: %.3f s, %.0f commands/s%n", nanos / 1e9, commands / Math.max(nanos / 1e9, 1e-9));
+    }
+
+    /**
+     * Makes a random script of selects, hints, resets and loads, ending with quit.
+     * The selects are of cells on the board, so most of them reach the model.
+     * @param random the source of the script
+     * @param rows the number of rows of the puzzle
+     * @param cols the number of columns of the puzzle
+     * @param puzzle the puzzle file the loads load
+     * @return the command lines
+     */
+    public static List<String> generate(SplittableRandom random, int rows, int cols, String puzzle) {
+        List<String> script = new ArrayList<>();
+        for (int i = 0; i < SCRIPT_LENGTH; i++) {
+            int roll = random.nextInt(20);
+            if (roll < 14) {
+                script.add("s " + random.nextInt(rows) + " " + random.nextInt(cols));
+            } else if (roll < 18) {
+                script.add("h");
+            } else if (roll < 19) {
+                script.add("reset");
+            } else {
+                script.add("load " + puzzle);
+            }
+        }
+        script.add("quit");
+        return script;
+    }
+
+    /**
+     * Maps the word a command starts with to the name it is reported under.
+     * @param word the first word of the command line
+     * @return the full name of the command
+     */
+    private static String name(String word) {
+        word = word.toLowerCase();
+        return switch (word) {
+            case "s", "select" -> "select";
+            case "h", "hint" -> "hint";
+            case "l", "load" -> "load";
+            case "r", "reset" -> "reset";
+            case "q", "quit" -> "quit";
+            case "u", "undo" -> "undo";
+            case "g", "goto" -> "goto";
+            default -> word;
+        };
+    }
+
+    /**
+     * Reads the number of rows and columns from the first line of a puzzle file.
+     * @param puzzle the puzzle file
+     * @return the rows and the columns
+     * @throws IOException if the file cannot be read
+     */
+    private static int[] dimensions(String puzzle) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(puzzle))) {
+            String[] fields = in.readLine().trim().split("\\s+");
+            return new int[]{Integer.parseInt(fields[0]), Integer.parseInt(fields[1])};
+        }
+    }
+
+    /**
+     * Replays scripts on one of the PTUIs and prints the latencies.
+     * @param args hoppers or chess, the puzzle file, the scripts, and the options
+     *             --generate n, --seed s, --repeat n and --out file
+     * @throws Exception if a file cannot be read or a PTUI cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !(args[0].equals("hoppers") || args[0].equals("chess"))) {
+            System.out.println("Usage: java Replay hoppers|chess puzzle-file [script ...] " +
+                    "[--generate n] [--seed s] [--repeat n] [--out file]");
+            return;
+        }
+        String puzzle = args[1];
+        List<List<String>> scripts = new ArrayList<>();
+        int generate = 0;
+        long seed = 1;
+        int repeat = 1;
+        String file = null;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--generate" -> generate = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--repeat" -> repeat = Integer.parseInt(args[++i]);
+                case "--out" -> file = args[++i];
+                default -> scripts.add(Files.readAllLines(Path.of(args[i])));
+            }
+        }
+        int[] dims = dimensions(puzzle);
+        for (int i = 0; i < generate; i++) {
+            scripts.add(generate(new SplittableRandom(seed + i), dims[0], dims[1], puzzle));
+        }
+
+        Replay replay = new Replay(args[0].equals("hoppers"));
+        PrintStream console = System.out;
+        OutputStream sink = file == null ? OutputStream.nullOutputStream() : new FileOutputStream(file);
+        PrintStream buffered = new PrintStream(new BufferedOutputStream(sink, BUFFER_SIZE), false);
+        System.setOut(buffered);
+        long start = System.nanoTime();
+        try {
+            for (int r = 0; r < repeat; r++) {
+                for (List<String> script : scripts) {
+                    replay.run(puzzle, script);
+                }
+            }
+        } finally {
+            buffered.flush();
+            System.setOut(console);
+            buffered.close();
+        }
+        replay.report(console, System.nanoTime() - start);
+    }
+}
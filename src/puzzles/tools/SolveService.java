@@ -0,0 +1,416 @@
+package puzzles.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import puzzles.chess.model.ChessBoard;
+import puzzles.chess.model.ChessConfig;
+import puzzles.chess.solver.ChessAnalyzer;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SearchBudget;
+import puzzles.common.solver.SolutionCache;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersBoard;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.solver.HoppersAnalyzer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A headless solve server for Hoppers and Chess boards, so that many solves share one warmed-up JVM
+ * instead of each paying for the start of a new one.
+ * <p>
+ * {@code POST /solve?type=hoppers} (or {@code chess}) with a board in the format of the puzzle files
+ * as the body answers with the shortest path and the search counts as JSON; {@code &dfs=true} searches
+ * depth-first. {@code GET /stats} answers with the service's counters. The server only listens on the
+ * loopback address.
+ * <p>
+ * A board that is already being solved is not solved again: every request for it waits on the same
+ * solve. Every path found is kept in a {@link SolutionCache}, which knows the next step of every board
+ * on the path, so a request for any board along a path that was already found is answered from the
+ * cache without a search, and so is a queued board that a solve which ran while it waited passed through.
+ * At most a fixed number of solves run at once, and the memory cap is shared out between them as a
+ * {@link SearchBudget} on the bytes of the visited set, which every engine checks as it searches.
+ * A solve that reaches its share stops and is answered with an error instead of running the JVM out of memory.
+ * @author cmp2318
+ */
+public class SolveService {
+    /**
+     * The port the service listens on unless --port is given.
+     */
+    public static final int DEFAULT_PORT = 7080;
+    /**
+     * The largest request body accepted, in bytes.
+     */
+    private static final int MAX_BODY = 1 << 16;
+
+    /**
+     * What a request asks for: a board, and whether to search it depth-first.
+     * @param start the board
+     * @param depthFirst true to search with make and unmake on a mutable board
+     */
+    private record Key(Configuration start, boolean depthFirst) {}
+
+    /**
+     * The answer to a request.
+     * @param path the shortest path, empty if there is none
+     * @param rejected the rule that proved the board unsolvable before searching, or null
+     * @param total the configurations generated, 0 if the answer came from the cache
+     * @param unique the unique configurations generated, 0 if the answer came from the cache
+     * @param nanos the time the solve took, 0 if the answer came from the cache
+     * @param cached true if no search was needed
+     * @param error why no answer could be found, or null
+     */
+    private record Result(List<Configuration> path, String rejected, long total, long unique,
+                          long nanos, boolean cached, String error) {}
+
+    /**
+     * The paths found so far, shared by every request.
+     */
+    private final SolutionCache cache;
+    /**
+     * The solves queued or running, by what they solve.
+     */
+    private final Map<Key, CompletableFuture<Result>> inFlight = new HashMap<>();
+    /**
+     * Runs the solves, a fixed number at a time, in the order they were asked for.
+     */
+    private final ExecutorService solvers;
+    /**
+     * The heap all the running solves may take for their visited sets together, in bytes.
+     */
+    private final long memoryCap;
+    /**
+     * The limits of every solve: an equal share of the memory cap for each solver thread.
+     */
+    private final SearchBudget budget;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong solves = new AtomicLong();
+    private final AtomicLong overMemory = new AtomicLong();
+
+    /**
+     * Creates a service.
+     * @param solverThreads the number of solves that may run at once
+     * @param memoryCap the heap all the running solves may take for their visited sets together, in bytes
+     * @param cacheSize the number of configurations kept in the result cache
+     */
+    public SolveService(int solverThreads, long memoryCap, int cacheSize) {
+        this.cache = new SolutionCache(cacheSize);
+        this.memoryCap = memoryCap;
+        this.budget = new SearchBudget(0, Math.max(memoryCap / solverThreads, 1), 0);
+        this.solvers = Executors.newFixedThreadPool(solverThreads, task -> {
+            Thread thread = new Thread(task, "solve-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Solver.addAnalyzer(HoppersConfig.class, new HoppersAnalyzer());
+        Solver.addAnalyzer(ChessConfig.class, new ChessAnalyzer());
+        Solver.addBoard(HoppersConfig.class, c -> new HoppersBoard((HoppersConfig) c));
+        Solver.addBoard(ChessConfig.class, c -> new ChessBoard((ChessConfig) c));
+    }
+
+    /**
+     * Asks for a board to be solved. The answer comes from the cache if it can, or from the solve of
+     * the same board already queued or running, or else from a new solve.
+     * @param start the board, which must not be changed afterwards
+     * @param depthFirst true to search depth-first
+     * @return the answer, when it is ready
+     */
+    private CompletableFuture<Result> submit(Configuration start, boolean depthFirst) {
+        requests.incrementAndGet();
+        Result cached = fromCache(start);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        Key key = new Key(start, depthFirst);
+        synchronized (inFlight) {
+            CompletableFuture<Result> running = inFlight.get(key);
+            if (running != null) {
+                joined.incrementAndGet();
+                return running;
+            }
+            CompletableFuture<Result> future = new CompletableFuture<>();
+            inFlight.put(key, future);
+            solvers.execute(() -> {
+                try {
+                    finish(key, solve(key));
+                } catch (RuntimeException | OutOfMemoryError e) {
+                    finish(key, new Result(List.of(), null, 0, 0, 0, false, e.toString()));
+                }
+            });
+            return future;
+        }
+    }
+
+    /**
+     * Solves one board, unless a solve that ran since it was queued has already passed through it.
+     * @param key the board to solve
+     * @return the answer
+     */
+    private Result solve(Key key) {
+        Result cached = fromCache(key.start());
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        solves.incrementAndGet();
+        Solver solver = new Solver();
+        solver.setDepthFirst(key.depthFirst());
+        solver.setBudget(budget);
+        long start = System.nanoTime();
+        List<Configuration> path = solver.search(key.start());
+        long nanos = System.nanoTime() - start;
+        if (solver.getExceeded() != null) {
+            overMemory.incrementAndGet();
+            return new Result(List.of(), null, solver.getTotal(), solver.getUnique(), nanos, false,
+                    "The search was stopped at the memory cap of " + (memoryCap >> 20) + " MB: " + solver.getExceeded());
+        }
+        if (path.isEmpty()) {
+            cache.putUnsolvable(key.start());
+        } else {
+            cache.putPath(path);
+        }
+        return new Result(path, solver.getRejected(), solver.getTotal(), solver.getUnique(), nanos, false, null);
+    }
+
+    /**
+     * Completes every request waiting for a solve.
+     * @param key the board that was solved
+     * @param result the answer
+     */
+    private void finish(Key key, Result result) {
+        CompletableFuture<Result> future;
+        synchronized (inFlight) {
+            future = inFlight.remove(key);
+        }
+        future.complete(result);
+    }
+
+    /**
+     * Builds the answer for a board from the cache, by following the next steps to a solution.
+     * @param start the board
+     * @return the answer, or null if the cache does not know the board
+     */
+    private Result fromCache(Configuration start) {
+        if (!cache.contains(start)) {
+            return null;
+        }
+        List<Configuration> path = new LinkedList<>();
+        Configuration step = start;
+        while (step != null) {
+            path.add(step);
+            if (step.isSolution()) {
+                return new Result(path, null, 0, 0, 0, true, null);
+            }
+            step = cache.nextStep(step);
+        }
+        // the board is unsolvable, or a step was dropped from the cache since
+        return path.size() == 1 ? new Result(List.of(), null, 0, 0, 0, true, null) : null;
+    }
+
+    /**
+     * Answers POST /solve.
+     * @param exchange the request and its response
+     * @throws IOException if the connection fails
+     */
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 405, "{\"error\":\"POST a board to /solve\"}");
+            return;
+        }
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        String type = query.getOrDefault("type", "");
+        boolean depthFirst = Boolean.parseBoolean(query.get("dfs"));
+        Configuration start;
+        try {
+            BufferedReader body = new BufferedReader(new StringReader(readBody(exchange.getRequestBody())));
+            if (type.equals("hoppers")) {
+                start = HoppersConfig.read(body);
+            } else if (type.equals("chess")) {
+                start = ChessConfig.read(body);
+            } else {
+                respond(exchange, 400, "{\"error\":\"type must be hoppers or chess\"}");
+                return;
+            }
+        } catch (IOException e) {
+            respond(exchange, 400, "{\"error\":" + quote(e.getMessage()) + "}");
+            return;
+        }
+        try {
+            respond(exchange, 200, json(submit(start, depthFirst).get()));
+        } catch (InterruptedException | ExecutionException e) {
+            respond(exchange, 500, "{\"error\":" + quote(String.valueOf(e.getCause())) + "}");
+        }
+    }
+
+    /**
+     * Answers GET /stats.
+     * @param exchange the request and its response
+     * @throws IOException if the connection fails
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, "{\"requests\":" + requests + ",\"cacheHits\":" + cacheHits +
+                ",\"joinedInFlight\":" + joined + ",\"solves\":" + solves + ",\"overMemory\":" + overMemory +
+                ",\"cachedConfigurations\":" + cache.size() + "}");
+    }
+
+    /**
+     * Writes an answer as JSON.
+     * @param result the answer
+     * @return the JSON object
+     */
+    private static String json(Result result) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"solvable\":").append(!result.path().isEmpty());
+        json.append(",\"moves\":").append(Math.max(result.path().size() - 1, 0));
+        json.append(",\"total\":").append(result.total());
+        json.append(",\"unique\":").append(result.unique());
+        json.append(",\"millis\":").append(result.nanos() / 1e6);
+        json.append(",\"cached\":").append(result.cached());
+        if (result.rejected() != null) {
+            json.append(",\"rejected\":").append(quote(result.rejected()));
+        }
+        if (result.error() != null) {
+            json.append(",\"error\":").append(quote(result.error()));
+        }
+        json.append(",\"path\":[");
+        String separator = "";
+        for (Configuration step : result.path()) {
+            json.append(separator).append(quote(step.toString()));
+            separator = ",";
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Quotes a string for JSON.
+     * @param text the string
+     * @return the string in quotes, with quotes, backslashes and control characters escaped
+     */
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < ' ') {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Reads a request body, up to the largest size accepted.
+     * @param in the body
+     * @return the body as text
+     * @throws IOException if it cannot be read or is too large
+     */
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) {
+            throw new IOException("The board is larger than " + MAX_BODY + " bytes");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits a query string into its parameters.
+     * @param query the raw query, or null
+     * @return the value of every parameter, by name
+     */
+    private static Map<String, String> query(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals == -1) {
+                    parameters.put(pair, "true");
+                } else {
+                    parameters.put(pair.substring(0, equals), pair.substring(equals + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Sends a JSON response.
+     * @param exchange the request and its response
+     * @param status the HTTP status
+     * @param json the body
+     * @throws IOException if the connection fails
+     */
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Runs the service until it is killed.
+     * @param args the options --port p, --solvers n, --memory megabytes for the visited sets of all the solves together,
+     *             and --cache configurations
+     * @throws IOException if the port cannot be listened on
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int solverThreads = Runtime.getRuntime().availableProcessors();
+        long memory = Runtime.getRuntime().maxMemory() / 4 * 3;
+        int cacheSize = 1 << 20;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--solvers" -> solverThreads = Integer.parseInt(args[++i]);
+                case "--memory" -> memory = Long.parseLong(args[++i]) << 20;
+                case "--cache" -> cacheSize = Integer.parseInt(args[++i]);
+                default -> {
+                    System.out.println("Usage: java SolveService [--port p] [--solvers n] " +
+                            "[--memory megabytes] [--cache configurations]");
+                    return;
+                }
+            }
+        }
+        SolveService service = new SolveService(solverThreads, memory, cacheSize);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.createContext("/solve", service::handleSolve);
+        server.createContext("/stats", service::handleStats);
+        server.setExecutor(Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "solve-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        System.err.println("Solving on http://" + server.getAddress().getHostString() + ":" + port + "/solve");
+    }
+}